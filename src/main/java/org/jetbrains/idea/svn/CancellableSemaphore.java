@@ -0,0 +1,98 @@
+package org.jetbrains.idea.svn;
+
+import consulo.util.lang.function.ThrowableRunnable;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Fair semaphore which waiting threads could be cancelled. Waiters are kept in explicit FIFO queue - so periodic cancellation checks
+ * do not move waiter to the end of the queue (as it happens with repeated {@link java.util.concurrent.Semaphore#tryAcquire} calls).
+ */
+public class CancellableSemaphore {
+
+  private final long myCheckInterval;
+  @Nonnull private final Object myLock = new Object();
+  @Nonnull private final Deque<Waiter> myWaiters = new ArrayDeque<>();
+  private int myAvailable;
+
+  /**
+   * @param checkInterval interval (in milliseconds) to check if waiting thread is cancelled
+   */
+  public CancellableSemaphore(int permits, long checkInterval) {
+    myAvailable = permits;
+    myCheckInterval = checkInterval;
+  }
+
+  /**
+   * Waits for permit. Waiting is stopped if {@code checkCanceled} throws - thread leaves the queue and exception is rethrown.
+   */
+  public <E extends Throwable> void acquire(@Nonnull ThrowableRunnable<E> checkCanceled) throws E, InterruptedException {
+    Waiter waiter;
+
+    synchronized (myLock) {
+      if (myAvailable > 0 && myWaiters.isEmpty()) {
+        myAvailable--;
+        return;
+      }
+      waiter = new Waiter();
+      myWaiters.addLast(waiter);
+    }
+
+    boolean success = false;
+    try {
+      while (!waitForPermit(waiter)) {
+        checkCanceled.run();
+      }
+      success = true;
+    }
+    finally {
+      if (!success) {
+        cancel(waiter);
+      }
+    }
+  }
+
+  public void release() {
+    synchronized (myLock) {
+      Waiter waiter = myWaiters.pollFirst();
+
+      if (waiter != null) {
+        waiter.myGranted = true;
+        myLock.notifyAll();
+      }
+      else {
+        myAvailable++;
+      }
+    }
+  }
+
+  public int getQueueLength() {
+    synchronized (myLock) {
+      return myWaiters.size();
+    }
+  }
+
+  private boolean waitForPermit(@Nonnull Waiter waiter) throws InterruptedException {
+    synchronized (myLock) {
+      if (!waiter.myGranted) {
+        myLock.wait(myCheckInterval);
+      }
+      return waiter.myGranted;
+    }
+  }
+
+  private void cancel(@Nonnull Waiter waiter) {
+    synchronized (myLock) {
+      if (!myWaiters.remove(waiter) && waiter.myGranted) {
+        // permit was granted concurrently with cancellation - pass it to next waiter
+        release();
+      }
+    }
+  }
+
+  private static class Waiter {
+    private boolean myGranted;
+  }
+}
@@ -0,0 +1,147 @@
+package org.jetbrains.idea.svn;
+
+import consulo.application.ApplicationManager;
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.ProgressManager;
+import consulo.component.ProcessCanceledException;
+import consulo.util.lang.function.ThrowableConsumer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes items on pooled threads (under given progress indicator) - at most {@code parallelism} items at a time. Items could also be
+ * added while other items are processed.
+ * <p>
+ * Items are submitted and awaited by the thread that called {@link #run()} - so cancellation is checked there, and {@link #run()} does not
+ * finish until all submitted items are processed. After the first failure no more items are submitted, and this failure is rethrown.
+ */
+public class ParallelTasks<T, E extends Exception> {
+
+  private static final long CHECK_INTERVAL = 100;
+
+  private final int myParallelism;
+  @Nullable private final ProgressIndicator myProgress;
+  @Nonnull private final ThrowableConsumer<T, E> myProcessor;
+  @Nonnull private final Deque<T> myPending = new ArrayDeque<>();
+  @Nonnull private final BlockingQueue<T> myCompleted = new LinkedBlockingQueue<>();
+  @Nullable private volatile Throwable myError;
+
+  public ParallelTasks(int parallelism, @Nullable ProgressIndicator progress, @Nonnull ThrowableConsumer<T, E> processor) {
+    myParallelism = Math.max(1, parallelism);
+    myProgress = progress;
+    myProcessor = processor;
+  }
+
+  @Nonnull
+  public ParallelTasks<T, E> add(@Nonnull T item) {
+    synchronized (myPending) {
+      myPending.add(item);
+    }
+    return this;
+  }
+
+  @Nonnull
+  public ParallelTasks<T, E> addAll(@Nonnull Iterable<? extends T> items) {
+    for (T item : items) {
+      add(item);
+    }
+    return this;
+  }
+
+  public void run() throws E {
+    Throwable error = null;
+    int running = 0;
+
+    while (true) {
+      if (error == null) {
+        error = checkCanceledOrFailed();
+      }
+      if (error == null) {
+        T item;
+        while (running < myParallelism && (item = poll()) != null) {
+          submit(item);
+          running++;
+        }
+      }
+      if (running == 0) {
+        break;
+      }
+
+      try {
+        if (myCompleted.poll(CHECK_INTERVAL, TimeUnit.MILLISECONDS) != null) {
+          running--;
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        error = error != null ? error : new ProcessCanceledException(e);
+      }
+    }
+
+    rethrow(error);
+  }
+
+  @Nullable
+  private Throwable checkCanceledOrFailed() {
+    if (myProgress != null && myProgress.isCanceled()) {
+      return new ProcessCanceledException();
+    }
+    return myError;
+  }
+
+  @Nullable
+  private T poll() {
+    synchronized (myPending) {
+      return myPending.pollFirst();
+    }
+  }
+
+  private void submit(@Nonnull T item) {
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      try {
+        ProgressManager.getInstance().executeProcessUnderProgress(() -> {
+          try {
+            myProcessor.consume(item);
+          }
+          catch (Exception e) {
+            throw new ProcessingException(e);
+          }
+        }, myProgress);
+      }
+      catch (Throwable e) {
+        if (myError == null) {
+          myError = e instanceof ProcessingException ? e.getCause() : e;
+        }
+      }
+      finally {
+        myCompleted.offer(item);
+      }
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private void rethrow(@Nullable Throwable error) throws E {
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException)error;
+    }
+    if (error instanceof Error) {
+      throw (Error)error;
+    }
+    if (error != null) {
+      // processor could throw only unchecked exceptions or exceptions of type E
+      throw (E)error;
+    }
+  }
+
+  private static class ProcessingException extends RuntimeException {
+    private ProcessingException(@Nonnull Exception cause) {
+      super(cause);
+    }
+  }
+}
@@ -24,9 +24,7 @@ import consulo.document.FileDocumentManager;
 import consulo.ide.impl.idea.openapi.vcs.changes.ChangeListManagerImpl;
 import consulo.logging.Logger;
 import consulo.proxy.EventDispatcher;
-import consulo.util.lang.Comparing;
 import consulo.util.lang.ObjectUtil;
-import consulo.util.lang.StringUtil;
 import consulo.versionControlSystem.FilePath;
 import consulo.versionControlSystem.VcsException;
 import consulo.versionControlSystem.action.VcsContextFactory;
@@ -49,7 +47,6 @@ import org.jetbrains.idea.svn.commandLine.SvnExceptionWrapper;
 import org.jetbrains.idea.svn.status.Status;
 import org.jetbrains.idea.svn.status.StatusType;
 import org.tmatesoft.svn.core.SVNException;
-import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.wc.ISVNStatusFileProvider;
 
 import javax.annotation.Nonnull;
@@ -99,6 +96,7 @@ public class SvnChangeProvider implements ChangeProvider {
       statusReceiver.addListener(nestedCopiesBuilder);
 
       final SvnRecursiveStatusWalker walker = new SvnRecursiveStatusWalker(myVcs, statusReceiver.getMulticaster(), progress);
+      walker.setParallelism(SvnRecursiveStatusWalker.CONFIGURED_PARALLELISM);
 
       for (FilePath path : zipper.getRecursiveDirs()) {
         walker.go(path, Depth.INFINITY);
@@ -215,36 +213,25 @@ public class SvnChangeProvider implements ChangeProvider {
     final String copyFromURL = ObjectUtil.assertNotNull(copiedFile.getCopyFromURL());
     final Set<SvnChangedFile> deletedToDelete = new HashSet<>();
 
-    for (SvnChangedFile deletedFile : context.getDeletedFiles()) {
-      final Status deletedStatus = deletedFile.getStatus();
-      if (deletedStatus.getURL() != null && Comparing.equal(copyFromURL, deletedStatus.getURL().toString())) {
-        final String clName = SvnUtil.getChangelistName(copiedFile.getStatus());
-        applyMovedChange(context, copiedFile.getFilePath(), dirtyScope, deletedToDelete, deletedFile, copiedStatus, clName);
-        for (SvnChangedFile deletedChild : context.getDeletedFiles()) {
-          final Status childStatus = deletedChild.getStatus();
-          final SVNURL childUrl = childStatus.getURL();
-          if (childUrl == null) {
-            continue;
-          }
-          final String childURL = childUrl.toDecodedString();
-          if (StringUtil.startsWithConcatenation(childURL, copyFromURL, "/")) {
-            String relativePath = childURL.substring(copyFromURL.length());
-            File newPath = new File(copiedFile.getFilePath().getIOFile(), relativePath);
-            FilePath newFilePath = myFactory.createFilePathOn(newPath);
-            if (!context.isDeleted(newFilePath)) {
-              applyMovedChange(context, newFilePath, dirtyScope, deletedToDelete, deletedChild, context.getTreeConflictStatus(newPath),
-                               clName);
-            }
-          }
+    final SvnChangedFile deletedFile = context.findDeletedFile(copyFromURL);
+    if (deletedFile != null) {
+      final String clName = SvnUtil.getChangelistName(copiedFile.getStatus());
+      applyMovedChange(context, copiedFile.getFilePath(), dirtyScope, deletedToDelete, deletedFile, copiedStatus, clName);
+      for (SvnChangedFile deletedChild : context.findDeletedChildren(copyFromURL)) {
+        final String childURL = deletedChild.getStatus().getURL().toDecodedString();
+        String relativePath = childURL.substring(copyFromURL.length());
+        File newPath = new File(copiedFile.getFilePath().getIOFile(), relativePath);
+        FilePath newFilePath = myFactory.createFilePathOn(newPath);
+        if (!context.isDeleted(newFilePath)) {
+          applyMovedChange(context, newFilePath, dirtyScope, deletedToDelete, deletedChild, context.getTreeConflictStatus(newPath),
+                           clName);
         }
-        foundRename = true;
-        break;
       }
+      foundRename = true;
     }
 
-    final List<SvnChangedFile> deletedFiles = context.getDeletedFiles();
     for (SvnChangedFile file : deletedToDelete) {
-      deletedFiles.remove(file);
+      context.removeDeletedFile(file);
     }
 
     // handle the case when the deleted file wasn't included in the dirty scope - try searching for the local copy
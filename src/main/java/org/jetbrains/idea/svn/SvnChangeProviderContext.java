@@ -20,7 +20,6 @@ import consulo.document.FileDocumentManager;
 import consulo.logging.Logger;
 import consulo.util.collection.ContainerUtil;
 import consulo.util.io.FileUtil;
-import consulo.util.lang.Comparing;
 import consulo.versionControlSystem.FilePath;
 import consulo.versionControlSystem.ProjectLevelVcsManager;
 import consulo.versionControlSystem.change.Change;
@@ -45,9 +44,7 @@ import org.tmatesoft.svn.core.wc.SVNRevision;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import static org.jetbrains.idea.svn.actions.ShowPropertiesDiffAction.getPropertyList;
 
@@ -59,7 +56,12 @@ class SvnChangeProviderContext implements StatusReceiver {
   @Nonnull
   private final List<SvnChangedFile> myCopiedFiles = ContainerUtil.newArrayList();
   @Nonnull
-  private final List<SvnChangedFile> myDeletedFiles = ContainerUtil.newArrayList();
+  private final Map<FilePath, SvnChangedFile> myDeletedFiles = new LinkedHashMap<>();
+  // deleted files by url (both encoded and decoded) - to find move sources and their children without iterating all deleted files
+  @Nonnull
+  private final Map<String, List<SvnChangedFile>> myDeletedByUrl = new HashMap<>();
+  @Nonnull
+  private final NavigableMap<String, List<SvnChangedFile>> myDeletedByDecodedUrl = new TreeMap<>();
   // for files moved in a subtree, which were the targets of merge (for instance).
   @Nonnull
   private final Map<String, Status> myTreeConflicted = new HashMap<>();
@@ -128,17 +130,73 @@ class SvnChangeProviderContext implements StatusReceiver {
   }
 
   @Nonnull
-  public List<SvnChangedFile> getDeletedFiles() {
-    return myDeletedFiles;
+  public Collection<SvnChangedFile> getDeletedFiles() {
+    return Collections.unmodifiableCollection(myDeletedFiles.values());
   }
 
   public boolean isDeleted(@Nonnull FilePath path) {
-    for (SvnChangedFile deletedFile : myDeletedFiles) {
-      if (Comparing.equal(path, deletedFile.getFilePath())) {
-        return true;
+    return myDeletedFiles.containsKey(path);
+  }
+
+  public void addDeletedFile(@Nonnull SvnChangedFile deletedFile) {
+    if (myDeletedFiles.putIfAbsent(deletedFile.getFilePath(), deletedFile) == null) {
+      SVNURL url = deletedFile.getStatus().getURL();
+
+      if (url != null) {
+        myDeletedByUrl.computeIfAbsent(url.toString(), key -> new ArrayList<>()).add(deletedFile);
+        myDeletedByDecodedUrl.computeIfAbsent(url.toDecodedString(), key -> new ArrayList<>()).add(deletedFile);
+      }
+    }
+  }
+
+  public void removeDeletedFile(@Nonnull SvnChangedFile deletedFile) {
+    if (myDeletedFiles.remove(deletedFile.getFilePath(), deletedFile)) {
+      SVNURL url = deletedFile.getStatus().getURL();
+
+      if (url != null) {
+        removeFromIndex(myDeletedByUrl, url.toString(), deletedFile);
+        removeFromIndex(myDeletedByDecodedUrl, url.toDecodedString(), deletedFile);
+      }
+    }
+  }
+
+  /**
+   * @return first (in status reporting order) deleted file with given url
+   */
+  @Nullable
+  public SvnChangedFile findDeletedFile(@Nonnull String url) {
+    return ContainerUtil.getFirstItem(myDeletedByUrl.get(url));
+  }
+
+  /**
+   * @return deleted files which decoded urls are under given decoded parent url
+   */
+  @Nonnull
+  public List<SvnChangedFile> findDeletedChildren(@Nonnull String parentDecodedUrl) {
+    // all urls starting with "parent/" are less than "parent0" as '0' directly follows '/'
+    Map<String, List<SvnChangedFile>> children =
+      myDeletedByDecodedUrl.subMap(parentDecodedUrl + "/", true, parentDecodedUrl + "0", false);
+
+    List<SvnChangedFile> result = new ArrayList<>();
+
+    for (List<SvnChangedFile> files : children.values()) {
+      result.addAll(files);
+    }
+
+    return result;
+  }
+
+  private static void removeFromIndex(@Nonnull Map<String, List<SvnChangedFile>> index,
+                                      @Nonnull String url,
+                                      @Nonnull SvnChangedFile deletedFile) {
+    List<SvnChangedFile> files = index.get(url);
+
+    if (files != null) {
+      files.remove(deletedFile);
+      if (files.isEmpty()) {
+        index.remove(url);
       }
     }
-    return false;
   }
 
   public void checkCanceled() {
@@ -198,7 +256,7 @@ class SvnChangeProviderContext implements StatusReceiver {
       addCopiedFile(filePath, status, status.getCopyFromURL());
     }
     else if (status.is(StatusType.STATUS_DELETED)) {
-      myDeletedFiles.add(new SvnChangedFile(filePath, status));
+      addDeletedFile(new SvnChangedFile(filePath, status));
     }
     else {
       String parentCopyFromURL = getParentCopyFromURL(filePath);
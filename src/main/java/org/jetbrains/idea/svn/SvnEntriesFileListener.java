@@ -32,10 +32,12 @@ public class SvnEntriesFileListener extends VirtualFileAdapter {
   private final Project myProject;
   private static final Logger LOG = Logger.getInstance(SvnEntriesFileListener.class);
   private VcsDirtyScopeManager myDirtyScopeManager;
+  private final WcDbChangesTracker myWcDbChangesTracker;
 
   public SvnEntriesFileListener(final Project project) {
     myProject = project;
     myDirtyScopeManager = VcsDirtyScopeManager.getInstance(myProject);
+    myWcDbChangesTracker = new WcDbChangesTracker(project);
   }
 
   public void fileCreated(@Nonnull VirtualFileEvent event) {
@@ -68,7 +70,7 @@ public class SvnEntriesFileListener extends VirtualFileAdapter {
       if (parentWcDb != null && SvnUtil.isAdminDirectory(parentWcDb)) {
         final VirtualFile parent = parentWcDb.getParent();
         if (parent != null) {
-          myDirtyScopeManager.dirDirtyRecursively(parent);
+          myWcDbChangesTracker.wcDbChanged(parent);
           refreshAnnotationsUnder(parent);
         }
       }
@@ -94,6 +96,7 @@ public class SvnEntriesFileListener extends VirtualFileAdapter {
     if (SvnUtil.SVN_ADMIN_DIR_NAME.equals(file.getName())) {
       if (event.getParent() != null) {
         VirtualFile parent = event.getParent();
+        myWcDbChangesTracker.workingCopyRemoved(parent);
         fireFileStatusesChanged(parent);
         refreshAnnotationsUnder(parent);
       }
@@ -46,6 +46,7 @@ import org.jetbrains.idea.svn.status.StatusType;
 import org.tmatesoft.svn.core.SVNCancelException;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.wc.ISVNStatusFileProvider;
 import org.tmatesoft.svn.core.wc.SVNRevision;
@@ -56,6 +57,11 @@ import java.util.LinkedList;
 public class SvnRecursiveStatusWalker {
   private static final Logger LOG = Logger.getInstance("#org.jetbrains.idea.svn.SvnRecursiveStatusWalker");
 
+  /**
+   * Number of queue items (working copies, nested copies, unversioned directories) that could be processed concurrently by change provider.
+   */
+  public static final int CONFIGURED_PARALLELISM = Math.max(1, Integer.getInteger("svn.status.parallelism", 1));
+
   @Nonnull
   private final SvnVcs myVcs;
   @Nonnull
@@ -66,58 +72,98 @@ public class SvnRecursiveStatusWalker {
   private final ChangeListManager myChangeListManager;
   @Nullable private final ProgressIndicator myProgress;
   @Nonnull
-  private final StatusReceiver myReceiver;
+  private final StatusReceiver myOriginalReceiver;
   @Nonnull
-  private final LinkedList<MyItem> myQueue;
+  private StatusReceiver myReceiver;
   @Nonnull
-  private final MyHandler myHandler;
+  private final LinkedList<MyItem> myQueue;
   @Nullable private ISVNStatusFileProvider myFileProvider;
+  private int myParallelism = 1;
+  // items are processed on pooled threads - at most myParallelism items at a time
+  @Nullable private ParallelTasks<MyItem, SvnBindException> myParallelWalk;
 
   public SvnRecursiveStatusWalker(@Nonnull SvnVcs vcs, @Nonnull StatusReceiver receiver, @Nullable ProgressIndicator progress) {
     myVcs = vcs;
     myProject = vcs.getProject();
     myVcsManager = ProjectLevelVcsManager.getInstance(myProject);
     myChangeListManager = ChangeListManager.getInstance(myProject);
+    myOriginalReceiver = receiver;
     myReceiver = receiver;
     myProgress = progress;
     myQueue = new LinkedList<>();
-    myHandler = new MyHandler();
   }
 
   public void setFileProvider(@Nullable ISVNStatusFileProvider fileProvider) {
     myFileProvider = fileProvider;
   }
 
+  /**
+   * Sets number of queue items that could be processed concurrently. Queue items are independent - each of them is processed with its own
+   * status request, so receiver callbacks for single item are still performed sequentially. Receiver is not called concurrently.
+   */
+  public void setParallelism(int parallelism) {
+    myParallelism = Math.max(1, parallelism);
+    myReceiver = myParallelism > 1 ? new SynchronizedStatusReceiver(myOriginalReceiver) : myOriginalReceiver;
+  }
+
   public void go(@Nonnull FilePath rootPath, @Nonnull Depth depth) throws SvnBindException {
-    myQueue.add(createItem(rootPath, depth, false));
+    MyItem rootItem = createItem(rootPath, depth, false);
+
+    if (myParallelism > 1) {
+      myParallelWalk = new ParallelTasks<>(myParallelism, myProgress, this::processItem);
+      try {
+        myParallelWalk.add(rootItem).run();
+      }
+      finally {
+        myParallelWalk = null;
+      }
+      return;
+    }
+
+    myQueue.add(rootItem);
 
     while (!myQueue.isEmpty()) {
       checkCanceled();
 
-      MyItem item = myQueue.removeFirst();
-      try {
-        if (item.getPath().isDirectory()) {
-          processDirectory(item);
-        }
-        else {
-          processFile(item);
-        }
+      processItem(myQueue.removeFirst());
+    }
+  }
+
+  private void addItem(@Nonnull MyItem item) {
+    ParallelTasks<MyItem, SvnBindException> parallelWalk = myParallelWalk;
+
+    if (parallelWalk != null) {
+      parallelWalk.add(item);
+    }
+    else {
+      myQueue.add(item);
+    }
+  }
+
+  private void processItem(@Nonnull MyItem item) throws SvnBindException {
+    try {
+      if (item.getPath().isDirectory()) {
+        processDirectory(item);
       }
-      catch (SvnBindException e) {
-        handleStatusException(item, e);
+      else {
+        processFile(item);
       }
     }
+    catch (SvnBindException e) {
+      handleStatusException(item, e);
+    }
   }
 
   private void processDirectory(@Nonnull MyItem item) throws SvnBindException {
     File ioFile = item.getPath().getIOFile();
+    MyHandler handler = new MyHandler();
 
-    myHandler.setCurrentItem(item);
-    item.getClient().doStatus(ioFile, SVNRevision.WORKING, item.getDepth(), false, false, true, true, myHandler, null);
+    handler.setCurrentItem(item);
+    item.getClient().doStatus(ioFile, SVNRevision.WORKING, item.getDepth(), false, false, true, true, handler, null);
 
     // check if current item was already processed - not to request its status once again
-    if (!myHandler.myMetCurrentItem) {
-      myHandler.checkIfCopyRootWasReported(myHandler.getCurrentItemStatus());
+    if (!handler.myMetCurrentItem) {
+      handler.checkIfCopyRootWasReported(handler.getCurrentItemStatus());
     }
   }
 
@@ -215,6 +261,7 @@ public class SvnRecursiveStatusWalker {
     final Processor<File> processor;
     final Processor<File> directoryFilter;
     final Ref<File> lastIgnored = new Ref<>();
+    final Ref<File> lastAdded = new Ref<>();
     final Processor<File> checkDirProcessor = new Processor<File>() {
       @Override
       public boolean process(File file) {
@@ -225,7 +272,8 @@ public class SvnRecursiveStatusWalker {
           myReceiver.processIgnored(vf);
         }
         else if (file.isDirectory() && new File(file, SVNFileUtil.getAdminDirectoryName()).exists()) {
-          myQueue.add(createItem(path, newDepth, true));
+          lastAdded.set(file);
+          addItem(createItem(path, newDepth, true));
         }
         else if (vf != null) {
           myReceiver.processUnversioned(vf);
@@ -254,7 +302,7 @@ public class SvnRecursiveStatusWalker {
       directoryFilter = new Processor<File>() {
         @Override
         public boolean process(File file) {
-          return ! Comparing.equal(lastIgnored, file) && (myQueue.isEmpty() || ! FileUtil.filesEqual(myQueue.getLast().getPath().getIOFile(), file));
+          return ! Comparing.equal(lastIgnored, file) && (lastAdded.isNull() || ! FileUtil.filesEqual(lastAdded.get(), file));
         }
       };
       processor = checkDirProcessor;
@@ -351,7 +399,7 @@ public class SvnRecursiveStatusWalker {
       if (vFile != null && status.is(StatusType.STATUS_UNVERSIONED)) {
         if (vFile.isDirectory()) {
           if (!FileUtil.filesEqual(myCurrentItem.getPath().getIOFile(), ioFile)) {
-            myQueue.add(createItem(VcsUtil.getFilePath(vFile), Depth.INFINITY, true));
+            addItem(createItem(VcsUtil.getFilePath(vFile), Depth.INFINITY, true));
           }
         }
         else {
@@ -363,4 +411,42 @@ public class SvnRecursiveStatusWalker {
       }
     }
   }
+
+  private static class SynchronizedStatusReceiver implements StatusReceiver {
+    @Nonnull private final StatusReceiver myDelegate;
+
+    private SynchronizedStatusReceiver(@Nonnull StatusReceiver delegate) {
+      myDelegate = delegate;
+    }
+
+    @Override
+    public synchronized void process(FilePath path, Status status) throws SVNException {
+      myDelegate.process(path, status);
+    }
+
+    @Override
+    public synchronized void processIgnored(VirtualFile vFile) {
+      myDelegate.processIgnored(vFile);
+    }
+
+    @Override
+    public synchronized void processUnversioned(VirtualFile vFile) {
+      myDelegate.processUnversioned(vFile);
+    }
+
+    @Override
+    public synchronized void processCopyRoot(VirtualFile file, SVNURL url, WorkingCopyFormat format, SVNURL rootURL) {
+      myDelegate.processCopyRoot(file, url, format, rootURL);
+    }
+
+    @Override
+    public synchronized void bewareRoot(VirtualFile vf, SVNURL url) {
+      myDelegate.bewareRoot(vf, url);
+    }
+
+    @Override
+    public synchronized void finish() {
+      myDelegate.finish();
+    }
+  }
 }
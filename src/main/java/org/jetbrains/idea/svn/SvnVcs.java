@@ -35,9 +35,11 @@ import consulo.logging.Logger;
 import consulo.project.Project;
 import consulo.project.startup.StartupManager;
 import consulo.util.collection.ContainerUtil;
+import consulo.util.lang.Comparing;
 import consulo.util.lang.Pair;
 import consulo.util.lang.ThreeState;
 import consulo.util.lang.Trinity;
+import consulo.util.lang.Version;
 import consulo.versionControlSystem.*;
 import consulo.versionControlSystem.annotate.AnnotationProvider;
 import consulo.versionControlSystem.change.*;
@@ -60,22 +62,28 @@ import jakarta.inject.Inject;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.idea.svn.actions.CleanupWorker;
 import org.jetbrains.idea.svn.actions.SvnMergeProvider;
+import org.jetbrains.idea.svn.annotate.AnnotationPersistentCache;
+import org.jetbrains.idea.svn.annotate.AnnotationPrefetcher;
 import org.jetbrains.idea.svn.annotate.SvnAnnotationProvider;
 import org.jetbrains.idea.svn.api.*;
 import org.jetbrains.idea.svn.auth.SvnAuthenticationNotifier;
 import org.jetbrains.idea.svn.branchConfig.SvnLoadedBranchesStorage;
 import org.jetbrains.idea.svn.checkin.SvnCheckinEnvironment;
 import org.jetbrains.idea.svn.checkout.SvnCheckoutProvider;
+import org.jetbrains.idea.svn.commandLine.LocalCommandPool;
 import org.jetbrains.idea.svn.commandLine.SvnBindException;
 import org.jetbrains.idea.svn.commandLine.SvnExecutableChecker;
 import org.jetbrains.idea.svn.dialogs.WCInfo;
 import org.jetbrains.idea.svn.history.LoadedRevisionsCache;
+import org.jetbrains.idea.svn.history.RevisionLogIndex;
 import org.jetbrains.idea.svn.history.SvnChangeList;
 import org.jetbrains.idea.svn.history.SvnCommittedChangesProvider;
 import org.jetbrains.idea.svn.history.SvnHistoryProvider;
+import org.jetbrains.idea.svn.info.BaseInfoCache;
 import org.jetbrains.idea.svn.info.Info;
 import org.jetbrains.idea.svn.info.InfoConsumer;
 import org.jetbrains.idea.svn.integrate.SvnBranchPointsCalculator;
+import org.jetbrains.idea.svn.mergeinfo.MergeInfoPersistentCache;
 import org.jetbrains.idea.svn.properties.PropertyClient;
 import org.jetbrains.idea.svn.properties.PropertyValue;
 import org.jetbrains.idea.svn.rollback.SvnRollbackEnvironment;
@@ -123,7 +131,7 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
   private RollbackEnvironment myRollbackEnvironment;
   private UpdateEnvironment mySvnUpdateEnvironment;
   private UpdateEnvironment mySvnIntegrateEnvironment;
-  private AnnotationProvider myAnnotationProvider;
+  private SvnAnnotationProvider myAnnotationProvider;
   private DiffProvider mySvnDiffProvider;
   private final VcsShowConfirmationOption myAddConfirmation;
   private final VcsShowConfirmationOption myDeleteConfirmation;
@@ -146,6 +154,9 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
   private VcsListener myVcsListener;
 
   private SvnBranchPointsCalculator mySvnBranchPointsCalculator;
+  private MergeInfoPersistentCache myMergeInfoPersistentCache;
+  private AnnotationPersistentCache myAnnotationPersistentCache;
+  private AnnotationPrefetcher myAnnotationPrefetcher;
 
   private final RootsToWorkingCopies myRootsToWorkingCopies;
   private final SvnAuthenticationNotifier myAuthNotifier;
@@ -159,6 +170,13 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
   private final ClientFactory svnKitClientFactory;
   @Nonnull
   private final SvnKitManager svnKitManager;
+  @Nonnull
+  private final LocalCommandPool myLocalCommandPool;
+  // path to svn executable and its version
+  @Nullable
+  private volatile Pair<String, Version> myCommandLineVersion;
+  @Nonnull
+  private final BaseInfoCache myBaseInfoCache;
 
   private final boolean myLogExceptions;
 
@@ -174,6 +192,8 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
     cmdClientFactory = new CmdClientFactory(this);
     svnKitClientFactory = new SvnKitClientFactory(this);
     svnKitManager = new SvnKitManager(this);
+    myLocalCommandPool = new LocalCommandPool(this);
+    myBaseInfoCache = new BaseInfoCache(this);
 
     final ProjectLevelVcsManager vcsManager =
       ProjectLevelVcsManager.getInstance(project);
@@ -369,6 +389,11 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
 
     myAuthNotifier.init();
     mySvnBranchPointsCalculator = new SvnBranchPointsCalculator(this);
+    myMergeInfoPersistentCache = new MergeInfoPersistentCache(this);
+    myAnnotationPersistentCache = new AnnotationPersistentCache(this);
+    if (!myProject.isDefault()) {
+      myAnnotationPrefetcher = new AnnotationPrefetcher(this);
+    }
 
     svnKitManager.activate();
 
@@ -433,7 +458,18 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
 
     mySvnBranchPointsCalculator.deactivate();
     mySvnBranchPointsCalculator = null;
+    myMergeInfoPersistentCache.dispose();
+    myMergeInfoPersistentCache = null;
+    if (myAnnotationPrefetcher != null) {
+      myAnnotationPrefetcher.dispose();
+      myAnnotationPrefetcher = null;
+    }
+    myAnnotationPersistentCache.dispose();
+    myAnnotationPersistentCache = null;
     myLoadedBranchesStorage.deactivate();
+    myLocalCommandPool.dispose();
+    RevisionLogIndex.release(myProject);
+    myBaseInfoCache.clear();
   }
 
   public VcsShowConfirmationOption getAddConfirmation() {
@@ -531,10 +567,15 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
 
   @Override
   public AnnotationProvider getAnnotationProvider() {
+    return new VcsAnnotationCachedProxy(this, getSvnAnnotationProvider());
+  }
+
+  @Nonnull
+  public SvnAnnotationProvider getSvnAnnotationProvider() {
     if (myAnnotationProvider == null) {
       myAnnotationProvider = new SvnAnnotationProvider(this);
     }
-    return new VcsAnnotationCachedProxy(this, myAnnotationProvider);
+    return myAnnotationProvider;
   }
 
   @Override
@@ -919,6 +960,21 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
     return mySvnBranchPointsCalculator;
   }
 
+  @Nullable
+  public MergeInfoPersistentCache getMergeInfoPersistentCache() {
+    return myMergeInfoPersistentCache;
+  }
+
+  @Nullable
+  public AnnotationPersistentCache getAnnotationPersistentCache() {
+    return myAnnotationPersistentCache;
+  }
+
+  @Nullable
+  public AnnotationPrefetcher getAnnotationPrefetcher() {
+    return myAnnotationPrefetcher;
+  }
+
   @Override
   public boolean areDirectoriesVersionedItems() {
     return true;
@@ -929,6 +985,16 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
     return svnKitManager;
   }
 
+  @Nonnull
+  public LocalCommandPool getLocalCommandPool() {
+    return myLocalCommandPool;
+  }
+
+  @Nonnull
+  public BaseInfoCache getBaseInfoCache() {
+    return myBaseInfoCache;
+  }
+
   @Nonnull
   private WorkingCopyFormat getProjectRootFormat() {
     return !getProject().isDefault() ? getWorkingCopyFormat(new File(getProject().getBaseDir().getPath())) : WorkingCopyFormat.UNKNOWN;
@@ -999,6 +1065,23 @@ public class SvnVcs extends AbstractVcs<CommittedChangeList> {
     return cmdClientFactory;
   }
 
+  /**
+   * @return version of command line client - it is requested once for each path to svn executable
+   */
+  @Nonnull
+  public Version getCommandLineVersion() throws SvnBindException {
+    String path = SvnApplicationSettings.getInstance().getCommandLinePath();
+    Pair<String, Version> cached = myCommandLineVersion;
+
+    if (cached != null && Comparing.equal(cached.first, path)) {
+      return cached.second;
+    }
+
+    Version result = cmdClientFactory.createVersionClient().getVersion();
+    myCommandLineVersion = Pair.create(path, result);
+    return result;
+  }
+
   @Nonnull
   public ClientFactory getSvnKitFactory() {
     return svnKitClientFactory;
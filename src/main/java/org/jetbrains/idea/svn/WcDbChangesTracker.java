@@ -0,0 +1,319 @@
+package org.jetbrains.idea.svn;
+
+import consulo.application.ApplicationManager;
+import consulo.logging.Logger;
+import consulo.project.Project;
+import consulo.util.collection.ContainerUtil;
+import consulo.versionControlSystem.FilePath;
+import consulo.versionControlSystem.change.VcsDirtyScopeManager;
+import consulo.versionControlSystem.util.VcsUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import org.tmatesoft.sqljet.core.SqlJetException;
+import org.tmatesoft.sqljet.core.SqlJetValueType;
+import org.tmatesoft.sqljet.core.table.ISqlJetCursor;
+import org.tmatesoft.sqljet.core.table.SqlJetDb;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.nio.channels.NonWritableChannelException;
+import java.util.*;
+
+/**
+ * Detects which working copy paths were affected by "wc.db" change - so only these paths are marked dirty instead of whole working copy.
+ * <p>
+ * Rows of "NODES", "ACTUAL_NODE" and "LOCK" tables are read after each change and compared with rows read after previous change (only
+ * row hashes are kept between changes). Lock rows are mapped to working copy paths by their repository path. Paths with added, removed or
+ * changed rows are marked dirty. Operations that do not change working copy state (for instance, "svn propget" or "svn info") do not
+ * cause any status refresh at all. Initial snapshots are taken when working copies are (re)loaded - so the first change is also tracked.
+ * <p>
+ * Whole working copy is still marked dirty recursively if there is no previous snapshot, if database could not be read, if working copy
+ * is too large ({@link #MAX_NODES}) or if too many paths were changed ({@link #MAX_DIRTY_PATHS}).
+ */
+public class WcDbChangesTracker {
+
+  private static final Logger LOG = Logger.getInstance(WcDbChangesTracker.class);
+
+  public static final boolean ENABLED = !Boolean.getBoolean("svn.do.not.track.wc.db.changes");
+  public static final int MAX_NODES = Integer.getInteger("svn.wc.db.tracker.max.nodes", 200000);
+  public static final int MAX_DIRTY_PATHS = 1000;
+
+  @Nonnull private static final String NODES_TABLE = "NODES";
+  @Nonnull private static final String ACTUAL_NODE_TABLE = "ACTUAL_NODE";
+  @Nonnull private static final String LOCK_TABLE = "LOCK";
+  @Nonnull private static final String LOCAL_RELPATH = "local_relpath";
+  @Nonnull private static final String REPOS_ID = "repos_id";
+  @Nonnull private static final String REPOS_RELPATH = "repos_relpath";
+  @Nonnull private static final String KIND = "kind";
+  @Nonnull private static final String DIRECTORY_KIND = "dir";
+
+  @Nonnull private final Project myProject;
+  @Nonnull private final VcsDirtyScopeManager myDirtyScopeManager;
+  @Nonnull private final Object myLock = new Object();
+  // key - working copy root path
+  @Nonnull private final Map<String, Snapshot> mySnapshots = ContainerUtil.newConcurrentMap();
+  // working copies which "wc.db" should be read (once again) by currently running refresh
+  @Nonnull private final Set<String> myPending = ContainerUtil.newConcurrentSet();
+
+  public WcDbChangesTracker(@Nonnull Project project) {
+    myProject = project;
+    myDirtyScopeManager = VcsDirtyScopeManager.getInstance(project);
+    if (ENABLED) {
+      project.getMessageBus().connect(project).subscribe(SvnVcs.ROOTS_RELOADED, mappingChanged ->
+        ApplicationManager.getApplication().executeOnPooledThread(this::takeInitialSnapshots));
+    }
+  }
+
+  /**
+   * Reads "wc.db" of working copies that do not have snapshot yet - so their first change does not cause refresh of whole working copy.
+   */
+  private void takeInitialSnapshots() {
+    for (RootUrlInfo info : SvnVcs.getInstance(myProject).getSvnFileUrlMapping().getAllWcInfos()) {
+      String path = info.getIoFile().getPath();
+
+      if (!mySnapshots.containsKey(path) && SvnUtil.getWcDb(info.getIoFile()).isFile()) {
+        synchronized (myLock) {
+          if (myProject.isDisposed()) return;
+
+          if (!mySnapshots.containsKey(path)) {
+            Snapshot snapshot = readSnapshot(info.getIoFile());
+            if (snapshot != null) {
+              mySnapshots.put(path, snapshot);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads changed "wc.db" of given working copy on pooled thread and marks affected paths dirty. Several changes of the same database
+   * made while it is being read are processed with single additional read.
+   */
+  public void wcDbChanged(@Nonnull VirtualFile root) {
+    if (!ENABLED) {
+      myDirtyScopeManager.dirDirtyRecursively(root);
+      return;
+    }
+
+    String path = root.getPath();
+    if (myPending.add(path)) {
+      ApplicationManager.getApplication().executeOnPooledThread(() -> refresh(root, path));
+    }
+  }
+
+  public void workingCopyRemoved(@Nonnull VirtualFile root) {
+    mySnapshots.remove(root.getPath());
+  }
+
+  private void refresh(@Nonnull VirtualFile root, @Nonnull String path) {
+    myPending.remove(path);
+
+    List<FilePath> dirtyPaths;
+    // refreshes are serialized - so snapshot of later change could not be replaced with snapshot of earlier change
+    synchronized (myLock) {
+      if (myProject.isDisposed()) return;
+
+      Snapshot snapshot = readSnapshot(new File(path));
+      Snapshot previous = snapshot != null ? mySnapshots.put(path, snapshot) : mySnapshots.remove(path);
+      dirtyPaths = previous != null && snapshot != null ? getDirtyPaths(new File(path), previous, snapshot) : null;
+    }
+
+    if (dirtyPaths == null) {
+      myDirtyScopeManager.dirDirtyRecursively(root);
+    }
+    else if (!dirtyPaths.isEmpty()) {
+      myDirtyScopeManager.filePathsDirty(dirtyPaths, null);
+    }
+  }
+
+  /**
+   * @return null if too many paths were changed and whole working copy should be refreshed
+   */
+  @Nullable
+  static List<FilePath> getDirtyPaths(@Nonnull File root, @Nonnull Snapshot previous, @Nonnull Snapshot snapshot) {
+    List<FilePath> result = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+
+    while (i < previous.myPaths.length || j < snapshot.myPaths.length) {
+      int compare = i == previous.myPaths.length
+                    ? 1
+                    : j == snapshot.myPaths.length ? -1 : previous.myPaths[i].compareTo(snapshot.myPaths[j]);
+
+      if (compare < 0) {
+        result.add(createFilePath(root, previous.myPaths[i], previous.myDirectories.get(i)));
+        i++;
+      }
+      else if (compare > 0) {
+        result.add(createFilePath(root, snapshot.myPaths[j], snapshot.myDirectories.get(j)));
+        j++;
+      }
+      else {
+        if (previous.myHashes[i] != snapshot.myHashes[j]) {
+          result.add(createFilePath(root, snapshot.myPaths[j], snapshot.myDirectories.get(j)));
+        }
+        i++;
+        j++;
+      }
+
+      if (result.size() > MAX_DIRTY_PATHS) {
+        return null;
+      }
+    }
+
+    return result;
+  }
+
+  @Nonnull
+  private static FilePath createFilePath(@Nonnull File root, @Nonnull String relativePath, boolean isDirectory) {
+    return VcsUtil.getFilePath(relativePath.isEmpty() ? root : new File(root, relativePath), isDirectory);
+  }
+
+  @Nullable
+  static Snapshot readSnapshot(@Nonnull File root) {
+    Map<String, Row> rows = new HashMap<>();
+    SqlJetDb db = null;
+
+    try {
+      db = SqlJetDb.open(SvnUtil.getWcDb(root), false);
+      db.runReadTransaction(database -> {
+        Map<String, String> localPaths = new HashMap<>();
+
+        readTable(database, NODES_TABLE, rows, localPaths);
+        readTable(database, ACTUAL_NODE_TABLE, rows, localPaths);
+        readLocks(database, rows, localPaths);
+        return null;
+      });
+    }
+    catch (SqlJetException | NonWritableChannelException | TooManyNodesException e) {
+      LOG.debug("Could not read working copy database " + root, e);
+      return null;
+    }
+    finally {
+      if (db != null) {
+        try {
+          db.close();
+        }
+        catch (SqlJetException e) {
+          LOG.info(e);
+        }
+      }
+    }
+
+    return new Snapshot(rows);
+  }
+
+  /**
+   * @param localPaths key - repository id and path, value - working copy relative path; filled when "NODES" table is read
+   */
+  private static void readTable(@Nonnull SqlJetDb db,
+                                @Nonnull String tableName,
+                                @Nonnull Map<String, Row> rows,
+                                @Nonnull Map<String, String> localPaths) throws SqlJetException {
+    ISqlJetCursor cursor = db.getTable(tableName).open();
+
+    try {
+      for (; !cursor.eof(); cursor.next()) {
+        String path = cursor.getString(LOCAL_RELPATH);
+
+        if (path != null) {
+          Row row = rows.computeIfAbsent(path, key -> new Row());
+          // several rows (with different "op_depth" in "NODES") could correspond to the same path
+          row.myHash = 31 * row.myHash + hashRow(cursor);
+          if (NODES_TABLE.equals(tableName)) {
+            if (DIRECTORY_KIND.equals(cursor.getString(KIND))) {
+              row.myDirectory = true;
+            }
+            String reposPath = cursor.getString(REPOS_RELPATH);
+            if (reposPath != null) {
+              localPaths.put(getReposKey(cursor.getValue(REPOS_ID), reposPath), path);
+            }
+          }
+          if (rows.size() > MAX_NODES) {
+            throw new TooManyNodesException();
+          }
+        }
+      }
+    }
+    finally {
+      cursor.close();
+    }
+  }
+
+  /**
+   * Lock rows are identified by repository path - they are added to rows of corresponding working copy paths. Locks of paths that are not
+   * in working copy do not affect working copy state and are skipped.
+   */
+  private static void readLocks(@Nonnull SqlJetDb db, @Nonnull Map<String, Row> rows, @Nonnull Map<String, String> localPaths)
+    throws SqlJetException {
+    ISqlJetCursor cursor = db.getTable(LOCK_TABLE).open();
+
+    try {
+      for (; !cursor.eof(); cursor.next()) {
+        String reposPath = cursor.getString(REPOS_RELPATH);
+        String path = reposPath != null ? localPaths.get(getReposKey(cursor.getValue(REPOS_ID), reposPath)) : null;
+        Row row = path != null ? rows.get(path) : null;
+
+        if (row != null) {
+          row.myHash = 31 * row.myHash + hashRow(cursor);
+        }
+      }
+    }
+    finally {
+      cursor.close();
+    }
+  }
+
+  /**
+   * Values of blob columns ("properties", "conflict_data", etc.) are hashed by their contents - blob objects returned by cursor are
+   * different for each read.
+   */
+  private static long hashRow(@Nonnull ISqlJetCursor cursor) throws SqlJetException {
+    long result = 0;
+
+    for (int i = 0; i < cursor.getFieldsCount(); i++) {
+      int hash = SqlJetValueType.BLOB.equals(cursor.getFieldType(i))
+                 ? Arrays.hashCode(cursor.getBlobAsArray(i))
+                 : Objects.hashCode(cursor.getValue(i));
+      result = 31 * result + hash;
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static String getReposKey(@Nullable Object reposId, @Nonnull String reposPath) {
+    return reposId + ":" + reposPath;
+  }
+
+  private static class Row {
+    private long myHash;
+    private boolean myDirectory;
+  }
+
+  /**
+   * Row hashes of working copy paths - sorted by path, so snapshots could be compared with single pass.
+   */
+  static class Snapshot {
+    @Nonnull private final String[] myPaths;
+    @Nonnull private final long[] myHashes;
+    @Nonnull private final BitSet myDirectories;
+
+    private Snapshot(@Nonnull Map<String, Row> rows) {
+      myPaths = rows.keySet().toArray(new String[0]);
+      Arrays.sort(myPaths);
+      myHashes = new long[myPaths.length];
+      myDirectories = new BitSet(myPaths.length);
+
+      for (int i = 0; i < myPaths.length; i++) {
+        Row row = rows.get(myPaths[i]);
+
+        myHashes[i] = row.myHash;
+        myDirectories.set(i, row.myDirectory);
+      }
+    }
+  }
+
+  private static class TooManyNodesException extends RuntimeException {
+  }
+}
@@ -0,0 +1,34 @@
+package org.jetbrains.idea.svn.actions;
+
+import consulo.application.dumb.DumbAware;
+import consulo.language.editor.CommonDataKeys;
+import consulo.logging.Logger;
+import consulo.project.Project;
+import consulo.ui.ex.action.AnAction;
+import consulo.ui.ex.action.AnActionEvent;
+import consulo.ui.ex.awt.Messages;
+import consulo.versionControlSystem.ProjectLevelVcsManager;
+import org.jetbrains.idea.svn.SvnBundle;
+import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.svnkit.lowLevel.SvnIdeaRepositoryPoolManager;
+
+/**
+ * Shows usage statistics of SVNKit repository connections (per host, since application start) and writes them to the log.
+ */
+public class ShowConnectionStatisticsAction extends AnAction implements DumbAware {
+  private static final Logger LOG = Logger.getInstance(ShowConnectionStatisticsAction.class);
+
+  @Override
+  public void actionPerformed(final AnActionEvent e) {
+    final String statistics = SvnIdeaRepositoryPoolManager.getStatistics();
+
+    LOG.info(statistics);
+    Messages.showInfoMessage(e.getData(CommonDataKeys.PROJECT), statistics, SvnBundle.message("dialog.title.connection.statistics"));
+  }
+
+  @Override
+  public void update(final AnActionEvent e) {
+    final Project project = e.getData(CommonDataKeys.PROJECT);
+    e.getPresentation().setVisible(project != null && ProjectLevelVcsManager.getInstance(project).checkVcsIsActive(SvnVcs.VCS_NAME));
+  }
+}
@@ -0,0 +1,513 @@
+package org.jetbrains.idea.svn.annotate;
+
+import consulo.container.boot.ContainerPathManager;
+import consulo.index.io.data.DataOutputStream;
+import consulo.logging.Logger;
+import consulo.util.collection.ArrayUtil;
+import consulo.util.io.BufferExposingByteArrayOutputStream;
+import consulo.util.io.FileUtil;
+import consulo.util.io.UnsyncByteArrayInputStream;
+import consulo.util.lang.StringUtil;
+import consulo.versionControlSystem.history.VcsFileRevision;
+import org.jetbrains.idea.svn.SvnRevisionNumber;
+import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.checkin.CommitInfo;
+import org.jetbrains.idea.svn.history.SvnFileRevision;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk-backed cache of calculated file annotations - annotation of file url at fixed revision never changes, so it could be reused
+ * between IDE sessions instead of running "svn blame" again.
+ * <p>
+ * Annotations are appended to storage file as soon as they are calculated - only index (key, position in file and number of lines) is
+ * kept in memory. Index is restored on load by scanning the file, records partially written before crash are truncated. Evicted
+ * records are left in file until it is compacted on dispose or load.
+ * <p>
+ * Keys are built with {@link #getKey(String, long, boolean, boolean)}. Cache size is limited by total number of annotated lines (see
+ * {@link #MAX_LINES}) - least recently used annotations are evicted first. Hit rate is reported with {@link #getStatistics()}.
+ */
+public class AnnotationPersistentCache {
+
+  private static final Logger LOG = Logger.getInstance(AnnotationPersistentCache.class);
+
+  private static final int VERSION = 2;
+  private static final int NO_COMMIT = -1;
+  // file is compacted if it is more than this number of times larger than live records
+  private static final int COMPACT_RATIO = 2;
+  public static final int MAX_LINES = Integer.getInteger("svn.annotate.cache.max.lines", 2000000);
+
+  @Nonnull private final File myFile;
+  @Nonnull private final Object myLock = new Object();
+  // access ordered - so least recently used entries are evicted first
+  @Nonnull private final LinkedHashMap<String, Record> myEntries = new LinkedHashMap<>(16, 0.75f, true);
+  private long myLinesCount;
+  private long myLiveBytes;
+  // null if storage could not be opened - cache is not used in this case
+  @Nullable private RandomAccessFile myStorage;
+
+  @Nonnull private final AtomicLong myHits = new AtomicLong();
+  @Nonnull private final AtomicLong myMisses = new AtomicLong();
+
+  public AnnotationPersistentCache(@Nonnull SvnVcs vcs) {
+    File directory = new File(new File(ContainerPathManager.get().getSystemPath(), "vcs"), "svn_annotations");
+    directory.mkdirs();
+    myFile = new File(directory, vcs.getProject().getLocationHash());
+    synchronized (myLock) {
+      load();
+      compactIfNeeded();
+    }
+  }
+
+  /**
+   * @param withMergeSources if merge sources were calculated for annotation
+   * @param ignoreSpaces     if whitespace changes were ignored when calculating annotation
+   */
+  @Nonnull
+  public static String getKey(@Nonnull String url, long revision, boolean withMergeSources, boolean ignoreSpaces) {
+    return url + "@" + revision + (withMergeSources ? ":m" : "") + (ignoreSpaces ? ":w" : "");
+  }
+
+  public boolean contains(@Nonnull String key) {
+    synchronized (myLock) {
+      return myEntries.containsKey(key);
+    }
+  }
+
+  /**
+   * Restores cached annotation to given empty annotation object. Each call is counted as cache hit or miss.
+   *
+   * @return false if there is no cached value
+   */
+  public boolean restore(@Nonnull String key, @Nonnull String url, @Nonnull SvnVcs vcs, @Nonnull BaseSvnFileAnnotation annotation) {
+    CachedAnnotation cached = null;
+
+    synchronized (myLock) {
+      Record record = myEntries.get(key);
+
+      if (record != null) {
+        try {
+          cached = CachedAnnotation.read(new DataInputStream(new UnsyncByteArrayInputStream(readRecord(record))));
+        }
+        catch (IOException | RuntimeException e) {
+          LOG.info("Could not read cached annotation " + key, e);
+          remove(key);
+        }
+      }
+    }
+
+    (cached != null ? myHits : myMisses).incrementAndGet();
+    if (cached != null) {
+      cached.restore(url, vcs, annotation);
+    }
+
+    return cached != null;
+  }
+
+  public void put(@Nonnull String key, @Nonnull BaseSvnFileAnnotation annotation) {
+    CachedAnnotation value = CachedAnnotation.create(annotation);
+
+    try {
+      BufferExposingByteArrayOutputStream bos = new BufferExposingByteArrayOutputStream();
+      value.save(new DataOutputStream(bos));
+
+      synchronized (myLock) {
+        if (myStorage != null) {
+          add(key, append(key, value.getLinesCount(), bos.getInternalBuffer(), bos.size()));
+        }
+      }
+    }
+    catch (IOException e) {
+      LOG.info(e);
+    }
+  }
+
+  private void add(@Nonnull String key, @Nonnull Record record) {
+    remove(key);
+    myEntries.put(key, record);
+    myLinesCount += record.myLinesCount;
+    myLiveBytes += record.myLength;
+
+    Iterator<Record> iterator = myEntries.values().iterator();
+    // just added entry is always kept
+    while (myLinesCount > MAX_LINES && myEntries.size() > 1) {
+      Record eldest = iterator.next();
+
+      myLinesCount -= eldest.myLinesCount;
+      myLiveBytes -= eldest.myLength;
+      iterator.remove();
+    }
+  }
+
+  private void remove(@Nonnull String key) {
+    Record previous = myEntries.remove(key);
+
+    if (previous != null) {
+      myLinesCount -= previous.myLinesCount;
+      myLiveBytes -= previous.myLength;
+    }
+  }
+
+  public long getHitCount() {
+    return myHits.get();
+  }
+
+  public long getMissCount() {
+    return myMisses.get();
+  }
+
+  @Nonnull
+  public String getStatistics() {
+    long hits = myHits.get();
+    long total = hits + myMisses.get();
+
+    synchronized (myLock) {
+      return String.format("Annotation cache: %d entries, %d lines, hits %d of %d (%d%%)", myEntries.size(), myLinesCount, hits, total,
+                           total > 0 ? hits * 100 / total : 0);
+    }
+  }
+
+  public void dispose() {
+    LOG.info(getStatistics());
+    synchronized (myLock) {
+      compactIfNeeded();
+      close();
+    }
+  }
+
+  @Nonnull
+  private Record append(@Nonnull String key, int linesCount, @Nonnull byte[] data, int length) throws IOException {
+    BufferExposingByteArrayOutputStream bos = new BufferExposingByteArrayOutputStream();
+    int headerLength = writeRecord(bos, key, linesCount, data, length);
+    long position = myStorage.length();
+
+    myStorage.seek(position);
+    myStorage.write(bos.getInternalBuffer(), 0, bos.size());
+
+    return new Record(position + headerLength, length, linesCount);
+  }
+
+  /**
+   * @return length of record header - data is written right after it
+   */
+  private static int writeRecord(@Nonnull OutputStream stream, @Nonnull String key, int linesCount, @Nonnull byte[] data, int length)
+    throws IOException {
+    BufferExposingByteArrayOutputStream header = new BufferExposingByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(header);
+
+    writeString(out, key);
+    out.writeInt(linesCount);
+    out.writeInt(length);
+    stream.write(header.getInternalBuffer(), 0, header.size());
+    stream.write(data, 0, length);
+
+    return header.size();
+  }
+
+  @Nonnull
+  private byte[] readRecord(@Nonnull Record record) throws IOException {
+    if (myStorage == null) throw new IOException("Storage is closed");
+
+    byte[] result = new byte[record.myLength];
+    myStorage.seek(record.myOffset);
+    myStorage.readFully(result);
+    return result;
+  }
+
+  private void load() {
+    try {
+      myStorage = new RandomAccessFile(myFile, "rw");
+
+      if (myStorage.length() < Integer.BYTES || myStorage.readInt() != VERSION) {
+        myStorage.setLength(0);
+        myStorage.writeInt(VERSION);
+        return;
+      }
+
+      long position = myStorage.getFilePointer();
+      try {
+        while (position < myStorage.length()) {
+          String key = readString(myStorage);
+          int linesCount = myStorage.readInt();
+          int length = myStorage.readInt();
+          long offset = myStorage.getFilePointer();
+
+          if (key == null || linesCount < 0 || length < 0 || offset + length > myStorage.length()) {
+            throw new EOFException();
+          }
+          add(key, new Record(offset, length, linesCount));
+          position = offset + length;
+          myStorage.seek(position);
+        }
+      }
+      catch (IOException | RuntimeException e) {
+        // record was not completely written (for instance, because of crash) - it is dropped with all subsequent data
+        LOG.info("Truncating annotation cache " + myFile + " at " + position, e);
+        myStorage.setLength(position);
+      }
+    }
+    catch (IOException e) {
+      // cache is just dropped if it could not be read
+      LOG.info(e);
+      close();
+      myEntries.clear();
+      myLinesCount = 0;
+      myLiveBytes = 0;
+      FileUtil.delete(myFile);
+    }
+  }
+
+  /**
+   * Rewrites storage file with live records only (in access order) if evicted records take too much space.
+   */
+  private void compactIfNeeded() {
+    try {
+      if (myStorage == null || myStorage.length() <= COMPACT_RATIO * (myLiveBytes + Integer.BYTES)) return;
+
+      File compacted = new File(myFile.getPath() + ".tmp");
+      Map<String, Record> records = new LinkedHashMap<>();
+
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compacted)))) {
+        long position = Integer.BYTES;
+
+        out.writeInt(VERSION);
+        for (Map.Entry<String, Record> entry : myEntries.entrySet()) {
+          Record record = entry.getValue();
+
+          position += writeRecord(out, entry.getKey(), record.myLinesCount, readRecord(record), record.myLength);
+          records.put(entry.getKey(), new Record(position, record.myLength, record.myLinesCount));
+          position += record.myLength;
+        }
+      }
+
+      close();
+      Files.move(compacted.toPath(), myFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      myEntries.clear();
+      myEntries.putAll(records);
+      myStorage = new RandomAccessFile(myFile, "rw");
+    }
+    catch (IOException e) {
+      LOG.info("Could not compact annotation cache " + myFile, e);
+      close();
+      myEntries.clear();
+      myLinesCount = 0;
+      myLiveBytes = 0;
+      FileUtil.delete(myFile);
+    }
+  }
+
+  private void close() {
+    if (myStorage != null) {
+      try {
+        myStorage.close();
+      }
+      catch (IOException e) {
+        LOG.info(e);
+      }
+      myStorage = null;
+    }
+  }
+
+  private static void writeString(@Nonnull DataOutput out, @Nullable String value) throws IOException {
+    // commit messages could be longer than supported by DataOutput.writeUTF()
+    byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+
+    out.writeInt(bytes != null ? bytes.length : -1);
+    if (bytes != null) {
+      out.write(bytes);
+    }
+  }
+
+  @Nullable
+  private static String readString(@Nonnull DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static class Record {
+    private final long myOffset;
+    private final int myLength;
+    private final int myLinesCount;
+
+    private Record(long offset, int length, int linesCount) {
+      myOffset = offset;
+      myLength = length;
+      myLinesCount = linesCount;
+    }
+  }
+
+  /**
+   * Annotation data in the same form as stored by {@link BaseSvnFileAnnotation} - per-line indexes in table of distinct commits.
+   */
+  private static class CachedAnnotation {
+    @Nonnull private final long[] myRevisions;
+    // null elements - commits without author
+    @Nonnull private final String[] myAuthors;
+    @Nonnull private final long[] myDates;
+    // null elements - commits not in file history (for instance, if history was truncated), so they are not restored as file revisions
+    @Nonnull private final String[] myMessages;
+    @Nonnull private final int[] myLineCommits;
+    @Nonnull private final int[] myMergeSourceCommits;
+    private final long myFirstRevision;
+
+    private CachedAnnotation(@Nonnull long[] revisions,
+                             @Nonnull String[] authors,
+                             @Nonnull long[] dates,
+                             @Nonnull String[] messages,
+                             @Nonnull int[] lineCommits,
+                             @Nonnull int[] mergeSourceCommits,
+                             long firstRevision) {
+      myRevisions = revisions;
+      myAuthors = authors;
+      myDates = dates;
+      myMessages = messages;
+      myLineCommits = lineCommits;
+      myMergeSourceCommits = mergeSourceCommits;
+      myFirstRevision = firstRevision;
+    }
+
+    int getLinesCount() {
+      return myLineCommits.length;
+    }
+
+    @Nonnull
+    static CachedAnnotation create(@Nonnull BaseSvnFileAnnotation annotation) {
+      CommitsTable table = new CommitsTable();
+
+      for (VcsFileRevision revision : annotation.getRevisions()) {
+        table.add(((SvnRevisionNumber)revision.getRevisionNumber()).getRevision().getNumber(), revision.getAuthor(),
+                  revision.getRevisionDate(), StringUtil.notNullize(revision.getCommitMessage()));
+      }
+
+      int linesCount = annotation.getLineCount();
+      int[] lineCommits = new int[linesCount];
+      int[] mergeSourceCommits = new int[linesCount];
+
+      for (int i = 0; i < linesCount; i++) {
+        lineCommits[i] = table.getIndex(annotation.getLocalLineInfo(i));
+        mergeSourceCommits[i] = table.getIndex(annotation.getMergeSourceLineInfo(i));
+      }
+
+      long[] revisions = new long[table.myRevisions.size()];
+      long[] dates = new long[table.myRevisions.size()];
+      for (int i = 0; i < revisions.length; i++) {
+        Date date = table.myDates.get(i);
+
+        revisions[i] = table.myRevisions.get(i);
+        dates[i] = date != null ? date.getTime() : -1;
+      }
+      SvnRevisionNumber firstRevision = annotation.getFirstRevisionNumber();
+
+      return new CachedAnnotation(revisions, ArrayUtil.toStringArray(table.myAuthors), dates, ArrayUtil.toStringArray(table.myMessages),
+                                  lineCommits, mergeSourceCommits, firstRevision != null ? firstRevision.getRevision().getNumber() : -1);
+    }
+
+    void restore(@Nonnull String url, @Nonnull SvnVcs vcs, @Nonnull BaseSvnFileAnnotation annotation) {
+      CommitInfo[] commits = new CommitInfo[myRevisions.length];
+
+      for (int i = 0; i < myRevisions.length; i++) {
+        Date date = myDates[i] >= 0 ? new Date(myDates[i]) : null;
+
+        commits[i] = new CommitInfo.Builder(myRevisions[i], date, myAuthors[i]).build();
+        if (myMessages[i] != null) {
+          annotation.setRevision(myRevisions[i], new SvnFileRevision(vcs, SVNRevision.UNDEFINED, SVNRevision.create(myRevisions[i]), url,
+                                                                     myAuthors[i], date, myMessages[i], ""));
+        }
+      }
+      for (int i = 0; i < myLineCommits.length; i++) {
+        if (myLineCommits[i] != NO_COMMIT) {
+          annotation.setLineInfo(i, commits[myLineCommits[i]],
+                                 myMergeSourceCommits[i] != NO_COMMIT ? commits[myMergeSourceCommits[i]] : null);
+        }
+      }
+      if (myFirstRevision >= 0) {
+        annotation.setFirstRevision(SVNRevision.create(myFirstRevision));
+      }
+    }
+
+    void save(@Nonnull DataOutput out) throws IOException {
+      out.writeInt(myRevisions.length);
+      for (int i = 0; i < myRevisions.length; i++) {
+        out.writeLong(myRevisions[i]);
+        writeString(out, myAuthors[i]);
+        out.writeLong(myDates[i]);
+        writeString(out, myMessages[i]);
+      }
+      out.writeInt(myLineCommits.length);
+      for (int i = 0; i < myLineCommits.length; i++) {
+        out.writeInt(myLineCommits[i]);
+        out.writeInt(myMergeSourceCommits[i]);
+      }
+      out.writeLong(myFirstRevision);
+    }
+
+    @Nonnull
+    static CachedAnnotation read(@Nonnull DataInput in) throws IOException {
+      int commitsCount = in.readInt();
+      long[] revisions = new long[commitsCount];
+      String[] authors = new String[commitsCount];
+      long[] dates = new long[commitsCount];
+      String[] messages = new String[commitsCount];
+
+      for (int i = 0; i < commitsCount; i++) {
+        revisions[i] = in.readLong();
+        authors[i] = readString(in);
+        dates[i] = in.readLong();
+        messages[i] = readString(in);
+      }
+
+      int linesCount = in.readInt();
+      int[] lineCommits = new int[linesCount];
+      int[] mergeSourceCommits = new int[linesCount];
+
+      for (int i = 0; i < linesCount; i++) {
+        lineCommits[i] = in.readInt();
+        mergeSourceCommits[i] = in.readInt();
+      }
+
+      return new CachedAnnotation(revisions, authors, dates, messages, lineCommits, mergeSourceCommits, in.readLong());
+    }
+  }
+
+  private static class CommitsTable {
+    @Nonnull private final Map<Long, Integer> myIndexes = new HashMap<>();
+    @Nonnull private final List<Long> myRevisions = new ArrayList<>();
+    // null elements - commits without author, date or message
+    @Nonnull private final List<String> myAuthors = new ArrayList<>();
+    @Nonnull private final List<Date> myDates = new ArrayList<>();
+    @Nonnull private final List<String> myMessages = new ArrayList<>();
+
+    private int add(long revision, @Nullable String author, @Nullable Date date, @Nullable String message) {
+      Integer index = myIndexes.get(revision);
+
+      if (index == null) {
+        index = myRevisions.size();
+        myIndexes.put(revision, index);
+        myRevisions.add(revision);
+        myAuthors.add(author);
+        myDates.add(date);
+        myMessages.add(message);
+      }
+
+      return index;
+    }
+
+    private int getIndex(@Nullable CommitInfo info) {
+      return info != null ? add(info.getRevision(), info.getAuthor(), info.getDate(), null) : NO_COMMIT;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package org.jetbrains.idea.svn.annotate;
+
+import consulo.application.ApplicationManager;
+import consulo.component.messagebus.MessageBusConnection;
+import consulo.fileEditor.FileEditorManager;
+import consulo.fileEditor.event.FileEditorManagerListener;
+import consulo.logging.Logger;
+import consulo.versionControlSystem.ProjectLevelVcsManager;
+import consulo.versionControlSystem.VcsException;
+import consulo.versionControlSystem.change.ChangeListManager;
+import consulo.versionControlSystem.update.FileGroup;
+import consulo.versionControlSystem.update.UpdatedFiles;
+import consulo.virtualFileSystem.LocalFileSystem;
+import consulo.virtualFileSystem.VirtualFile;
+import consulo.virtualFileSystem.status.FileStatus;
+import org.jetbrains.idea.svn.SvnVcs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Warms {@link AnnotationPersistentCache} in background - annotations of files opened in editor and files changed by update are
+ * calculated in advance, so annotate action could just restore them from cache.
+ * <p>
+ * Files are annotated one by one on pooled thread with lowered priority. At most {@link #MAX_QUEUE_SIZE} files wait to be annotated -
+ * files requested earlier are dropped first.
+ */
+public class AnnotationPrefetcher {
+
+  private static final Logger LOG = Logger.getInstance(AnnotationPrefetcher.class);
+
+  public static final boolean ENABLED = !Boolean.getBoolean("svn.annotate.do.not.prefetch");
+  public static final int MAX_QUEUE_SIZE = 32;
+
+  @Nonnull private final SvnVcs myVcs;
+  @Nonnull private final Object myLock = new Object();
+  @Nonnull private final LinkedHashSet<VirtualFile> myQueue = new LinkedHashSet<>();
+  @Nonnull private final MessageBusConnection myConnection;
+  private boolean myRunning;
+  private boolean myDisposed;
+
+  public AnnotationPrefetcher(@Nonnull SvnVcs vcs) {
+    myVcs = vcs;
+    myConnection = vcs.getProject().getMessageBus().connect();
+    myConnection.subscribe(FileEditorManagerListener.class, new FileEditorManagerListener() {
+      @Override
+      public void fileOpened(@Nonnull FileEditorManager source, @Nonnull VirtualFile file) {
+        schedule(Collections.singletonList(file));
+      }
+    });
+  }
+
+  /**
+   * Schedules annotation of files updated, merged or patched by update.
+   */
+  public void schedule(@Nonnull UpdatedFiles updatedFiles) {
+    List<VirtualFile> files = new ArrayList<>();
+
+    for (String groupId : new String[]{FileGroup.UPDATED_ID, FileGroup.MERGED_ID}) {
+      FileGroup group = updatedFiles.getGroupById(groupId);
+
+      if (group != null) {
+        for (String path : group.getFiles()) {
+          VirtualFile file = LocalFileSystem.getInstance().findFileByPath(path);
+
+          if (file != null) {
+            files.add(file);
+          }
+        }
+      }
+    }
+
+    schedule(files);
+  }
+
+  public void schedule(@Nonnull Collection<VirtualFile> files) {
+    if (!ENABLED) return;
+
+    synchronized (myLock) {
+      if (myDisposed) return;
+
+      for (VirtualFile file : files) {
+        if (!file.isDirectory() && file.isInLocalFileSystem()) {
+          // move to the end of queue - so most recently requested files are annotated first
+          myQueue.remove(file);
+          myQueue.add(file);
+        }
+      }
+      for (Iterator<VirtualFile> iterator = myQueue.iterator(); myQueue.size() > MAX_QUEUE_SIZE; ) {
+        iterator.next();
+        iterator.remove();
+      }
+
+      if (myRunning || myQueue.isEmpty()) return;
+      myRunning = true;
+    }
+
+    ApplicationManager.getApplication().executeOnPooledThread(this::processQueue);
+  }
+
+  public void dispose() {
+    synchronized (myLock) {
+      myDisposed = true;
+      myQueue.clear();
+    }
+    myConnection.disconnect();
+  }
+
+  private void processQueue() {
+    Thread thread = Thread.currentThread();
+    int priority = thread.getPriority();
+
+    thread.setPriority(Thread.MIN_PRIORITY);
+    try {
+      VirtualFile file;
+      while ((file = next()) != null) {
+        prefetch(file);
+      }
+    }
+    catch (RuntimeException e) {
+      synchronized (myLock) {
+        myRunning = false;
+      }
+      throw e;
+    }
+    finally {
+      thread.setPriority(priority);
+    }
+  }
+
+  @Nullable
+  private VirtualFile next() {
+    synchronized (myLock) {
+      if (myDisposed || myQueue.isEmpty()) {
+        // reset under the same lock - so files scheduled after this point start new processing
+        myRunning = false;
+        return null;
+      }
+
+      // last added file was requested most recently
+      VirtualFile result = null;
+      for (VirtualFile file : myQueue) {
+        result = file;
+      }
+      myQueue.remove(result);
+      return result;
+    }
+  }
+
+  private void prefetch(@Nonnull VirtualFile file) {
+    if (!file.isValid() || myVcs.getProject().isDisposed()) return;
+
+    ProjectLevelVcsManager vcsManager = ProjectLevelVcsManager.getInstance(myVcs.getProject());
+    VirtualFile root = vcsManager.getVcsRootFor(file);
+    // no authentication requests and other interaction should be caused by prefetching
+    if (root == null || !myVcs.equals(vcsManager.getVcsFor(file)) || !myVcs.isVcsBackgroundOperationsAllowed(root)) return;
+
+    FileStatus status = ChangeListManager.getInstance(myVcs.getProject()).getStatus(file);
+    if (FileStatus.UNKNOWN.equals(status) || FileStatus.ADDED.equals(status) || FileStatus.IGNORED.equals(status)) return;
+
+    try {
+      myVcs.getSvnAnnotationProvider().prefetch(file);
+    }
+    catch (VcsException e) {
+      LOG.debug("Could not prefetch annotation for " + file, e);
+    }
+  }
+}
@@ -163,6 +163,19 @@ public abstract class BaseSvnFileAnnotation extends FileAnnotation {
     myInfos.appendNumberedLineInfo(lineNumber, info, mergeInfo);
   }
 
+  /**
+   * @return line commit ignoring merge sources
+   */
+  @Nullable
+  CommitInfo getLocalLineInfo(int lineNumber) {
+    return myInfos.isValid(lineNumber) ? myInfos.getLocal(lineNumber) : null;
+  }
+
+  @Nullable
+  CommitInfo getMergeSourceLineInfo(int lineNumber) {
+    return myInfos.isValid(lineNumber) ? myInfos.getMergeSource(lineNumber) : null;
+  }
+
   @Nullable
   public VcsRevisionNumber originalRevision(final int lineNumber) {
     SvnFileRevision revision = myInfos.isValid(lineNumber) ? myRevisionMap.get(myInfos.originalRevision(lineNumber)) : null;
@@ -268,15 +281,22 @@ public abstract class BaseSvnFileAnnotation extends FileAnnotation {
 
   protected abstract void showAllAffectedPaths(SvnRevisionNumber number);
 
+  /**
+   * Line data is stored in primitive arrays - index of line {@link CommitInfo} in table of distinct commits (one per revision). So memory
+   * is mostly proportional to number of distinct revisions, not to number of lines.
+   */
   private static class MyPartiallyCreatedInfos {
+    private static final int NO_INFO = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
     private boolean myShowMergeSource;
-    private final Map<Integer, CommitInfo> myMappedLineInfo;
-    private final Map<Integer, CommitInfo> myMergeSourceInfos;
+    @Nonnull private final List<CommitInfo> myCommits = new ArrayList<>();
+    @Nonnull private final Map<Long, Integer> myCommitIndexes = new HashMap<>();
+    @Nonnull private int[] myMappedLineInfo = copyIndexes(new int[0], INITIAL_CAPACITY);
+    @Nonnull private int[] myMergeSourceInfos = copyIndexes(new int[0], INITIAL_CAPACITY);
     private int myMaxIdx;
 
     private MyPartiallyCreatedInfos() {
-      myMergeSourceInfos = new HashMap<>();
-      myMappedLineInfo = new HashMap<>();
       myMaxIdx = 0;
     }
 
@@ -289,22 +309,34 @@ public abstract class BaseSvnFileAnnotation extends FileAnnotation {
     }
 
     void appendNumberedLineInfo(final int lineNumber, @Nonnull CommitInfo info, @Nullable CommitInfo mergeInfo) {
-      if (myMappedLineInfo.get(lineNumber) != null) return;
+      if (lineNumber < 0) return;
+      ensureCapacity(lineNumber + 1);
+      if (myMappedLineInfo[lineNumber] != NO_INFO) return;
       myMaxIdx = (myMaxIdx < lineNumber) ? lineNumber : myMaxIdx;
-      myMappedLineInfo.put(lineNumber, info);
+      myMappedLineInfo[lineNumber] = getCommitIndex(info);
       if (mergeInfo != null) {
-        myMergeSourceInfos.put(lineNumber, mergeInfo);
+        myMergeSourceInfos[lineNumber] = getCommitIndex(mergeInfo);
       }
     }
 
     CommitInfo get(final int idx) {
       if (myShowMergeSource) {
-        final CommitInfo lineInfo = myMergeSourceInfos.get(idx);
+        final CommitInfo lineInfo = getMergeSource(idx);
         if (lineInfo != null) {
           return lineInfo;
         }
       }
-      return myMappedLineInfo.get(idx);
+      return getLocal(idx);
+    }
+
+    @Nullable
+    CommitInfo getLocal(int idx) {
+      return getCommit(myMappedLineInfo, idx);
+    }
+
+    @Nullable
+    CommitInfo getMergeSource(int idx) {
+      return getCommit(myMergeSourceInfos, idx);
     }
 
     @Nullable
@@ -317,17 +349,52 @@ public abstract class BaseSvnFileAnnotation extends FileAnnotation {
     }
 
     AnnotationSource getAnnotationSource(final int line) {
-      return myShowMergeSource ? AnnotationSource.getInstance(myMergeSourceInfos.containsKey(line)) : AnnotationSource.LOCAL;
+      return myShowMergeSource ? AnnotationSource.getInstance(mergeSourceAvailable(line)) : AnnotationSource.LOCAL;
     }
 
     public long originalRevision(final int line) {
-      CommitInfo info = line < size() ? myMappedLineInfo.get(line) : null;
+      CommitInfo info = line < size() ? getCommit(myMappedLineInfo, line) : null;
 
       return info == null ? -1 : info.getRevision();
     }
 
     public boolean mergeSourceAvailable(int lineNumber) {
-      return myMergeSourceInfos.containsKey(lineNumber);
+      return getCommit(myMergeSourceInfos, lineNumber) != null;
+    }
+
+    private int getCommitIndex(@Nonnull CommitInfo info) {
+      Integer index = myCommitIndexes.get(info.getRevision());
+
+      if (index == null) {
+        index = myCommits.size();
+        myCommits.add(info);
+        myCommitIndexes.put(info.getRevision(), index);
+      }
+
+      return index;
+    }
+
+    @Nullable
+    private CommitInfo getCommit(@Nonnull int[] indexes, int line) {
+      int index = line >= 0 && line < indexes.length ? indexes[line] : NO_INFO;
+
+      return index != NO_INFO ? myCommits.get(index) : null;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > myMappedLineInfo.length) {
+        int newCapacity = Math.max(capacity, myMappedLineInfo.length * 2);
+
+        myMappedLineInfo = copyIndexes(myMappedLineInfo, newCapacity);
+        myMergeSourceInfos = copyIndexes(myMergeSourceInfos, newCapacity);
+      }
+    }
+
+    @Nonnull
+    private static int[] copyIndexes(@Nonnull int[] indexes, int capacity) {
+      int[] result = Arrays.copyOf(indexes, capacity);
+      Arrays.fill(result, indexes.length, capacity, NO_INFO);
+      return result;
     }
   }
 
@@ -16,8 +16,6 @@
 package org.jetbrains.idea.svn.annotate;
 
 import consulo.versionControlSystem.VcsException;
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 import org.jetbrains.idea.svn.api.BaseSvnClient;
 import org.jetbrains.idea.svn.checkin.CommitInfo;
 import org.jetbrains.idea.svn.commandLine.CommandExecutor;
@@ -32,14 +30,30 @@ import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlRootElement;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Konstantin Kolosovsky.
  */
 public class CmdAnnotateClient extends BaseSvnClient implements AnnotateClient {
 
+  private static final String LINE_ENTRY = "entry";
+
+  /**
+   * Blame lines are parsed and passed to handler while command is running - not to keep whole xml document (that contains separate
+   * element for each line of file) in memory.
+   */
+  public static final boolean STREAM_BLAME = !Boolean.getBoolean("svn.do.not.stream.blame");
+
   @Override
   public void annotate(@Nonnull SvnTarget target,
                        @Nonnull SVNRevision startRevision,
@@ -55,9 +69,15 @@ public class CmdAnnotateClient extends BaseSvnClient implements AnnotateClient {
     CommandUtil.put(parameters, diffOptions);
     parameters.add("--xml");
 
-    CommandExecutor command = execute(myVcs, target, SvnCommandName.blame, parameters, null);
+    if (STREAM_BLAME) {
+      // command is executed on other thread - so handler is still called on current thread
+      executeStreaming(myVcs, target, SvnCommandName.blame, parameters, output -> parseOutput(output, handler));
+    }
+    else {
+      CommandExecutor command = execute(myVcs, target, SvnCommandName.blame, parameters, null);
 
-    parseOutput(command.getOutput(), handler);
+      parseOutput(command.getOutput(), handler);
+    }
   }
 
   public void parseOutput(@Nonnull String output, @Nullable AnnotationConsumer handler) throws VcsException {
@@ -65,8 +85,10 @@ public class CmdAnnotateClient extends BaseSvnClient implements AnnotateClient {
       BlameInfo info = CommandUtil.parse(output, BlameInfo.class);
 
       if (handler != null && info != null && info.target != null && info.target.lineEntries != null) {
+        CommitInfoInterner interner = new CommitInfoInterner();
+
         for (LineEntry entry : info.target.lineEntries) {
-          invokeHandler(handler, entry);
+          invokeHandler(handler, entry, interner);
         }
       }
     }
@@ -75,10 +97,60 @@ public class CmdAnnotateClient extends BaseSvnClient implements AnnotateClient {
     }
   }
 
-  private static void invokeHandler(@Nonnull AnnotationConsumer handler, @Nonnull LineEntry entry) throws SVNException {
+  /**
+   * Each "entry" element is passed to handler as soon as it is parsed.
+   */
+  private static void parseOutput(@Nonnull Reader output, @Nullable AnnotationConsumer handler)
+    throws XMLStreamException, JAXBException, SVNException {
+    XMLStreamReader reader = CommandUtil.newXmlStreamReader(output);
+    CommitInfoInterner interner = new CommitInfoInterner();
+
+    try {
+      int event = reader.getEventType();
+
+      while (true) {
+        if (event == XMLStreamConstants.START_ELEMENT && LINE_ENTRY.equals(reader.getLocalName())) {
+          LineEntry entry = CommandUtil.parse(reader, LineEntry.class);
+
+          if (handler != null) {
+            invokeHandler(handler, entry, interner);
+          }
+          // reader is already positioned after parsed element
+          event = reader.getEventType();
+        }
+        else if (reader.hasNext()) {
+          event = reader.next();
+        }
+        else {
+          break;
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private static void invokeHandler(@Nonnull AnnotationConsumer handler, @Nonnull LineEntry entry, @Nonnull CommitInfoInterner interner)
+    throws SVNException {
     if (entry.commit != null) {
+      CommitInfo mergedCommit = entry.merged != null && entry.merged.commit != null ? interner.intern(entry.merged.commit) : null;
+
       // line numbers in our api start from 0 - not from 1 like in svn output
-      handler.consume(entry.lineNumber - 1, entry.commit.build(), entry.mergedCommit());
+      handler.consume(entry.lineNumber - 1, interner.intern(entry.commit), mergedCommit);
+    }
+  }
+
+  /**
+   * Blame output repeats the same commit data for every line changed in that commit - so single {@link CommitInfo} instance is created
+   * per revision.
+   */
+  private static class CommitInfoInterner {
+    @Nonnull private final Map<Long, CommitInfo> myCommits = new HashMap<>();
+
+    @Nonnull
+    public CommitInfo intern(@Nonnull CommitInfo.Builder builder) {
+      return myCommits.computeIfAbsent(builder.getRevision(), revision -> builder.build());
     }
   }
 
@@ -104,11 +176,6 @@ public class CmdAnnotateClient extends BaseSvnClient implements AnnotateClient {
 
     @XmlElement(name = "merged")
     public MergedEntry merged;
-
-    @Nullable
-    public CommitInfo mergedCommit() {
-      return merged != null && merged.commit != null ? merged.commit.build() : null;
-    }
   }
 
   public static class MergedEntry {
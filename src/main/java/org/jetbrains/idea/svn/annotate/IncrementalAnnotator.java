@@ -0,0 +1,279 @@
+package org.jetbrains.idea.svn.annotate;
+
+import consulo.application.progress.ProgressIndicator;
+import consulo.language.impl.internal.psi.LoadTextUtil;
+import consulo.logging.Logger;
+import consulo.util.collection.ContainerUtil;
+import consulo.util.diff.Diff;
+import consulo.util.diff.FilesTooBigForDiffException;
+import consulo.versionControlSystem.VcsException;
+import consulo.versionControlSystem.history.VcsFileRevision;
+import consulo.versionControlSystem.history.VcsRevisionNumber;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jetbrains.idea.svn.SvnBundle;
+import org.jetbrains.idea.svn.SvnRevisionNumber;
+import org.jetbrains.idea.svn.SvnUtil;
+import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.checkin.CommitInfo;
+import org.jetbrains.idea.svn.history.LogEntry;
+import org.jetbrains.idea.svn.history.SvnFileRevision;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc2.SvnTarget;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates annotation of working copy file by patching previously calculated annotation of the same file. Lines changed by revisions
+ * committed after previously annotated revision are attributed to these revisions, all other lines keep their previous annotation. So
+ * after update only log and contents of new revisions are requested instead of walking whole file history with "svn blame".
+ * <p>
+ * Line changes are calculated locally by comparing contents of consecutive revisions. Full annotation should be used if previous
+ * annotation is not available, if more than {@link #MAX_REVISIONS} revisions were committed or if too large part of file was changed.
+ * Annotations with merge sources or ignored whitespaces could not be patched this way at all.
+ */
+class IncrementalAnnotator {
+
+  private static final Logger LOG = Logger.getInstance(IncrementalAnnotator.class);
+
+  public static final int MAX_REVISIONS = Integer.getInteger("svn.annotate.incremental.max.revisions", 20);
+  private static final int MAX_CHANGED_LINES_PERCENT = 50;
+
+  @Nonnull private final SvnVcs myVcs;
+  // key - file path, value - last calculated annotation of the file
+  @Nonnull private final Map<String, Snapshot> mySnapshots = ContainerUtil.createSoftMap();
+
+  IncrementalAnnotator(@Nonnull SvnVcs vcs) {
+    myVcs = vcs;
+  }
+
+  /**
+   * Remembers annotation of file at given working copy revision - so it could be used as base for next annotation of the file.
+   */
+  public void store(@Nonnull File ioFile, @Nonnull String url, long revision, @Nonnull BaseSvnFileAnnotation annotation) {
+    String[] lines = splitLines(annotation.getAnnotatedContent());
+    CommitInfo[] lineCommits = new CommitInfo[lines.length];
+
+    for (int i = 0; i < lines.length; i++) {
+      lineCommits[i] = annotation.getLocalLineInfo(i);
+    }
+
+    Snapshot snapshot = new Snapshot(url, revision, lines, lineCommits, annotation.getRevisions(), annotation.getFirstRevisionNumber());
+    synchronized (mySnapshots) {
+      mySnapshots.put(ioFile.getAbsolutePath(), snapshot);
+    }
+  }
+
+  /**
+   * @return null if annotation could not be calculated incrementally and full annotation should be used
+   */
+  @Nullable
+  public SvnFileAnnotation annotate(@Nonnull VirtualFile file,
+                                    @Nonnull File ioFile,
+                                    @Nonnull String url,
+                                    long revision,
+                                    @Nonnull String contents,
+                                    @Nonnull VcsRevisionNumber lastChangedRevision,
+                                    @Nullable ProgressIndicator progress) throws VcsException {
+    Snapshot snapshot;
+    synchronized (mySnapshots) {
+      snapshot = mySnapshots.get(ioFile.getAbsolutePath());
+    }
+    if (snapshot == null || !url.equals(snapshot.myUrl) || snapshot.myRevision > revision) {
+      return null;
+    }
+
+    List<LogEntry> entries = getNewRevisions(ioFile, snapshot.myRevision, revision, progress);
+    if (entries == null) {
+      return null;
+    }
+
+    String[] lines = snapshot.myLines;
+    CommitInfo[] lineCommits = snapshot.myLineCommits;
+    int changedLines = 0;
+
+    for (int i = 0; i < entries.size(); i++) {
+      LogEntry entry = entries.get(i);
+      // contents of last changed revision are already loaded
+      String[] newLines = i == entries.size() - 1 ? splitLines(contents) : splitLines(getContents(file, ioFile, entry.getRevision()));
+      CommitInfo commit = new CommitInfo.Builder(entry.getRevision(), entry.getDate(), entry.getAuthor()).build();
+
+      lineCommits = patch(lines, newLines, lineCommits, commit);
+      if (lineCommits == null) {
+        return null;
+      }
+      changedLines += countChanged(lineCommits, commit);
+      if (changedLines * 100L > newLines.length * (long)MAX_CHANGED_LINES_PERCENT) {
+        LOG.debug("Too many lines changed, using full annotation for " + ioFile);
+        return null;
+      }
+      lines = newLines;
+    }
+    // for instance, file has local modifications in BASE that are not reflected in repository (should not happen normally)
+    if (entries.isEmpty() && !Arrays.equals(lines, splitLines(contents))) {
+      return null;
+    }
+
+    SvnFileAnnotation result = createAnnotation(file, contents, lastChangedRevision, url, snapshot, lineCommits, entries);
+    store(ioFile, url, revision, result);
+    return result;
+  }
+
+  @Nullable
+  private List<LogEntry> getNewRevisions(@Nonnull File ioFile, long fromRevision, long toRevision, @Nullable ProgressIndicator progress) {
+    List<LogEntry> result = new ArrayList<>();
+
+    if (fromRevision < toRevision) {
+      try {
+        myVcs.getFactory(ioFile).createHistoryClient()
+          .doLog(SvnTarget.fromFile(ioFile), SVNRevision.create(toRevision), SVNRevision.create(fromRevision + 1), false, false, false,
+                 MAX_REVISIONS + 1, null, logEntry -> {
+              if (SVNRevision.UNDEFINED.getNumber() != logEntry.getRevision()) {
+                if (progress != null) {
+                  progress.checkCanceled();
+                  progress.setText2(SvnBundle.message("progress.text2.revision.processed", logEntry.getRevision()));
+                }
+                result.add(logEntry);
+              }
+            });
+      }
+      catch (VcsException e) {
+        LOG.info("Could not get new revisions for " + ioFile, e);
+        return null;
+      }
+    }
+    if (result.size() > MAX_REVISIONS) {
+      LOG.debug("Too many new revisions, using full annotation for " + ioFile);
+      return null;
+    }
+
+    result.sort(Comparator.comparingLong(LogEntry::getRevision));
+    return result;
+  }
+
+  @Nonnull
+  private String getContents(@Nonnull VirtualFile file, @Nonnull File ioFile, long revision) throws VcsException {
+    byte[] data = SvnUtil.getFileContents(myVcs, SvnTarget.fromFile(ioFile), SVNRevision.create(revision), SVNRevision.UNDEFINED);
+
+    return LoadTextUtil.getTextByBinaryPresentation(data, file, false, false).toString();
+  }
+
+  @Nonnull
+  private SvnFileAnnotation createAnnotation(@Nonnull VirtualFile file,
+                                             @Nonnull String contents,
+                                             @Nonnull VcsRevisionNumber lastChangedRevision,
+                                             @Nonnull String url,
+                                             @Nonnull Snapshot snapshot,
+                                             @Nonnull CommitInfo[] lineCommits,
+                                             @Nonnull List<LogEntry> entries) {
+    SvnFileAnnotation result = new SvnFileAnnotation(myVcs, file, contents, lastChangedRevision);
+
+    for (int i = 0; i < lineCommits.length; i++) {
+      if (lineCommits[i] != null) {
+        result.setLineInfo(i, lineCommits[i], null);
+      }
+    }
+    for (VcsFileRevision revision : snapshot.myRevisions) {
+      result.setRevision(((SvnRevisionNumber)revision.getRevisionNumber()).getRevision().getNumber(), (SvnFileRevision)revision);
+    }
+    for (LogEntry entry : entries) {
+      result.setRevision(entry.getRevision(), new SvnFileRevision(myVcs, SVNRevision.UNDEFINED, entry, url, ""));
+    }
+    if (snapshot.myFirstRevision != null) {
+      result.setFirstRevision(snapshot.myFirstRevision.getRevision());
+    }
+
+    return result;
+  }
+
+  /**
+   * @return annotation of new lines - unchanged lines keep their annotation, inserted and modified lines are attributed to given commit;
+   * null if diff could not be calculated
+   */
+  @Nullable
+  private static CommitInfo[] patch(@Nonnull String[] lines,
+                                    @Nonnull String[] newLines,
+                                    @Nonnull CommitInfo[] lineCommits,
+                                    @Nonnull CommitInfo commit) {
+    Diff.Change change;
+    try {
+      change = Diff.buildChanges(lines, newLines);
+    }
+    catch (FilesTooBigForDiffException e) {
+      return null;
+    }
+
+    CommitInfo[] result = new CommitInfo[newLines.length];
+    int line = 0;
+    int newLine = 0;
+
+    for (; change != null; change = change.link) {
+      while (newLine < change.line1) {
+        result[newLine++] = lineCommits[line++];
+      }
+      line += change.deleted;
+      for (int i = 0; i < change.inserted; i++) {
+        result[newLine++] = commit;
+      }
+    }
+    while (newLine < newLines.length) {
+      result[newLine++] = lineCommits[line++];
+    }
+
+    return result;
+  }
+
+  private static int countChanged(@Nonnull CommitInfo[] lineCommits, @Nonnull CommitInfo commit) {
+    int result = 0;
+
+    for (CommitInfo lineCommit : lineCommits) {
+      if (lineCommit == commit) {
+        result++;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Splits text to lines the same way as "svn blame" does - text ending with line separator does not have additional empty line.
+   */
+  @Nonnull
+  private static String[] splitLines(@Nonnull String text) {
+    if (text.isEmpty()) {
+      return new String[0];
+    }
+
+    return (text.endsWith("\n") ? text.substring(0, text.length() - 1) : text).split("\n", -1);
+  }
+
+  private static class Snapshot {
+    @Nonnull private final String myUrl;
+    private final long myRevision;
+    @Nonnull private final String[] myLines;
+    // null elements - lines without annotation
+    @Nonnull private final CommitInfo[] myLineCommits;
+    @Nonnull private final List<VcsFileRevision> myRevisions;
+    @Nullable private final SvnRevisionNumber myFirstRevision;
+
+    private Snapshot(@Nonnull String url,
+                     long revision,
+                     @Nonnull String[] lines,
+                     @Nonnull CommitInfo[] lineCommits,
+                     @Nonnull List<VcsFileRevision> revisions,
+                     @Nullable SvnRevisionNumber firstRevision) {
+      myUrl = url;
+      myRevision = revision;
+      myLines = lines;
+      myLineCommits = lineCommits;
+      myRevisions = revisions;
+      myFirstRevision = firstRevision;
+    }
+  }
+}
@@ -61,13 +61,56 @@ import java.util.Map;
 
 public class SvnAnnotationProvider implements AnnotationProvider, VcsCacheableAnnotationProvider {
   private static final Object MERGED_KEY = new Object();
+
+  /**
+   * Annotation of current file revision is calculated by patching previous annotation of the file if possible.
+   */
+  public static final boolean ANNOTATE_INCREMENTALLY = !Boolean.getBoolean("svn.do.not.annotate.incrementally");
+
   private final SvnVcs myVcs;
+  private final IncrementalAnnotator myIncrementalAnnotator;
 
   public SvnAnnotationProvider(final SvnVcs vcs) {
     myVcs = vcs;
+    myIncrementalAnnotator = new IncrementalAnnotator(vcs);
   }
 
   public FileAnnotation annotate(final VirtualFile file) throws VcsException {
+    return annotateCurrentRevision(file, false);
+  }
+
+  /**
+   * Calculates annotation of current file revision and stores it in persistent cache - if it is not cached yet.
+   */
+  public void prefetch(@Nonnull VirtualFile file) throws VcsException {
+    if (!isCached(file)) {
+      annotateCurrentRevision(file, true);
+    }
+  }
+
+  /**
+   * Checks persistent cache by url and last changed revision of the file - so that prefetching of already cached file does not load
+   * file contents or check repository capabilities.
+   */
+  private boolean isCached(@Nonnull VirtualFile file) {
+    AnnotationPersistentCache cache = myVcs.getAnnotationPersistentCache();
+    Info info = cache != null ? myVcs.getInfo(new File(file.getPath()).getAbsoluteFile()) : null;
+
+    if (info == null || info.getURL() == null) {
+      return false;
+    }
+
+    String url = info.getURL().toString();
+    SvnRevisionNumber revision = new SvnRevisionNumber(info.getCommittedRevision());
+    String key = getCacheKey(url, revision, false);
+    // annotation is cached without merge sources if repository does not support merge tracking
+    String mergeSourcesKey =
+      SvnConfiguration.getInstance(myVcs.getProject()).isShowMergeSourcesInAnnotate() ? getCacheKey(url, revision, true) : null;
+
+    return key != null && cache.contains(key) || mergeSourcesKey != null && cache.contains(mergeSourcesKey);
+  }
+
+  private FileAnnotation annotateCurrentRevision(final VirtualFile file, final boolean prefetch) throws VcsException {
     final SvnDiffProvider provider = (SvnDiffProvider)myVcs.getDiffProvider();
     final SVNRevision currentRevision = ((SvnRevisionNumber)provider.getCurrentRevision(file)).getRevision();
     final VcsRevisionDescription lastChangedRevision = provider.getCurrentRevisionDescription(file);
@@ -79,15 +122,18 @@ public class SvnAnnotationProvider implements AnnotationProvider, VcsCacheableAn
       throw new VcsException("Can not get last changed revision for file: " + file.getPath() + "\nPlease run svn info for this file and file an issue.");
     }
     return annotate(file, new SvnFileRevision(myVcs, currentRevision, currentRevision, null, null, null, null, null),
-                    lastChangedRevision.getRevisionNumber(), true);
+                    lastChangedRevision.getRevisionNumber(), true, prefetch);
   }
 
   public FileAnnotation annotate(final VirtualFile file, final VcsFileRevision revision) throws VcsException {
-    return annotate(file, revision, revision.getRevisionNumber(), false);
+    return annotate(file, revision, revision.getRevisionNumber(), false, false);
   }
 
+  /**
+   * @param prefetch if annotation should only be stored in persistent cache - null is returned in this case
+   */
   private FileAnnotation annotate(final VirtualFile file, final VcsFileRevision revision, final VcsRevisionNumber lastChangedRevision,
-                                  final boolean loadExternally) throws VcsException {
+                                  final boolean loadExternally, final boolean prefetch) throws VcsException {
     if (file.isDirectory()) {
       throw new VcsException(SvnBundle.message("exception.text.cannot.annotate.directory"));
     }
@@ -135,6 +181,34 @@ public class SvnAnnotationProvider implements AnnotationProvider, VcsCacheableAn
 
           final boolean calculateMergeinfo = SvnConfiguration.getInstance(myVcs.getProject()).isShowMergeSourcesInAnnotate() &&
             SvnUtil.checkRepositoryVersion15(myVcs, url);
+          // merge sources and whitespace changes could not be detected by patching previous annotation
+          final boolean incremental =
+            ANNOTATE_INCREMENTALLY && loadExternally && url != null && endRevision.getNumber() >= 0 && !calculateMergeinfo &&
+            getLogClientOptions(myVcs) == null;
+          final AnnotationPersistentCache cache = myVcs.getAnnotationPersistentCache();
+          final String cacheKey = cache != null && url != null ? getCacheKey(url, lastChangedRevision, calculateMergeinfo) : null;
+
+          if (cacheKey != null) {
+            if (prefetch ? cache.contains(cacheKey) : cache.restore(cacheKey, url, myVcs, result)) {
+              if (incremental && !prefetch) {
+                myIncrementalAnnotator.store(ioFile, url, endRevision.getNumber(), result);
+              }
+              annotation[0] = prefetch ? null : result;
+              return;
+            }
+          }
+          if (incremental) {
+            final SvnFileAnnotation patched = myIncrementalAnnotator
+              .annotate(file, ioFile, url, endRevision.getNumber(), contents, lastChangedRevision, progress);
+            if (patched != null) {
+              if (cacheKey != null) {
+                cache.put(cacheKey, patched);
+              }
+              annotation[0] = prefetch ? null : patched;
+              return;
+            }
+          }
+
           final MySteppedLogGetter logGetter = new MySteppedLogGetter(
             myVcs, ioFile, progress,
             myVcs.getFactory(ioFile).createHistoryClient(), endRevision, result,
@@ -154,6 +228,15 @@ public class SvnAnnotationProvider implements AnnotationProvider, VcsCacheableAn
             result.setFirstRevision(rp.get(1));
           }
           annotation[0] = result;
+          if (incremental) {
+            myIncrementalAnnotator.store(ioFile, url, endRevision.getNumber(), result);
+          }
+          if (cacheKey != null) {
+            cache.put(cacheKey, result);
+          }
+          if (prefetch) {
+            annotation[0] = null;
+          }
         }
         catch (IOException e) {
           exception[0] = new VcsException(e);
@@ -168,7 +251,7 @@ public class SvnAnnotationProvider implements AnnotationProvider, VcsCacheableAn
         }
       }
     };
-    if (ApplicationManager.getApplication().isDispatchThread()) {
+    if (ApplicationManager.getApplication().isDispatchThread() && !prefetch) {
       ProgressManager.getInstance()
                      .runProcessWithProgressSynchronously(command, SvnBundle.message("action.text.annotate"), false, myVcs.getProject());
     }
@@ -275,6 +358,13 @@ public class SvnAnnotationProvider implements AnnotationProvider, VcsCacheableAn
     return result;
   }
 
+  @Nullable
+  private String getCacheKey(@Nonnull String url, @Nullable VcsRevisionNumber revision, boolean calculateMergeinfo) {
+    long number = revision instanceof SvnRevisionNumber ? ((SvnRevisionNumber)revision).getRevision().getNumber() : -1;
+
+    return number >= 0 ? AnnotationPersistentCache.getKey(url, number, calculateMergeinfo, getLogClientOptions(myVcs) != null) : null;
+  }
+
   @Nonnull
   private static AnnotationConsumer createAnnotationHandler(@Nullable final ProgressIndicator progress,
                                                             @Nonnull final BaseSvnFileAnnotation result) {
@@ -3,7 +3,12 @@ package org.jetbrains.idea.svn.api;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import consulo.application.ApplicationManager;
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.ProgressManager;
+import consulo.util.lang.ref.Ref;
 import consulo.util.lang.StringUtil;
+import consulo.util.lang.function.ThrowableRunnable;
 import consulo.versionControlSystem.VcsException;
 import org.jetbrains.idea.svn.SvnVcs;
 import org.jetbrains.idea.svn.WorkingCopyFormat;
@@ -18,10 +23,17 @@ import org.tmatesoft.svn.core.wc.SVNDiffOptions;
 import org.tmatesoft.svn.core.wc.SVNEvent;
 import org.tmatesoft.svn.core.wc.SVNRevision;
 import org.tmatesoft.svn.core.wc2.SvnTarget;
+import org.xml.sax.SAXException;
 
+import jakarta.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
 import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * @author Konstantin Kolosovsky.
@@ -121,6 +133,120 @@ public abstract class BaseSvnClient implements SvnClient {
     return newRuntime(vcs).runWithAuthenticationAttempt(command);
   }
 
+  /**
+   * Executes command on pooled thread (under progress indicator of current thread) and passes its standard output to given parser on
+   * current thread while command is running - so that results are processed progressively and whole output is not kept in memory.
+   */
+  @Nonnull
+  public CommandExecutor executeStreaming(@Nonnull SvnVcs vcs,
+                                          @Nonnull SvnTarget target,
+                                          @Nonnull SvnCommandName name,
+                                          @Nonnull List<String> parameters,
+                                          @Nonnull OutputParser parser) throws VcsException {
+    StreamingResultBuilder resultBuilder = new StreamingResultBuilder();
+    Ref<CommandExecutor> command = new Ref<>();
+    ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    Future<?> execution = ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      try {
+        ProgressManager.getInstance().executeProcessUnderProgress(() -> {
+          try {
+            command.set(execute(vcs, target, name, parameters, resultBuilder));
+          }
+          catch (SvnBindException e) {
+            throw new SvnExceptionWrapper(e);
+          }
+        }, indicator);
+      }
+      finally {
+        resultBuilder.finish();
+      }
+    });
+    Exception parseError = null;
+
+    try {
+      Reader output = resultBuilder.getReader();
+      ThrowableRunnable<Exception> parse = () -> {
+        parser.parse(output);
+        // process should not be blocked on writing output that parser is not interested in
+        skip(output);
+      };
+
+      // local commands started by parser (for instance, "svn info" for reported status entries) are nested into executed command
+      if (target.isFile()) {
+        LocalCommandPool.runNested(parse);
+      }
+      else {
+        parse.run();
+      }
+    }
+    catch (Exception e) {
+      parseError = e;
+      // stop reading command output and destroy the process
+      resultBuilder.cancel();
+    }
+
+    Throwable commandError = waitFor(execution);
+    // malformed output is most likely caused by command failure - so command error is more informative
+    boolean isOutputError = parseError instanceof XMLStreamException || parseError instanceof JAXBException ||
+                            parseError instanceof SAXException || parseError instanceof IOException;
+
+    if (commandError != null && (parseError == null || isOutputError)) {
+      rethrow(commandError);
+    }
+    if (parseError != null) {
+      rethrow(parseError);
+    }
+    return command.get();
+  }
+
+  private static void skip(@Nonnull Reader output) throws IOException {
+    char[] buffer = new char[8192];
+
+    //noinspection StatementWithEmptyBody
+    while (output.read(buffer) != -1) ;
+  }
+
+  @Nullable
+  private static Throwable waitFor(@Nonnull Future<?> execution) {
+    try {
+      execution.get();
+      return null;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return e;
+    }
+    catch (ExecutionException e) {
+      return e.getCause() instanceof SvnExceptionWrapper ? e.getCause().getCause() : e.getCause();
+    }
+  }
+
+  private static void rethrow(@Nonnull Throwable error) throws VcsException {
+    if (error instanceof SvnExceptionWrapper && error.getCause() != null) {
+      error = error.getCause();
+    }
+    if (error instanceof VcsException) {
+      throw (VcsException)error;
+    }
+    if (error instanceof SVNException) {
+      throw new SvnBindException((SVNException)error);
+    }
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException)error;
+    }
+    if (error instanceof Error) {
+      throw (Error)error;
+    }
+    throw new VcsException(error);
+  }
+
+  /**
+   * Parses command output while command is running.
+   */
+  public interface OutputParser {
+    void parse(@Nonnull Reader output) throws Exception;
+  }
+
   @Nonnull
   public Command newCommand(@Nonnull SvnCommandName name) {
     return new Command(name);
@@ -26,6 +26,7 @@ import org.jetbrains.idea.svn.lock.CmdLockClient;
 import org.jetbrains.idea.svn.properties.CmdPropertyClient;
 import org.jetbrains.idea.svn.revert.CmdRevertClient;
 import org.jetbrains.idea.svn.status.CmdStatusClient;
+import org.jetbrains.idea.svn.status.WcDbStatusClient;
 import org.jetbrains.idea.svn.update.CmdRelocateClient;
 import org.jetbrains.idea.svn.update.CmdUpdateClient;
 import org.jetbrains.idea.svn.update.UpdateClient;
@@ -64,7 +65,7 @@ public class CmdClientFactory extends ClientFactory {
     myBrowseClient = new CmdBrowseClient();
     myDiffClient = new CmdDiffClient();
     myCheckinClient = new CmdCheckinClient();
-    statusClient = new CmdStatusClient();
+    statusClient = WcDbStatusClient.ENABLED ? new WcDbStatusClient() : new CmdStatusClient();
     infoClient = new CmdInfoClient();
     myRepositoryFeaturesClient = new CmdRepositoryFeaturesClient();
 
@@ -61,6 +61,12 @@ import java.util.function.Function;
 public class SvnCheckinEnvironment implements CheckinEnvironment {
 
   private static final Logger LOG = Logger.getInstance(SvnCheckinEnvironment.class);
+
+  /**
+   * Number of commits to different repositories (for instance, to externals from other repositories) that could be performed concurrently.
+   */
+  public static final int CONFIGURED_PARALLELISM = Math.max(1, Integer.getInteger("svn.commit.parallelism", 1));
+
   @Nonnull
   private final SvnVcs mySvnVcs;
 
@@ -89,30 +95,51 @@ public class SvnCheckinEnvironment implements CheckinEnvironment {
                         final Set<String> feedback) {
     //noinspection unchecked
     MultiMap<Pair<SVNURL, WorkingCopyFormat>, FilePath> map = SvnUtil.splitIntoRepositoriesMap(mySvnVcs, committables, Convertor.SELF);
+    List<RepositoryCommit> commits = new ArrayList<>();
 
     for (Map.Entry<Pair<SVNURL, WorkingCopyFormat>, Collection<FilePath>> entry : map.entrySet()) {
-      try {
-        doCommitOneRepo(entry.getValue(), comment, exception, feedback, entry.getKey().getSecond());
+      commits.add(new RepositoryCommit(entry.getValue(), entry.getKey().getSecond()));
+    }
+
+    try {
+      if (CONFIGURED_PARALLELISM > 1 && commits.size() > 1) {
+        commitConcurrently(commits, comment);
       }
-      catch (VcsException e) {
-        LOG.info(e);
-        exception.add(e);
+      else {
+        for (RepositoryCommit commit : commits) {
+          commit.run(comment);
+        }
       }
     }
+    finally {
+      // results of already finished commits are processed even if commit was cancelled - so committed revisions are not lost
+      processCommits(commits, exception, feedback);
+    }
   }
 
-  private void doCommitOneRepo(@Nonnull Collection<FilePath> committables,
-                               String comment,
-                               List<VcsException> exception,
-                               final Set<String> feedback,
-                               @Nonnull WorkingCopyFormat format)
-    throws VcsException {
-    if (committables.isEmpty()) {
-      return;
+  private void processCommits(@Nonnull List<RepositoryCommit> commits, List<VcsException> exception, final Set<String> feedback) {
+    // results are processed in repositories order - not in order commits were finished
+    for (RepositoryCommit commit : commits) {
+      if (commit.myError != null) {
+        LOG.info(commit.myError);
+        exception.add(commit.myError);
+      }
+      else {
+        processResults(commit.myResults, exception, feedback);
+      }
     }
+  }
 
-    CommitInfo[] results = mySvnVcs.getFactory(format).createCheckinClient().commit(ChangesUtil.filePathsToFiles(committables), comment);
+  /**
+   * Commits to different repositories are independent - so they are performed on pooled threads, at most {@link #CONFIGURED_PARALLELISM}
+   * of them at the same time.
+   */
+  private static void commitConcurrently(@Nonnull List<RepositoryCommit> commits, String comment) {
+    new ParallelTasks<RepositoryCommit, RuntimeException>(CONFIGURED_PARALLELISM, ProgressManager.getInstance().getProgressIndicator(),
+                                                          commit -> commit.run(comment)).addAll(commits).run();
+  }
 
+  private void processResults(@Nonnull CommitInfo[] results, List<VcsException> exception, final Set<String> feedback) {
     final StringBuilder committedRevisions = new StringBuilder();
     for (CommitInfo result : results) {
       if (result.getErrorMessage() != null) {
@@ -287,6 +314,31 @@ public class SvnCheckinEnvironment implements CheckinEnvironment {
     return true;
   }
 
+  private class RepositoryCommit {
+    @Nonnull private final Collection<FilePath> myCommittables;
+    @Nonnull private final WorkingCopyFormat myFormat;
+    @Nonnull private CommitInfo[] myResults = new CommitInfo[0];
+    @Nullable private VcsException myError;
+
+    private RepositoryCommit(@Nonnull Collection<FilePath> committables, @Nonnull WorkingCopyFormat format) {
+      myCommittables = committables;
+      myFormat = format;
+    }
+
+    private void run(String comment) {
+      if (myCommittables.isEmpty()) {
+        return;
+      }
+
+      try {
+        myResults = mySvnVcs.getFactory(myFormat).createCheckinClient().commit(ChangesUtil.filePathsToFiles(myCommittables), comment);
+      }
+      catch (VcsException e) {
+        myError = e;
+      }
+    }
+  }
+
   private class KeepLocksComponent implements RefreshableOnComponent {
 
     @Nonnull
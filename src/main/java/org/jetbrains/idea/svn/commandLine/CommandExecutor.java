@@ -283,7 +283,7 @@ public class CommandExecutor {
   }
 
   protected void startHandlingStreams() {
-    outputAdapter = new CapturingProcessAdapter();
+    outputAdapter = isStreaming() ? new ErrorCapturingProcessAdapter() : new CapturingProcessAdapter();
     myHandler.addProcessListener(outputAdapter);
     myHandler.addProcessListener(new ProcessTracker());
     myHandler.addProcessListener(new ResultBuilderNotifier(listeners()));
@@ -291,6 +291,13 @@ public class CommandExecutor {
     myHandler.startNotify();
   }
 
+  /**
+   * Standard output of commands with streaming result builder is consumed by result builder itself and is not stored in memory.
+   */
+  protected boolean isStreaming() {
+    return myResultBuilder instanceof StreamingResultBuilder;
+  }
+
   public String getOutput() {
     return outputAdapter.getOutput().getStdout();
   }
@@ -515,6 +522,15 @@ public class CommandExecutor {
     }
   }
 
+  private static class ErrorCapturingProcessAdapter extends CapturingProcessAdapter {
+    @Override
+    public void onTextAvailable(ProcessEvent event, Key outputType) {
+      if (ProcessOutputTypes.STDOUT != outputType) {
+        super.onTextAvailable(event, outputType);
+      }
+    }
+  }
+
   private class ProcessTracker extends ProcessAdapter {
 
     @Override
@@ -69,7 +69,7 @@ public class CommandRuntime {
       CommandExecutor executor = null;
       while (repeat) {
         executor = newExecutor(command);
-        executor.run();
+        run(executor, command);
         repeat = onAfterCommand(executor, command);
       }
       return executor;
@@ -92,6 +92,15 @@ public class CommandRuntime {
     return executor;
   }
 
+  private void run(@Nonnull CommandExecutor executor, @Nonnull Command command) throws SvnBindException {
+    if (!(executor instanceof TerminalExecutor) && LocalCommandPool.isPooled(command)) {
+      myVcs.getLocalCommandPool().run(command, executor);
+    }
+    else {
+      executor.run();
+    }
+  }
+
   private void onStart(@Nonnull Command command) throws SvnBindException {
     // TODO: Actually command handler should be used as canceller, but currently all handlers use same cancel logic -
     // TODO: - just check progress indicator
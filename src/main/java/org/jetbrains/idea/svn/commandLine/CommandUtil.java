@@ -18,6 +18,7 @@ package org.jetbrains.idea.svn.commandLine;
 import consulo.application.util.DateFormatUtil;
 import consulo.container.boot.ContainerPathManager;
 import consulo.logging.Logger;
+import consulo.util.collection.ContainerUtil;
 import consulo.util.lang.ObjectUtil;
 import consulo.util.lang.StringUtil;
 import jakarta.xml.bind.JAXBContext;
@@ -28,12 +29,23 @@ import org.jetbrains.idea.svn.diff.DiffOptions;
 import org.jetbrains.idea.svn.status.StatusType;
 import org.tmatesoft.svn.core.wc.SVNRevision;
 import org.tmatesoft.svn.core.wc2.SvnTarget;
+import org.xml.sax.SAXException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.File;
+import java.io.Reader;
 import java.io.StringReader;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Konstantin Kolosovsky.
@@ -42,6 +54,14 @@ public class CommandUtil {
 
   private static final Logger LOG = Logger.getInstance(CommandUtil.class);
 
+  private static final SAXParserFactory SAX_PARSER_FACTORY = SAXParserFactory.newInstance();
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  // context creation introspects whole class graph of result type - so contexts are created once per type
+  private static final ConcurrentMap<Class<?>, JAXBContext> JAXB_CONTEXTS = ContainerUtil.newConcurrentMap();
+  // unmarshallers are not thread safe - but could be reused for subsequent parsing on the same thread
+  private static final ThreadLocal<Map<Class<?>, Unmarshaller>> UNMARSHALLERS = ThreadLocal.withInitial(HashMap::new);
+
   /**
    * Puts given value to parameters if condition is satisfied
    *
@@ -178,10 +198,75 @@ public class CommandUtil {
   }
 
   public static <T> T parse(@Nonnull String data, @Nonnull Class<T> type) throws JAXBException {
-    JAXBContext context = JAXBContext.newInstance(type);
-    Unmarshaller unmarshaller = context.createUnmarshaller();
+    return parse(new StringReader(data.trim()), type);
+  }
+
+  /**
+   * Parses xml document without collecting it to string first. Reader should not contain anything before xml declaration.
+   */
+  public static <T> T parse(@Nonnull Reader reader, @Nonnull Class<T> type) throws JAXBException {
+    return (T)getUnmarshaller(type).unmarshal(reader);
+  }
+
+  /**
+   * Parses xml element reader is currently positioned at. Reader is positioned after element end when method returns.
+   */
+  public static <T> T parse(@Nonnull XMLStreamReader reader, @Nonnull Class<T> type) throws JAXBException {
+    return getUnmarshaller(type).unmarshal(reader, type).getValue();
+  }
+
+  @Nonnull
+  public static XMLStreamReader newXmlStreamReader(@Nonnull Reader reader) throws XMLStreamException {
+    synchronized (XML_INPUT_FACTORY) {
+      return XML_INPUT_FACTORY.createXMLStreamReader(reader);
+    }
+  }
+
+  @Nonnull
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory result = XMLInputFactory.newInstance();
+
+    // command output does not contain dtd
+    result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+    return result;
+  }
+
+  @Nonnull
+  private static Unmarshaller getUnmarshaller(@Nonnull Class<?> type) throws JAXBException {
+    Map<Class<?>, Unmarshaller> unmarshallers = UNMARSHALLERS.get();
+    Unmarshaller result = unmarshallers.get(type);
+
+    if (result == null) {
+      result = getJaxbContext(type).createUnmarshaller();
+      unmarshallers.put(type, result);
+    }
+
+    return result;
+  }
+
+  @Nonnull
+  private static JAXBContext getJaxbContext(@Nonnull Class<?> type) throws JAXBException {
+    JAXBContext result = JAXB_CONTEXTS.get(type);
 
-    return (T) unmarshaller.unmarshal(new StringReader(data.trim()));
+    if (result == null) {
+      // could be created several times concurrently - but only one instance is stored
+      JAXBContext context = JAXBContext.newInstance(type);
+      result = ObjectUtil.notNull(JAXB_CONTEXTS.putIfAbsent(type, context), context);
+    }
+
+    return result;
+  }
+
+  /**
+   * Creates new parser using shared factory - factory lookup is rather expensive to perform for each parsed command output.
+   */
+  @Nonnull
+  public static SAXParser newSaxParser() throws ParserConfigurationException, SAXException {
+    synchronized (SAX_PARSER_FACTORY) {
+      return SAX_PARSER_FACTORY.newSAXParser();
+    }
   }
 
   @Nonnull
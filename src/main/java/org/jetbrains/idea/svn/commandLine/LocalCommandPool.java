@@ -0,0 +1,177 @@
+package org.jetbrains.idea.svn.commandLine;
+
+import consulo.logging.Logger;
+import consulo.util.collection.ContainerUtil;
+import consulo.util.lang.function.ThrowableRunnable;
+import org.jetbrains.idea.svn.CancellableSemaphore;
+import org.jetbrains.idea.svn.RootUrlInfo;
+import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.api.ProgressTracker;
+import org.tmatesoft.svn.core.SVNCancelException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution engine for local read-only commands ("info", "status", "propget", "proplist" and "cat" against working copy files).
+ * <p>
+ * Subversion command line client does not provide long-living "server" mode for working copy reads, so each command still requires
+ * separate process. But refresh logic could issue thousands of such commands concurrently - and all of them compete for the same
+ * wc.db lock. So number of simultaneously running processes is limited per working copy root, and commands waiting for a permit
+ * could be cancelled. Commands started while current thread already holds a permit (for instance, "svn info" requested by status
+ * handler while "svn status" output is being parsed) do not wait for another permit - otherwise such nested commands could deadlock.
+ * <p>
+ * Pool also collects spawn statistics. Clients that execute several targets with one process (for instance, using "--targets" file)
+ * report this with {@link #registerBatchedTargets(int)} - so time saved by not spawning separate processes could be estimated.
+ */
+public class LocalCommandPool {
+
+  private static final Logger LOG = Logger.getInstance(LocalCommandPool.class);
+
+  public static final int DEFAULT_MAX_CONCURRENT_PER_WORKING_COPY = 4;
+  // waiting commands check cancellation with this interval
+  private static final long CHECK_CANCELLED_INTERVAL = 500;
+  // number of permits held by current thread
+  @Nonnull private static final ThreadLocal<Integer> ourHeldPermits = ThreadLocal.withInitial(() -> 0);
+
+  @Nonnull private final SvnVcs myVcs;
+  private final int myMaxConcurrent;
+  @Nonnull private final ConcurrentMap<File, CancellableSemaphore> myPermits = ContainerUtil.newConcurrentMap();
+
+  @Nonnull private final AtomicLong mySpawnCount = new AtomicLong();
+  @Nonnull private final AtomicLong mySpawnTime = new AtomicLong();
+  @Nonnull private final AtomicLong myWaitTime = new AtomicLong();
+  @Nonnull private final AtomicLong mySavedSpawns = new AtomicLong();
+
+  public LocalCommandPool(@Nonnull SvnVcs vcs) {
+    this(vcs, DEFAULT_MAX_CONCURRENT_PER_WORKING_COPY);
+  }
+
+  public LocalCommandPool(@Nonnull SvnVcs vcs, int maxConcurrent) {
+    myVcs = vcs;
+    myMaxConcurrent = Math.max(1, maxConcurrent);
+  }
+
+  public static boolean isPooled(@Nonnull Command command) {
+    boolean isReadProperty = command.isLocalProperty() && (command.is(SvnCommandName.propget) || command.is(SvnCommandName.proplist));
+
+    return command.isLocalInfo() || command.isLocalStatus() || command.isLocalCat() || isReadProperty;
+  }
+
+  public void run(@Nonnull Command command, @Nonnull CommandExecutor executor) throws SvnBindException {
+    int heldPermits = ourHeldPermits.get();
+    CancellableSemaphore permits = heldPermits == 0 ? myPermits.computeIfAbsent(getWorkingCopyKey(command), key ->
+      new CancellableSemaphore(myMaxConcurrent, CHECK_CANCELLED_INTERVAL)) : null;
+
+    if (permits != null) {
+      acquire(permits, command);
+    }
+    ourHeldPermits.set(heldPermits + 1);
+    try {
+      long start = System.nanoTime();
+      executor.run();
+      mySpawnCount.incrementAndGet();
+      mySpawnTime.addAndGet(System.nanoTime() - start);
+    }
+    finally {
+      ourHeldPermits.set(heldPermits);
+      if (permits != null) {
+        permits.release();
+      }
+    }
+  }
+
+  /**
+   * Runs given computation as nested into local command executed on other thread (for instance, parsing of command output while command is
+   * running) - so commands started by computation do not wait for permits.
+   */
+  public static <E extends Throwable> void runNested(@Nonnull ThrowableRunnable<E> runnable) throws E {
+    int heldPermits = ourHeldPermits.get();
+
+    ourHeldPermits.set(heldPermits + 1);
+    try {
+      runnable.run();
+    }
+    finally {
+      ourHeldPermits.set(heldPermits);
+    }
+  }
+
+  /**
+   * Should be called when several targets were processed by single command execution.
+   *
+   * @param targetsCount number of targets processed by single process
+   */
+  public void registerBatchedTargets(int targetsCount) {
+    if (targetsCount > 1) {
+      mySavedSpawns.addAndGet(targetsCount - 1);
+    }
+  }
+
+  public long getSpawnCount() {
+    return mySpawnCount.get();
+  }
+
+  public long getSavedSpawnCount() {
+    return mySavedSpawns.get();
+  }
+
+  /**
+   * @return estimated time (in milliseconds) saved by batching several targets into single process
+   */
+  public long getSavedSpawnTime() {
+    long count = mySpawnCount.get();
+
+    return count > 0 ? TimeUnit.NANOSECONDS.toMillis(mySpawnTime.get() / count * mySavedSpawns.get()) : 0;
+  }
+
+  @Nonnull
+  public String getStatistics() {
+    return String.format("Local commands: spawned %d, total time %d ms, waited for permit %d ms, spawns avoided %d (~%d ms)",
+                         mySpawnCount.get(), TimeUnit.NANOSECONDS.toMillis(mySpawnTime.get()),
+                         TimeUnit.NANOSECONDS.toMillis(myWaitTime.get()), mySavedSpawns.get(), getSavedSpawnTime());
+  }
+
+  public void dispose() {
+    LOG.info(getStatistics());
+    myPermits.clear();
+  }
+
+  private void acquire(@Nonnull CancellableSemaphore permits, @Nonnull Command command) throws SvnBindException {
+    long start = System.nanoTime();
+
+    try {
+      permits.acquire(() -> checkCancelled(command.getCanceller()));
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SvnBindException(e);
+    }
+    finally {
+      myWaitTime.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  private static void checkCancelled(@Nullable ProgressTracker canceller) throws SvnBindException {
+    if (canceller != null) {
+      try {
+        canceller.checkCancelled();
+      }
+      catch (SVNCancelException e) {
+        throw new SvnBindException(e);
+      }
+    }
+  }
+
+  @Nonnull
+  private File getWorkingCopyKey(@Nonnull Command command) {
+    File file = command.getTarget().getFile();
+    RootUrlInfo root = myVcs.getSvnFileUrlMapping().getWcRootForFilePath(file);
+
+    return root != null ? root.getIoFile() : CommandUtil.requireExistingParent(file);
+  }
+}
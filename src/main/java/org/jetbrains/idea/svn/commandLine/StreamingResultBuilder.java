@@ -0,0 +1,170 @@
+package org.jetbrains.idea.svn.commandLine;
+
+import consulo.process.ProcessOutputTypes;
+import consulo.util.dataholder.Key;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Result builder that passes command standard output to {@link #getReader()} while command is still running - so that output could be
+ * parsed incrementally (on separate thread) instead of being fully collected in memory.
+ * <p>
+ * Only limited number of lines is buffered - process output reading is suspended until already buffered lines are consumed by reader.
+ * Standard output of commands with such result builder is not captured by {@link CommandExecutor}.
+ */
+public class StreamingResultBuilder extends LineCommandAdapter {
+
+  private static final int CAPACITY = 4096;
+  private static final long OFFER_TIMEOUT = 100;
+
+  // sentinel value - compared by reference
+  @SuppressWarnings("RedundantStringConstructorCall") private static final String END = new String("");
+
+  @Nonnull private final BlockingQueue<String> myLines = new ArrayBlockingQueue<>(CAPACITY);
+  @Nonnull private final Reader myReader = new LinesReader();
+  private volatile boolean myCancelled;
+  @Nonnull private final AtomicBoolean myFinished = new AtomicBoolean();
+  private volatile boolean myHasOutput;
+
+  @Nonnull
+  public Reader getReader() {
+    return myReader;
+  }
+
+  /**
+   * @return true if at least one line was written to standard output by the command
+   */
+  public boolean hasOutput() {
+    return myHasOutput;
+  }
+
+  @Override
+  public void onLineAvailable(String line, Key outputType) {
+    if (ProcessOutputTypes.STDOUT == outputType && !myFinished.get()) {
+      myHasOutput = true;
+      put(line);
+    }
+  }
+
+  @Override
+  public void processTerminated(int exitCode) {
+    // failed command without output could be repeated (for instance, with new credentials) - so output is not finished, command
+    // initiator calls finish() when execution is completed
+    if (exitCode == 0 || myHasOutput) {
+      finish();
+    }
+  }
+
+  @Override
+  public void startFailed(Throwable exception) {
+    finish();
+  }
+
+  /**
+   * Indicates that no more output will be available. Should also be called by command initiator after command execution finished - as
+   * listener methods are not invoked in some cases (for instance, when process could not be created).
+   */
+  public void finish() {
+    if (myFinished.compareAndSet(false, true)) {
+      if (myCancelled) {
+        myLines.clear();
+      }
+      put(END);
+    }
+  }
+
+  /**
+   * Should be called by reader side if it stopped consuming output (for instance, because of parsing error) - command process will be
+   * destroyed.
+   */
+  @Override
+  public void cancel() {
+    myCancelled = true;
+    myLines.clear();
+  }
+
+  @Override
+  public boolean isCanceled() {
+    return myCancelled;
+  }
+
+  private void put(@Nonnull String line) {
+    try {
+      boolean added = false;
+      while (!added && !myCancelled) {
+        added = myLines.offer(line, OFFER_TIMEOUT, TimeUnit.MILLISECONDS);
+      }
+      // ensure end of output is always available for the reader - even if reader side was cancelled and does not consume lines
+      if (myCancelled && line == END) {
+        myLines.clear();
+        myLines.offer(END);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancel();
+    }
+  }
+
+  private class LinesReader extends Reader {
+
+    private String myLine;
+    private int myPosition;
+    private boolean myEof;
+
+    @Override
+    public int read(@Nonnull char[] buffer, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      if (!ensureLine()) {
+        return -1;
+      }
+
+      int count = 0;
+      while (count < length && myPosition <= myLine.length()) {
+        // line separators are trimmed by ResultBuilderNotifier - so restore them
+        buffer[offset + count++] = myPosition < myLine.length() ? myLine.charAt(myPosition) : '\n';
+        myPosition++;
+      }
+
+      return count;
+    }
+
+    private boolean ensureLine() throws IOException {
+      if (myLine != null && myPosition <= myLine.length()) {
+        return true;
+      }
+      if (myEof) {
+        return false;
+      }
+
+      try {
+        myLine = myLines.take();
+        myPosition = 0;
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+
+      if (myLine == END) {
+        myEof = true;
+        myLine = null;
+      }
+
+      return !myEof;
+    }
+
+    @Override
+    public void close() {
+      // parser could close reader after document is parsed - but process termination is tracked separately
+    }
+  }
+}
@@ -5,6 +5,8 @@ import consulo.versionControlSystem.VcsException;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlRootElement;
+import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.WorkingCopyFormat;
 import org.jetbrains.idea.svn.api.BaseSvnClient;
 import org.jetbrains.idea.svn.commandLine.CommandExecutor;
 import org.jetbrains.idea.svn.commandLine.CommandUtil;
@@ -16,6 +18,10 @@ import org.tmatesoft.svn.core.wc2.SvnTarget;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,6 +30,29 @@ import java.util.List;
  */
 public class CmdHistoryClient extends BaseSvnClient implements HistoryClient {
 
+  private static final String LOG_ENTRY = "logentry";
+
+  /**
+   * Log entries are parsed and passed to handler while command is running - not to keep whole (potentially very large) xml document in
+   * memory.
+   */
+  public static final boolean STREAM_LOG = !Boolean.getBoolean("svn.do.not.stream.log");
+
+  @Override
+  public void doLog(@Nonnull SvnTarget target,
+                    @Nonnull SVNRevision startRevision,
+                    @Nonnull SVNRevision endRevision,
+                    boolean stopOnCopy,
+                    boolean discoverChangedPaths,
+                    boolean includeMergedRevisions,
+                    long limit,
+                    @Nullable String[] revisionProperties,
+                    @Nullable LogEntryConsumer handler) throws VcsException
+  {
+    doLog(target, startRevision, endRevision, stopOnCopy, discoverChangedPaths, includeMergedRevisions, limit, revisionProperties, null,
+          handler);
+  }
+
   @Override
   public void doLog(@Nonnull SvnTarget target,
                     @Nonnull SVNRevision startRevision,
@@ -33,21 +62,76 @@ public class CmdHistoryClient extends BaseSvnClient implements HistoryClient {
                     boolean includeMergedRevisions,
                     long limit,
                     @Nullable String[] revisionProperties,
+                    @Nullable String[] searchPatterns,
                     @Nullable LogEntryConsumer handler) throws VcsException
   {
     // TODO: add revision properties parameter if necessary
 
     List<String> parameters =
       prepareCommand(target, startRevision, endRevision, stopOnCopy, discoverChangedPaths, includeMergedRevisions, limit);
+    boolean search = searchPatterns != null && searchPatterns.length > 0 && isSearchSupported();
+    if (search) {
+      for (String pattern : searchPatterns) {
+        parameters.add("--search");
+        parameters.add(pattern);
+      }
+    }
+    // older clients do not support search - so entries are filtered here
+    LogEntryConsumer consumer = search ? handler : LogSearchFilter.wrap(searchPatterns, handler);
+
+    if (STREAM_LOG) {
+      // command is executed on other thread - so handler is still called on current thread
+      executeStreaming(myVcs, target, SvnCommandName.log, parameters, output -> parseOutput(output, consumer));
+    }
+    else {
+      try {
+        CommandExecutor command = execute(myVcs, target, SvnCommandName.log, parameters, null);
+        parseOutput(command, consumer);
+      }
+      catch (SVNException e) {
+        throw new SvnBindException(e);
+      }
+    }
+  }
+
+  /**
+   * "--search" option is supported starting from svn 1.8. Version is cached by {@link SvnVcs} - so "svn --version" is not run for each
+   * log request.
+   */
+  private boolean isSearchSupported() throws SvnBindException {
+    return WorkingCopyFormat.from(myVcs.getCommandLineVersion()).isOrGreater(WorkingCopyFormat.ONE_DOT_EIGHT);
+  }
+
+  /**
+   * Each top level "logentry" element (with all nested merged revisions entries) is passed to handler as soon as it is parsed.
+   */
+  private static void parseOutput(@Nonnull Reader output, @Nullable LogEntryConsumer handler)
+    throws XMLStreamException, JAXBException, SVNException {
+    XMLStreamReader reader = CommandUtil.newXmlStreamReader(output);
 
     try {
-      CommandExecutor command = execute(myVcs, target, SvnCommandName.log, parameters, null);
-      // TODO: handler should be called in parallel with command execution, but this will be in other thread
-      // TODO: check if that is ok for current handler implementation
-      parseOutput(command, handler);
+      int event = reader.getEventType();
+
+      while (true) {
+        if (event == XMLStreamConstants.START_ELEMENT && LOG_ENTRY.equals(reader.getLocalName())) {
+          LogEntry.Builder entry = CommandUtil.parse(reader, LogEntry.Builder.class);
+
+          if (handler != null) {
+            iterateRecursively(entry, handler);
+          }
+          // reader is already positioned after parsed element
+          event = reader.getEventType();
+        }
+        else if (reader.hasNext()) {
+          event = reader.next();
+        }
+        else {
+          break;
+        }
+      }
     }
-    catch (SVNException e) {
-      throw new SvnBindException(e);
+    finally {
+      reader.close();
     }
   }
 
@@ -103,7 +187,7 @@ public class CmdHistoryClient extends BaseSvnClient implements HistoryClient {
   @XmlRootElement(name = "log")
   public static class LogInfo {
 
-    @XmlElement(name = "logentry")
+    @XmlElement(name = LOG_ENTRY)
     public List<LogEntry.Builder> entries = ContainerUtil.newArrayList();
   }
 }
@@ -0,0 +1,72 @@
+package org.jetbrains.idea.svn.history;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Variable-length encoding of numbers and strings used by {@link RevisionLogIndex} and {@link SvnChangeList} serialization.
+ */
+class CompactStreamUtil {
+
+  private CompactStreamUtil() {
+  }
+
+  static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Writes non-negative value - 7 bits per byte, so small values take single byte.
+   */
+  static void writeVarLong(@Nonnull DataOutput out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int)(value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int)value);
+  }
+
+  static long readVarLong(@Nonnull DataInput in) throws IOException {
+    long result = 0;
+
+    for (int shift = 0; ; shift += 7) {
+      byte b = in.readByte();
+      result |= (long)(b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return result;
+    }
+  }
+
+  static int readVarInt(@Nonnull DataInput in) throws IOException {
+    return (int)readVarLong(in);
+  }
+
+  static void writeString(@Nonnull DataOutput out, @Nullable String value) throws IOException {
+    // commit messages could be longer than supported by DataOutput.writeUTF()
+    byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+
+    writeVarLong(out, bytes != null ? bytes.length + 1 : 0);
+    if (bytes != null) {
+      out.write(bytes);
+    }
+  }
+
+  @Nullable
+  static String readString(@Nonnull DataInput in) throws IOException {
+    int length = readVarInt(in) - 1;
+    if (length < 0) {
+      return null;
+    }
+
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
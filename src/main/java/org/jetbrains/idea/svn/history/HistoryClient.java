@@ -22,4 +22,19 @@ public interface HistoryClient extends SvnClient {
              long limit,
              @Nullable String[] revisionProperties,
              @Nullable LogEntryConsumer handler) throws VcsException;
+
+  /**
+   * @param searchPatterns if specified, only log entries which author, message or changed paths match any of given glob patterns are
+   *                       passed to handler ("svn log --search" semantics). {@code limit} is applied before such filtering.
+   */
+  void doLog(@Nonnull SvnTarget target,
+             @Nonnull SVNRevision startRevision,
+             @Nonnull SVNRevision endRevision,
+             boolean stopOnCopy,
+             boolean discoverChangedPaths,
+             boolean includeMergedRevisions,
+             long limit,
+             @Nullable String[] revisionProperties,
+             @Nullable String[] searchPatterns,
+             @Nullable LogEntryConsumer handler) throws VcsException;
 }
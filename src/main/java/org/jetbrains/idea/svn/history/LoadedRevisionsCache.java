@@ -24,7 +24,7 @@ import consulo.ide.impl.idea.openapi.vcs.changes.committed.CommittedChangesAdapt
 import consulo.ide.impl.idea.openapi.vcs.changes.committed.CommittedChangesListener;
 import consulo.logging.Logger;
 import consulo.project.Project;
-import consulo.util.collection.ContainerUtil;
+import consulo.util.lang.StringUtil;
 import consulo.versionControlSystem.RepositoryLocation;
 import consulo.versionControlSystem.versionBrowser.CommittedChangeList;
 import jakarta.inject.Inject;
@@ -33,15 +33,33 @@ import jakarta.inject.Singleton;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Keeps change lists already loaded for repository browser views - so switching back to view of some location does not load its history
+ * from server once again.
+ * <p>
+ * Cache size is limited by approximate number of bytes retained by cached lists ({@link #MAX_BYTES}) - least recently used locations are
+ * evicted first. When new changes are loaded for some location, only cached lists of this location (and of its parent and child
+ * locations) are dropped and only iterators of these locations become invalid. Hit rate is reported with {@link #getStatistics()}.
+ */
 @Singleton
 public class LoadedRevisionsCache implements Disposable {
   private static final Logger LOG = Logger.getInstance(LoadedRevisionsCache.class);
 
+  public static final long MAX_BYTES = Long.getLong("svn.loaded.revisions.cache.max.bytes", 32L * 1024 * 1024);
+  private static final long DEFAULT_LIST_SIZE = 1024;
+
   private final Project myProject;
-  private final Map<String, Bunch> myMap;
-  private final Object refreshLock = new Object();
-  private long myRefreshTime;
+  @Nonnull private final Object myLock = new Object();
+  // key - location url, access ordered
+  @Nonnull private final LinkedHashMap<String, Bunch> myMap = new LinkedHashMap<>(16, 0.75f, true);
+  private long myBytes;
+  // key - location url, value - time when cached lists of location were invalidated last time
+  @Nonnull private final Map<String, Long> myRefreshTimes = new HashMap<>();
+  @Nonnull private final AtomicLong myHits = new AtomicLong();
+  @Nonnull private final AtomicLong myMisses = new AtomicLong();
+  @Nonnull private final AtomicLong myEvictions = new AtomicLong();
   private final MessageBusConnection myConnection;
 
   public static LoadedRevisionsCache getInstance(final Project project) {
@@ -51,7 +69,6 @@ public class LoadedRevisionsCache implements Disposable {
   @Inject
   private LoadedRevisionsCache(final Project project) {
     myProject = project;
-    myMap = ContainerUtil.createSoftMap();
 
     myConnection = project.getMessageBus().connect();
     myConnection.subscribe(CommittedChangesListener.class, new CommittedChangesAdapter() {
@@ -61,24 +78,48 @@ public class LoadedRevisionsCache implements Disposable {
                                 final List<CommittedChangeList> changes) {
         ApplicationManager.getApplication().invokeLater(new Runnable() {
           public void run() {
-            myMap.clear();
-            setRefreshTime(System.currentTimeMillis());
+            invalidate(location);
           }
         });
       }
     });
-    setRefreshTime(0);
   }
 
-  private long getRefreshTime() {
-    synchronized (refreshLock) {
-      return myRefreshTime;
+  private void invalidate(@Nonnull RepositoryLocation location) {
+    String url = location instanceof SvnRepositoryLocation ? ((SvnRepositoryLocation)location).getURL() : location.toPresentableString();
+    long time = System.currentTimeMillis();
+
+    synchronized (myLock) {
+      Set<String> locations = new HashSet<>(myMap.keySet());
+      locations.addAll(myRefreshTimes.keySet());
+      locations.add(url);
+
+      for (String cachedUrl : locations) {
+        if (isRelated(url, cachedUrl)) {
+          Bunch bunch = myMap.remove(cachedUrl);
+          if (bunch != null) {
+            myBytes -= bunch.myChainSize;
+          }
+          myRefreshTimes.put(cachedUrl, time);
+        }
+      }
     }
   }
 
-  private void setRefreshTime(final long refreshTime) {
-    synchronized (refreshLock) {
-      myRefreshTime = refreshTime;
+  private static boolean isRelated(@Nonnull String url1, @Nonnull String url2) {
+    return isAncestor(url1, url2) || isAncestor(url2, url1);
+  }
+
+  private static boolean isAncestor(@Nonnull String parent, @Nonnull String child) {
+    String prefix = StringUtil.trimEnd(parent, "/");
+
+    return child.startsWith(prefix) && (child.length() == prefix.length() || child.charAt(prefix.length()) == '/');
+  }
+
+  private long getRefreshTime(@Nonnull String location) {
+    synchronized (myLock) {
+      Long time = myRefreshTimes.get(location);
+      return time != null ? time : 0;
     }
   }
 
@@ -90,9 +131,58 @@ public class LoadedRevisionsCache implements Disposable {
   }
 
   public void dispose() {
+    LOG.info(getStatistics());
     // TODO: Seems that dispose could be removed as connection will be disposed anyway on project dispose and clearing map is not necessary
     myConnection.disconnect();
-    myMap.clear();
+    synchronized (myLock) {
+      myMap.clear();
+      myBytes = 0;
+    }
+  }
+
+  public long getHitCount() {
+    return myHits.get();
+  }
+
+  public long getMissCount() {
+    return myMisses.get();
+  }
+
+  public long getEvictionCount() {
+    return myEvictions.get();
+  }
+
+  @Nonnull
+  public String getStatistics() {
+    long hits = myHits.get();
+    long total = hits + myMisses.get();
+
+    synchronized (myLock) {
+      return String.format("Loaded revisions cache: %d locations, %d bytes, hits %d of %d (%d%%), %d evictions", myMap.size(), myBytes,
+                           hits, total, total > 0 ? hits * 100 / total : 0, myEvictions.get());
+    }
+  }
+
+  private void cache(@Nonnull String location, @Nonnull Bunch bunch) {
+    synchronized (myLock) {
+      Bunch previous = myMap.put(location, bunch);
+
+      myBytes += bunch.myChainSize - (previous != null ? previous.myChainSize : 0);
+      Iterator<Bunch> iterator = myMap.values().iterator();
+      // just added location is always kept
+      while (myBytes > MAX_BYTES && myMap.size() > 1) {
+        myBytes -= iterator.next().myChainSize;
+        iterator.remove();
+        myEvictions.incrementAndGet();
+      }
+    }
+  }
+
+  @Nullable
+  private Bunch getCached(@Nonnull String location) {
+    synchronized (myLock) {
+      return myMap.get(location);
+    }
   }
 
   @Nonnull
@@ -130,7 +220,7 @@ public class LoadedRevisionsCache implements Disposable {
 
     Bunch bindToBunch = bindTo;
     if (bindToBunch == null) {
-      final Bunch fromCache = myMap.get(location);
+      final Bunch fromCache = getCached(location);
       if (fromCache != null) {
         final long passedSmallestNumber = data.get(data.size() - 1).getNumber();
         final List<CommittedChangeList> cachedList = fromCache.getList();
@@ -148,24 +238,28 @@ public class LoadedRevisionsCache implements Disposable {
       consistent = true;
     }
 
-    myMap.put(location, bindToBunch);
+    cache(location, bindToBunch);
     return bindToBunch;
   }
 
   @Nullable
   public Iterator<ChangesBunch> iterator(final String location) {
-    final Bunch bunch = myMap.get(location);
+    final Bunch bunch = getCached(location);
     if (bunch == null) {
+      myMisses.incrementAndGet();
       return null;
     }
-    return new BunchIterator(bunch);
+    myHits.incrementAndGet();
+    return new BunchIterator(location, bunch);
   }
 
   private class BunchIterator implements Iterator<ChangesBunch> {
+    @Nonnull private final String myLocation;
     private final long myCreationTime;
     private Bunch myBunch;
 
-    private BunchIterator(final Bunch bunch) {
+    private BunchIterator(@Nonnull String location, final Bunch bunch) {
+      myLocation = location;
       myBunch = bunch;
       myCreationTime = System.currentTimeMillis();
     }
@@ -173,7 +267,7 @@ public class LoadedRevisionsCache implements Disposable {
     private void checkValidity() {
       ApplicationManager.getApplication().assertIsDispatchThread();
 
-      if (myCreationTime <= getRefreshTime()) {
+      if (myCreationTime <= getRefreshTime(myLocation)) {
         throw new SwitchRevisionsProviderException();
       }
     }
@@ -197,12 +291,24 @@ public class LoadedRevisionsCache implements Disposable {
 
   public static class Bunch extends ChangesBunch {
     private final Bunch myNext;
+    // estimated size of this and all next bunches
+    private final long myChainSize;
 
     private Bunch(final List<CommittedChangeList> list,
                   final boolean consistent,
                   final Bunch next) {
       super(list, consistent);
       myNext = next;
+      myChainSize = estimateSize(list) + (next != null ? next.myChainSize : 0);
+    }
+
+    private static long estimateSize(@Nonnull List<CommittedChangeList> list) {
+      long result = 0;
+
+      for (CommittedChangeList changeList : list) {
+        result += changeList instanceof SvnChangeList ? ((SvnChangeList)changeList).estimateSize() : DEFAULT_LIST_SIZE;
+      }
+      return result;
     }
 
     public Bunch getNext() {
@@ -0,0 +1,96 @@
+package org.jetbrains.idea.svn.history;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Filters log entries in the same way as "svn log --search" does - entry is accepted if its author, message or any of changed paths
+ * matches any of given glob patterns (case-insensitive, pattern could match any part of text). Used if search could not be performed by
+ * "svn" itself.
+ */
+class LogSearchFilter {
+
+  @Nonnull private final List<Pattern> myPatterns = new ArrayList<>();
+
+  LogSearchFilter(@Nonnull String[] patterns) {
+    for (String pattern : patterns) {
+      myPatterns.add(Pattern.compile(".*" + toRegex(pattern) + ".*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL));
+    }
+  }
+
+  /**
+   * @return handler that passes only matching entries to given handler
+   */
+  @Nullable
+  static LogEntryConsumer wrap(@Nullable String[] patterns, @Nullable LogEntryConsumer handler) {
+    if (patterns == null || patterns.length == 0 || handler == null) return handler;
+
+    LogSearchFilter filter = new LogSearchFilter(patterns);
+    return logEntry -> {
+      if (logEntry == LogEntry.EMPTY || filter.accepts(logEntry)) {
+        handler.consume(logEntry);
+      }
+    };
+  }
+
+  boolean accepts(@Nonnull LogEntry entry) {
+    if (matches(entry.getAuthor()) || matches(entry.getMessage())) return true;
+
+    for (String path : entry.getChangedPaths().keySet()) {
+      if (matches(path)) return true;
+    }
+    return false;
+  }
+
+  private boolean matches(@Nullable String text) {
+    if (text == null) return false;
+
+    for (Pattern pattern : myPatterns) {
+      if (pattern.matcher(text).matches()) return true;
+    }
+    return false;
+  }
+
+  @Nonnull
+  private static String toRegex(@Nonnull String glob) {
+    StringBuilder result = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+
+    for (int i = 0; i < glob.length(); i++) {
+      char c = glob.charAt(i);
+      int classEnd = c == '[' ? glob.indexOf(']', i + 2) : -1;
+
+      if (c == '\\' && i + 1 < glob.length()) {
+        literal.append(glob.charAt(++i));
+      }
+      else if (c == '*' || c == '?' || classEnd != -1) {
+        if (literal.length() > 0) {
+          result.append(Pattern.quote(literal.toString()));
+          literal.setLength(0);
+        }
+        if (c == '*') {
+          result.append(".*");
+        }
+        else if (c == '?') {
+          result.append('.');
+        }
+        else {
+          String characters = glob.substring(i + 1, classEnd);
+          result.append('[').append(characters.startsWith("!") ? "^" + characters.substring(1) : characters).append(']');
+          i = classEnd;
+        }
+      }
+      else {
+        literal.append(c);
+      }
+    }
+    if (literal.length() > 0) {
+      result.append(Pattern.quote(literal.toString()));
+    }
+
+    return result.toString();
+  }
+}
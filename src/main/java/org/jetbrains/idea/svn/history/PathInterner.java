@@ -0,0 +1,38 @@
+package org.jetbrains.idea.svn.history;
+
+import consulo.util.collection.ContainerUtil;
+
+import javax.annotation.Nonnull;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Interns repository paths of {@link SvnChangeList}s - lists of the same repository usually contain the same paths (or paths are shared
+ * by list and its copy sources), so only single string instance is kept for each path. Paths are referenced weakly - they are dropped
+ * when no change list refers them.
+ */
+class PathInterner {
+
+  // key - repository root url
+  @Nonnull private static final Map<String, PathInterner> ourInterners = ContainerUtil.newConcurrentMap();
+
+  @Nonnull private final Map<String, WeakReference<String>> myPaths = new WeakHashMap<>();
+
+  @Nonnull
+  static PathInterner getInstance(@Nonnull String repositoryRoot) {
+    return ourInterners.computeIfAbsent(repositoryRoot, root -> new PathInterner());
+  }
+
+  @Nonnull
+  synchronized String intern(@Nonnull String path) {
+    WeakReference<String> reference = myPaths.get(path);
+    String result = reference != null ? reference.get() : null;
+
+    if (result == null) {
+      result = path;
+      myPaths.put(result, new WeakReference<>(result));
+    }
+    return result;
+  }
+}
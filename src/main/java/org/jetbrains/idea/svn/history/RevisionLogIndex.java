@@ -0,0 +1,708 @@
+package org.jetbrains.idea.svn.history;
+
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.ProgressManager;
+import consulo.application.progress.Task;
+import consulo.component.ProcessCanceledException;
+import consulo.container.boot.ContainerPathManager;
+import consulo.logging.Logger;
+import consulo.util.collection.ContainerUtil;
+import consulo.project.Project;
+import consulo.util.io.BufferExposingByteArrayOutputStream;
+import consulo.util.io.FileUtil;
+import consulo.util.io.UnsyncByteArrayInputStream;
+import consulo.versionControlSystem.VcsException;
+import org.jetbrains.idea.svn.SvnUtil;
+import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.api.NodeKind;
+import org.jetbrains.idea.svn.commandLine.SvnBindException;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc2.SvnTarget;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.readString;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.readVarLong;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.unZigZag;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.writeString;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.writeVarLong;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.zigZag;
+
+/**
+ * Persistent append-only index of repository log - revision metadata and changed paths of all repository revisions, so log queries
+ * (revision or date interval, author, path prefix) could be answered locally instead of running "svn log" for each query.
+ * <p>
+ * Index is kept per repository uuid and is synchronized incrementally - only revisions after last indexed one are requested from
+ * server (see {@link #getSynchronized(SvnVcs, SVNURL)}). Index is kept in memory while some project uses it (see
+ * {@link #release(Project)}). Data is stored in segments (one segment per {@link #SEGMENT_SIZE} revisions)
+ * with each column (revisions, dates, authors, messages, changed paths) written separately and strings (authors and paths) replaced with
+ * indexes in dictionary shared by all segments. The same columnar layout is used in memory.
+ * <p>
+ * Index is not used if repository root could not be read completely (for instance, because of path based authorization).
+ */
+public class RevisionLogIndex {
+
+  private static final Logger LOG = Logger.getInstance(RevisionLogIndex.class);
+
+  public static final boolean ENABLED = Boolean.getBoolean("svn.log.use.index");
+  public static final int SEGMENT_SIZE = 1000;
+  /**
+   * Repository HEAD is requested at most once per this interval (in milliseconds) - not on every log query. So revisions committed less
+   * than this interval ago could be missing in query results.
+   */
+  public static final long HEAD_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+  private static final int VERSION = 1;
+  private static final int NONE = -1;
+
+  // key - repository uuid, single instance for all projects - so the same file is never appended concurrently
+  // guarded by itself, as well as users of all indexes
+  @Nonnull private static final Map<String, RevisionLogIndex> ourIndexes = new HashMap<>();
+  // key - repository root url, value - repository uuid
+  @Nonnull private static final Map<String, String> ourUuids = ContainerUtil.newConcurrentMap();
+
+  @Nonnull private final File myFile;
+  @Nonnull private final Object myLock = new Object();
+  @Nonnull private final Set<Project> myUsers = new HashSet<>();
+  @Nonnull private final AtomicBoolean mySyncing = new AtomicBoolean();
+  @Nullable private volatile ProgressIndicator mySyncIndicator;
+  private volatile boolean myDisposed;
+  private volatile boolean myUnavailable;
+  private boolean myLoaded;
+  // set if index file could not be written - then index is kept only in memory
+  private boolean myNotPersisted;
+  private long myValidLength;
+  private long mySyncedRevision;
+  // accessed only by thread that synchronizes index
+  private long myHeadRevision = NONE;
+  private long myHeadCheckTime;
+
+  @Nonnull private final List<String> myStrings = new ArrayList<>();
+  @Nonnull private final Map<String, Integer> myStringIndexes = new HashMap<>();
+  private int mySize;
+  @Nonnull private long[] myRevisions = new long[0];
+  // 0 - no date, otherwise date in milliseconds + 1
+  @Nonnull private long[] myDates = new long[0];
+  @Nonnull private int[] myAuthors = new int[0];
+  @Nonnull private String[] myMessages = new String[0];
+  // changed paths of i-th revision are stored at [myPathOffsets[i], myPathOffsets[i + 1])
+  @Nonnull private int[] myPathOffsets = new int[1];
+  private int myPathsSize;
+  @Nonnull private int[] myPaths = new int[0];
+  @Nonnull private byte[] myActions = new byte[0];
+  @Nonnull private byte[] myKinds = new byte[0];
+  @Nonnull private int[] myCopyPaths = new int[0];
+  @Nonnull private long[] myCopyRevisions = new long[0];
+
+  private RevisionLogIndex(@Nonnull File file) {
+    myFile = file;
+  }
+
+  @Nonnull
+  private static RevisionLogIndex getInstance(@Nonnull Project project, @Nonnull String repositoryUuid) {
+    synchronized (ourIndexes) {
+      RevisionLogIndex result = ourIndexes.computeIfAbsent(repositoryUuid, uuid -> {
+        File directory = new File(new File(ContainerPathManager.get().getSystemPath(), "vcs"), "svn_log_index");
+        directory.mkdirs();
+        return new RevisionLogIndex(new File(directory, uuid));
+      });
+      result.myUsers.add(project);
+      return result;
+    }
+  }
+
+  /**
+   * Unloads indexes that are not used by other projects. Indexes are loaded again (from disk) on next request.
+   */
+  public static void release(@Nonnull Project project) {
+    synchronized (ourIndexes) {
+      for (Iterator<RevisionLogIndex> iterator = ourIndexes.values().iterator(); iterator.hasNext(); ) {
+        RevisionLogIndex index = iterator.next();
+
+        if (index.myUsers.remove(project) && index.myUsers.isEmpty()) {
+          iterator.remove();
+          index.dispose();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return index of given repository synchronized with repository HEAD or null if index could not be used (at least currently)
+   */
+  @Nullable
+  public static RevisionLogIndex getSynchronized(@Nonnull SvnVcs vcs, @Nonnull SVNURL repositoryRoot) {
+    if (!ENABLED) return null;
+
+    String rootUrl = repositoryRoot.toString();
+    String uuid = ourUuids.get(rootUrl);
+    if (uuid == null) {
+      uuid = SvnUtil.getRepositoryUUID(vcs, repositoryRoot);
+      if (uuid == null) return null;
+      ourUuids.put(rootUrl, uuid);
+    }
+
+    RevisionLogIndex index = getInstance(vcs.getProject(), uuid);
+    try {
+      return index.synchronize(vcs, repositoryRoot) ? index : null;
+    }
+    catch (VcsException e) {
+      LOG.info("Could not synchronize log index of " + repositoryRoot, e);
+      return null;
+    }
+  }
+
+  public long getSyncedRevision() {
+    synchronized (myLock) {
+      return mySyncedRevision;
+    }
+  }
+
+  /**
+   * Loads revisions after last indexed one up to current repository HEAD. If there are many such revisions (for instance, when index is
+   * created), they are loaded by background task - and "svn log" should be used until that task is finished. Queries are also not
+   * answered with index while other thread synchronizes it.
+   *
+   * @return false if index could not be used for this repository or could not be used now
+   */
+  private boolean synchronize(@Nonnull SvnVcs vcs, @Nonnull SVNURL repositoryRoot) throws VcsException {
+    if (myUnavailable || myDisposed || !mySyncing.compareAndSet(false, true)) return false;
+
+    boolean inBackground = false;
+    try {
+      long head = getHeadRevision(vcs, repositoryRoot);
+      long syncedRevision = ensureLoaded();
+      if (head <= syncedRevision) return true;
+
+      if (head - syncedRevision > SEGMENT_SIZE) {
+        startBackgroundSync(vcs, repositoryRoot, head);
+        inBackground = true;
+        return false;
+      }
+      return loadRevisions(vcs, repositoryRoot, syncedRevision, head);
+    }
+    finally {
+      if (!inBackground) {
+        mySyncing.set(false);
+      }
+    }
+  }
+
+  private long getHeadRevision(@Nonnull SvnVcs vcs, @Nonnull SVNURL repositoryRoot) throws VcsException {
+    long now = System.currentTimeMillis();
+
+    if (myHeadRevision == NONE || now - myHeadCheckTime >= HEAD_CHECK_INTERVAL) {
+      myHeadRevision = SvnUtil.getHeadRevision(vcs, repositoryRoot).getNumber();
+      myHeadCheckTime = now;
+    }
+    return myHeadRevision;
+  }
+
+  private void startBackgroundSync(@Nonnull SvnVcs vcs, @Nonnull SVNURL repositoryRoot, long head) {
+    ProgressManager.getInstance().run(new Task.Backgroundable(vcs.getProject(), "Indexing Subversion log of " + repositoryRoot, true) {
+      @Override
+      public void run(@Nonnull ProgressIndicator indicator) {
+        mySyncIndicator = indicator;
+        try {
+          if (!myDisposed) {
+            loadRevisions(vcs, repositoryRoot, getSyncedRevision(), head);
+          }
+        }
+        catch (VcsException e) {
+          LOG.info("Could not synchronize log index of " + repositoryRoot, e);
+        }
+        finally {
+          mySyncIndicator = null;
+          mySyncing.set(false);
+        }
+      }
+    });
+  }
+
+  private void dispose() {
+    myDisposed = true;
+
+    ProgressIndicator indicator = mySyncIndicator;
+    if (indicator != null) {
+      indicator.cancel();
+    }
+  }
+
+  /**
+   * Should be called only by thread that synchronizes index (so {@link #mySyncedRevision} could not be changed concurrently).
+   *
+   * @return false if repository log could not be read completely
+   */
+  private boolean loadRevisions(@Nonnull SvnVcs vcs, @Nonnull SVNURL repositoryRoot, long syncedRevision, long head)
+    throws VcsException {
+    SvnTarget target = SvnTarget.fromURL(repositoryRoot);
+    List<LogEntry> batch = new ArrayList<>();
+    boolean completed = false;
+
+    try {
+      vcs.getFactory(target).createHistoryClient()
+         .doLog(target, SVNRevision.create(syncedRevision + 1), SVNRevision.create(head), false, true, false, 0, null, logEntry -> {
+           if (myDisposed) throw new ProcessCanceledException();
+           ProgressManager.checkCanceled();
+           if (logEntry.getDate() == null) {
+             // some paths could not be read - index would be incomplete
+             throw new SVNException(
+               SVNErrorMessage.create(SVNErrorCode.RA_NOT_AUTHORIZED, "Repository log could not be read completely"));
+           }
+
+           batch.add(logEntry);
+           if (batch.size() == SEGMENT_SIZE) {
+             append(batch, logEntry.getRevision());
+             batch.clear();
+           }
+         });
+      completed = true;
+    }
+    catch (SvnBindException e) {
+      if (!e.contains(SVNErrorCode.RA_NOT_AUTHORIZED)) throw e;
+
+      // repository root (or some of its paths) could not be read
+      myUnavailable = true;
+      LOG.info("Log index is not used for " + repositoryRoot, e);
+      return false;
+    }
+    finally {
+      // already loaded revisions are kept even if synchronization was cancelled
+      if (!batch.isEmpty() || completed) {
+        append(batch, completed ? head : batch.get(batch.size() - 1).getRevision());
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Passes log entries of given repository path to handler - in the same way as "svn log" for path url does. Copies of path (or its
+   * parents) are followed unless {@code stopOnCopy} is set.
+   *
+   * @param path           path relative to repository root, starting with "/"
+   * @param startRevision  youngest revision
+   * @param endRevision    oldest revision
+   * @return false if query could not be answered with index and "svn log" should be used
+   */
+  public boolean query(@Nonnull String path,
+                       @Nonnull SVNRevision startRevision,
+                       @Nonnull SVNRevision endRevision,
+                       boolean stopOnCopy,
+                       long limit,
+                       @Nonnull LogEntryConsumer handler) throws VcsException {
+    List<LogEntry> result = new ArrayList<>();
+
+    synchronized (myLock) {
+      long start = resolve(startRevision);
+      long end = resolve(endRevision);
+      if (start < 0 || end < 0 || start < end || start > mySyncedRevision) return false;
+
+      String current = path;
+      for (int i = findIndex(start); i >= 0 && myRevisions[i] >= end; i--) {
+        boolean matches = false;
+        int boundary = NONE;
+
+        for (int j = myPathOffsets[i]; j < myPathOffsets[i + 1]; j++) {
+          String changedPath = myStrings.get(myPaths[j]);
+
+          if (isAncestor(current, changedPath)) {
+            matches = true;
+          }
+          if (isAncestor(changedPath, current) && (myActions[j] == 'A' || myActions[j] == 'R')) {
+            matches = true;
+            boundary = j;
+          }
+        }
+
+        if (matches) {
+          result.add(createEntry(i));
+          if (limit > 0 && result.size() == limit) break;
+        }
+        if (boundary != NONE) {
+          String changedPath = myStrings.get(myPaths[boundary]);
+
+          if (stopOnCopy || myCopyPaths[boundary] == NONE) break;
+          // path was copied - continue with copy source
+          current = myStrings.get(myCopyPaths[boundary]) + current.substring(changedPath.length());
+          i = findIndex(myCopyRevisions[boundary]) + 1;
+        }
+      }
+    }
+
+    // path could be deleted or not exist at start revision - "svn log" will report corresponding error
+    if (result.isEmpty()) return false;
+
+    try {
+      for (LogEntry entry : result) {
+        handler.consume(entry);
+      }
+    }
+    catch (SVNException e) {
+      throw new SvnBindException(e);
+    }
+    return true;
+  }
+
+  /**
+   * @return path of given url relative to repository root, starting with "/"
+   */
+  @Nullable
+  public static String getRepositoryPath(@Nonnull SVNURL repositoryRoot, @Nonnull SVNURL url) {
+    String rootPath = repositoryRoot.getPath();
+    String path = url.getPath();
+    if (!isAncestor(rootPath, path)) return null;
+
+    String result = path.substring(rootPath.length());
+    return result.isEmpty() ? "/" : result;
+  }
+
+  private static boolean isAncestor(@Nonnull String ancestor, @Nonnull String path) {
+    return path.startsWith(ancestor) &&
+           (path.length() == ancestor.length() || ancestor.endsWith("/") || path.charAt(ancestor.length()) == '/');
+  }
+
+  private long resolve(@Nonnull SVNRevision revision) {
+    if (SVNRevision.HEAD.equals(revision)) return mySyncedRevision;
+    if (revision.getNumber() >= 0) return revision.getNumber();
+    if (revision.getDate() != null) {
+      // youngest revision committed before given date - as "svn" does
+      long date = revision.getDate().getTime() + 1;
+      int result = NONE;
+
+      for (int i = 0; i < mySize && myDates[i] <= date; i++) {
+        result = i;
+      }
+      return result != NONE ? myRevisions[result] : 0;
+    }
+    return NONE;
+  }
+
+  /**
+   * @return index of the youngest revision that is not younger than given one
+   */
+  private int findIndex(long revision) {
+    int index = Arrays.binarySearch(myRevisions, 0, mySize, revision);
+
+    return index >= 0 ? index : -index - 2;
+  }
+
+  @Nonnull
+  private LogEntry createEntry(int index) {
+    LogEntry.Builder builder = new LogEntry.Builder()
+      .setRevision(myRevisions[index])
+      .setAuthor(getString(myAuthors[index]))
+      .setDate(myDates[index] != 0 ? new Date(myDates[index] - 1) : null)
+      .setMessage(myMessages[index])
+      .setHasChildren(false);
+
+    for (int j = myPathOffsets[index]; j < myPathOffsets[index + 1]; j++) {
+      builder.addPath(new LogEntryPath.Builder()
+                        .setPath(myStrings.get(myPaths[j]))
+                        .setType((char)myActions[j])
+                        .setKind(NodeKind.values()[myKinds[j]])
+                        .setCopyFromPath(getString(myCopyPaths[j]))
+                        .setCopyFromRevision(myCopyRevisions[j]));
+    }
+
+    return builder.build();
+  }
+
+  @Nullable
+  private String getString(int index) {
+    return index != NONE ? myStrings.get(index) : null;
+  }
+
+  private int getStringIndex(@Nullable String value, @Nonnull List<String> newStrings) {
+    if (value == null) return NONE;
+
+    return myStringIndexes.computeIfAbsent(value, key -> {
+      myStrings.add(key);
+      newStrings.add(key);
+      return myStrings.size() - 1;
+    });
+  }
+
+  private void add(@Nonnull LogEntry entry, @Nonnull List<String> newStrings) {
+    ensureCapacity(mySize + 1, myPathsSize + entry.getChangedPaths().size());
+
+    myRevisions[mySize] = entry.getRevision();
+    myDates[mySize] = entry.getDate() != null ? entry.getDate().getTime() + 1 : 0;
+    myAuthors[mySize] = getStringIndex(entry.getAuthor(), newStrings);
+    myMessages[mySize] = entry.getMessage();
+
+    for (LogEntryPath path : entry.getChangedPaths().values()) {
+      myPaths[myPathsSize] = getStringIndex(path.getPath(), newStrings);
+      myActions[myPathsSize] = (byte)path.getType();
+      myKinds[myPathsSize] = (byte)path.getKind().ordinal();
+      myCopyPaths[myPathsSize] = getStringIndex(path.getCopyPath(), newStrings);
+      myCopyRevisions[myPathsSize] = path.getCopyRevision();
+      myPathsSize++;
+    }
+
+    mySize++;
+    myPathOffsets[mySize] = myPathsSize;
+  }
+
+  private void ensureCapacity(int size, int pathsSize) {
+    if (size > myRevisions.length) {
+      int capacity = Math.max(size, myRevisions.length * 3 / 2);
+
+      myRevisions = Arrays.copyOf(myRevisions, capacity);
+      myDates = Arrays.copyOf(myDates, capacity);
+      myAuthors = Arrays.copyOf(myAuthors, capacity);
+      myMessages = Arrays.copyOf(myMessages, capacity);
+      myPathOffsets = Arrays.copyOf(myPathOffsets, capacity + 1);
+    }
+    if (pathsSize > myPaths.length) {
+      int capacity = Math.max(pathsSize, myPaths.length * 3 / 2);
+
+      myPaths = Arrays.copyOf(myPaths, capacity);
+      myActions = Arrays.copyOf(myActions, capacity);
+      myKinds = Arrays.copyOf(myKinds, capacity);
+      myCopyPaths = Arrays.copyOf(myCopyPaths, capacity);
+      myCopyRevisions = Arrays.copyOf(myCopyRevisions, capacity);
+    }
+  }
+
+  /**
+   * Adds entries to index and writes them as new segment.
+   *
+   * @param syncedRevision revision index is synchronized with after adding entries
+   */
+  private void append(@Nonnull List<LogEntry> entries, long syncedRevision) {
+    synchronized (myLock) {
+      int firstIndex = mySize;
+      int firstPathIndex = myPathsSize;
+      List<String> newStrings = new ArrayList<>();
+
+      for (LogEntry entry : entries) {
+        add(entry, newStrings);
+      }
+      mySyncedRevision = syncedRevision;
+
+      if (!myNotPersisted) {
+        write(firstIndex, firstPathIndex, newStrings);
+      }
+    }
+  }
+
+  private void write(int firstIndex, int firstPathIndex, @Nonnull List<String> newStrings) {
+    try {
+      BufferExposingByteArrayOutputStream bos = new BufferExposingByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bos);
+      if (myValidLength == 0) {
+        out.writeInt(VERSION);
+      }
+      writeSegment(out, firstIndex, firstPathIndex, newStrings);
+      out.flush();
+
+      try (RandomAccessFile file = new RandomAccessFile(myFile, "rw")) {
+        // drop incompletely written segment if any
+        file.setLength(myValidLength);
+        file.seek(myValidLength);
+        file.write(bos.getInternalBuffer(), 0, bos.size());
+      }
+      myValidLength += bos.size();
+    }
+    catch (IOException e) {
+      // next segments reference strings and revisions of this one - so index file is deleted and index is kept only in memory until
+      // restart, when it is created once again
+      LOG.info("Could not write log index " + myFile, e);
+      myNotPersisted = true;
+      FileUtil.delete(myFile);
+    }
+  }
+
+  private void writeSegment(@Nonnull DataOutput out, int firstIndex, int firstPathIndex, @Nonnull List<String> newStrings)
+    throws IOException {
+    out.writeInt(mySize - firstIndex);
+    out.writeLong(mySyncedRevision);
+    writeVarLong(out, newStrings.size());
+    for (String value : newStrings) {
+      writeString(out, value);
+    }
+
+    long previousRevision = firstIndex > 0 ? myRevisions[firstIndex - 1] : 0;
+    long previousDate = 0;
+    for (int i = firstIndex; i < mySize; i++) {
+      writeVarLong(out, myRevisions[i] - previousRevision);
+      previousRevision = myRevisions[i];
+    }
+    for (int i = firstIndex; i < mySize; i++) {
+      writeVarLong(out, zigZag(myDates[i] - previousDate));
+      previousDate = myDates[i];
+    }
+    for (int i = firstIndex; i < mySize; i++) {
+      writeVarLong(out, myAuthors[i] + 1);
+    }
+    for (int i = firstIndex; i < mySize; i++) {
+      writeString(out, myMessages[i]);
+    }
+    for (int i = firstIndex; i < mySize; i++) {
+      writeVarLong(out, myPathOffsets[i + 1] - myPathOffsets[i]);
+    }
+    for (int j = firstPathIndex; j < myPathsSize; j++) {
+      writeVarLong(out, myPaths[j]);
+    }
+    out.write(myActions, firstPathIndex, myPathsSize - firstPathIndex);
+    out.write(myKinds, firstPathIndex, myPathsSize - firstPathIndex);
+    for (int j = firstPathIndex; j < myPathsSize; j++) {
+      writeVarLong(out, myCopyPaths[j] + 1);
+    }
+    for (int j = firstPathIndex; j < myPathsSize; j++) {
+      writeVarLong(out, myCopyRevisions[j] + 1);
+    }
+  }
+
+  /**
+   * @return revision index is synchronized with
+   */
+  private long ensureLoaded() {
+    synchronized (myLock) {
+      if (!myLoaded) {
+        myLoaded = true;
+        load();
+      }
+      return mySyncedRevision;
+    }
+  }
+
+  private void load() {
+    byte[] data;
+    try {
+      data = Files.readAllBytes(myFile.toPath());
+    }
+    catch (NoSuchFileException e) {
+      return;
+    }
+    catch (IOException e) {
+      LOG.info(e);
+      return;
+    }
+
+    try {
+      DataInputStream in = new DataInputStream(new UnsyncByteArrayInputStream(data));
+      if (data.length < 4 || in.readInt() != VERSION) return;
+      myValidLength = 4;
+
+      while (myValidLength < data.length) {
+        readSegment(in);
+        myValidLength = data.length - in.available();
+      }
+    }
+    catch (IOException e) {
+      // incompletely written segment is dropped - its revisions will be loaded once again
+      LOG.info("Log index " + myFile + " is truncated to " + mySyncedRevision, e);
+    }
+    catch (RuntimeException e) {
+      // corrupted data - index is created once again
+      LOG.info("Log index " + myFile + " is corrupted", e);
+      clear();
+      FileUtil.delete(myFile);
+    }
+  }
+
+  private void clear() {
+    myValidLength = 0;
+    mySyncedRevision = 0;
+    myStrings.clear();
+    myStringIndexes.clear();
+    mySize = 0;
+    myPathsSize = 0;
+    myRevisions = new long[0];
+    myDates = new long[0];
+    myAuthors = new int[0];
+    myMessages = new String[0];
+    myPathOffsets = new int[1];
+    myPaths = new int[0];
+    myActions = new byte[0];
+    myKinds = new byte[0];
+    myCopyPaths = new int[0];
+    myCopyRevisions = new long[0];
+  }
+
+  private void readSegment(@Nonnull DataInputStream in) throws IOException {
+    int size = in.readInt();
+    long syncedRevision = in.readLong();
+    String[] strings = new String[(int)readVarLong(in)];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = readString(in);
+    }
+
+    long[] revisions = new long[size];
+    long[] dates = new long[size];
+    int[] authors = new int[size];
+    String[] messages = new String[size];
+    int[] pathCounts = new int[size];
+    long previousRevision = mySize > 0 ? myRevisions[mySize - 1] : 0;
+    long previousDate = 0;
+    int pathsSize = 0;
+
+    for (int i = 0; i < size; i++) {
+      previousRevision = revisions[i] = previousRevision + readVarLong(in);
+    }
+    for (int i = 0; i < size; i++) {
+      previousDate = dates[i] = previousDate + unZigZag(readVarLong(in));
+    }
+    for (int i = 0; i < size; i++) {
+      authors[i] = (int)readVarLong(in) - 1;
+    }
+    for (int i = 0; i < size; i++) {
+      messages[i] = readString(in);
+    }
+    for (int i = 0; i < size; i++) {
+      pathCounts[i] = (int)readVarLong(in);
+      pathsSize += pathCounts[i];
+    }
+    int[] paths = new int[pathsSize];
+    byte[] actions = new byte[pathsSize];
+    byte[] kinds = new byte[pathsSize];
+    int[] copyPaths = new int[pathsSize];
+    long[] copyRevisions = new long[pathsSize];
+    for (int j = 0; j < pathsSize; j++) {
+      paths[j] = (int)readVarLong(in);
+    }
+    in.readFully(actions);
+    in.readFully(kinds);
+    for (int j = 0; j < pathsSize; j++) {
+      copyPaths[j] = (int)readVarLong(in) - 1;
+    }
+    for (int j = 0; j < pathsSize; j++) {
+      copyRevisions[j] = readVarLong(in) - 1;
+    }
+
+    // segment is applied only if it was read completely
+    for (String value : strings) {
+      myStringIndexes.put(value, myStrings.size());
+      myStrings.add(value);
+    }
+    ensureCapacity(mySize + size, myPathsSize + pathsSize);
+    System.arraycopy(revisions, 0, myRevisions, mySize, size);
+    System.arraycopy(dates, 0, myDates, mySize, size);
+    System.arraycopy(authors, 0, myAuthors, mySize, size);
+    System.arraycopy(messages, 0, myMessages, mySize, size);
+    System.arraycopy(paths, 0, myPaths, myPathsSize, pathsSize);
+    System.arraycopy(actions, 0, myActions, myPathsSize, pathsSize);
+    System.arraycopy(kinds, 0, myKinds, myPathsSize, pathsSize);
+    System.arraycopy(copyPaths, 0, myCopyPaths, myPathsSize, pathsSize);
+    System.arraycopy(copyRevisions, 0, myCopyRevisions, myPathsSize, pathsSize);
+    for (int i = 0; i < size; i++) {
+      myPathOffsets[mySize + i + 1] = myPathOffsets[mySize + i] + pathCounts[i];
+    }
+    mySize += size;
+    myPathsSize += pathsSize;
+    mySyncedRevision = syncedRevision;
+  }
+}
@@ -62,9 +62,25 @@ import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.readString;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.readVarInt;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.readVarLong;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.unZigZag;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.writeString;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.writeVarLong;
+import static org.jetbrains.idea.svn.history.CompactStreamUtil.zigZag;
+
 public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAware {
   private static final Logger LOG = Logger.getInstance("#org.jetbrains.idea.svn.history");
 
+  private static final int CHANGED = 1;
+  private static final int ADDED = 1 << 1;
+  private static final int DELETED = 1 << 2;
+  // replaced paths are also changed
+  private static final int REPLACED = 1 << 3;
+  private static final int DIRECTORY = 1 << 4;
+  private static final int AFFECTED = CHANGED | ADDED | DELETED;
+
   private final SvnVcs myVcs;
   private final SvnRepositoryLocation myLocation;
   private String myRepositoryRoot;
@@ -73,10 +89,9 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
   private String myAuthor;
   private Date myDate;
   private String myMessage;
-  private final Set<String> myChangedPaths = new HashSet<>();
-  private final Set<String> myAddedPaths = new HashSet<>();
-  private final Set<String> myDeletedPaths = new HashSet<>();
-  private final Set<String> myReplacedPaths = new HashSet<>();
+  // all paths of the list - sorted and interned, kinds (bit masks of CHANGED, ADDED, etc.) are stored at the same indexes
+  @Nonnull private String[] myPaths;
+  @Nonnull private byte[] myPathKinds;
 
   private ChangesListCreationHelper myListsHolder;
 
@@ -84,11 +99,10 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
 
   private boolean myCachedInfoLoaded;
 
-  // key: added path, value: copied-from
-  private final TreeMap<String, String> myCopiedAddedPaths = new TreeMap<>();
+  // key: added path, value: copied-from; null if there are no copies
+  @Nullable private TreeMap<String, String> myCopiedAddedPaths;
   private RootUrlInfo myWcRoot;
-  private final CommonPathSearcher myCommonPathSearcher;
-  private final Set<String> myKnownAsDirectories;
+  @Nullable private String myCommonPath;
 
   public SvnChangeList(@Nonnull final List<CommittedChangeList> lists, @Nonnull final SvnRepositoryLocation location) {
 
@@ -100,16 +114,16 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
     myDate = sample.myDate;
     myMessage = sample.myMessage;
     myRepositoryRoot = sample.myRepositoryRoot;
-    myCommonPathSearcher = new CommonPathSearcher();
 
+    Map<String, Integer> kinds = new HashMap<>();
     for (CommittedChangeList list : lists) {
       final SvnChangeList svnList = (SvnChangeList)list;
-      myChangedPaths.addAll(svnList.myChangedPaths);
-      myAddedPaths.addAll(svnList.myAddedPaths);
-      myDeletedPaths.addAll(svnList.myDeletedPaths);
-      myReplacedPaths.addAll(svnList.myReplacedPaths);
+      for (int i = 0; i < svnList.myPaths.length; i++) {
+        // directories and copy sources are not merged
+        addPath(kinds, svnList.myPaths[i], svnList.myPathKinds[i] & (AFFECTED | REPLACED));
+      }
     }
-    myKnownAsDirectories = new HashSet<>(0);
+    setPaths(kinds);
   }
 
   public SvnChangeList(SvnVcs vcs, @Nonnull final SvnRepositoryLocation location, final LogEntry logEntry, String repositoryRoot) {
@@ -121,46 +135,113 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
     myMessage = StringUtil.notNullize(logEntry.getMessage());
     myRepositoryRoot = UriUtil.trimTrailingSlashes(repositoryRoot);
 
-    myCommonPathSearcher = new CommonPathSearcher();
-
-    myKnownAsDirectories = new HashSet<>(0);
+    Map<String, Integer> kinds = new HashMap<>();
     for (LogEntryPath entry : logEntry.getChangedPaths().values()) {
       final String path = entry.getPath();
 
       if (entry.isDirectory()) {
-        myKnownAsDirectories.add(path);
+        addPath(kinds, path, DIRECTORY);
       }
 
-      myCommonPathSearcher.next(path);
-
       if (entry.getType() == 'A') {
         if (entry.getCopyPath() != null) {
-          myCopiedAddedPaths.put(path, entry.getCopyPath());
+          addCopiedAddedPath(path, entry.getCopyPath());
         }
-        myAddedPaths.add(path);
+        addPath(kinds, path, ADDED);
       }
       else if (entry.getType() == 'D') {
-        myDeletedPaths.add(path);
+        addPath(kinds, path, DELETED);
       }
       else {
-        if (entry.getType() == 'R') {
-          myReplacedPaths.add(path);
-        }
-        myChangedPaths.add(path);
+        addPath(kinds, path, entry.getType() == 'R' ? CHANGED | REPLACED : CHANGED);
       }
     }
+    setPaths(kinds);
+    myCommonPath = findCommonPath();
   }
 
-  public SvnChangeList(SvnVcs vcs, @Nonnull SvnRepositoryLocation location, @Nonnull DataInput stream, final boolean supportsCopyFromInfo,
-                       final boolean supportsReplaced) throws IOException {
+  /**
+   * Reads list written with {@link #writeToStream(DataOutput)}. Caches written in previous formats are not read - they are dropped when
+   * {@link SvnCommittedChangesProvider#getFormatVersion()} changes.
+   */
+  public SvnChangeList(SvnVcs vcs, @Nonnull SvnRepositoryLocation location, @Nonnull DataInput stream) throws IOException {
     myVcs = vcs;
     myLocation = location;
-    myKnownAsDirectories = new HashSet<>();
-    readFromStream(stream, supportsCopyFromInfo, supportsReplaced);
-    myCommonPathSearcher = new CommonPathSearcher();
-    myCommonPathSearcher.next(myAddedPaths);
-    myCommonPathSearcher.next(myDeletedPaths);
-    myCommonPathSearcher.next(myChangedPaths);
+    readFromStream(stream);
+    myCommonPath = findCommonPath();
+  }
+
+  private static void addPath(@Nonnull Map<String, Integer> kinds, @Nonnull String path, int kind) {
+    kinds.merge(path, kind, (a, b) -> a | b);
+  }
+
+  private void addCopiedAddedPath(@Nonnull String path, @Nonnull String copyFromPath) {
+    if (myCopiedAddedPaths == null) {
+      myCopiedAddedPaths = new TreeMap<>();
+    }
+    PathInterner interner = PathInterner.getInstance(myRepositoryRoot);
+    myCopiedAddedPaths.put(interner.intern(path), interner.intern(copyFromPath));
+  }
+
+  @Nonnull
+  private NavigableMap<String, String> getCopiedAddedPaths() {
+    return myCopiedAddedPaths != null ? myCopiedAddedPaths : Collections.emptyNavigableMap();
+  }
+
+  private void setPaths(@Nonnull Map<String, Integer> kinds) {
+    PathInterner interner = PathInterner.getInstance(myRepositoryRoot);
+
+    myPaths = kinds.keySet().toArray(new String[0]);
+    Arrays.sort(myPaths);
+    myPathKinds = new byte[myPaths.length];
+    for (int i = 0; i < myPaths.length; i++) {
+      myPathKinds[i] = kinds.get(myPaths[i]).byteValue();
+      myPaths[i] = interner.intern(myPaths[i]);
+    }
+  }
+
+  /**
+   * @return sorted paths of given kind (any of given kinds if several are specified)
+   */
+  @Nonnull
+  private List<String> getPaths(int kind) {
+    List<String> result = new ArrayList<>();
+
+    for (int i = 0; i < myPaths.length; i++) {
+      if ((myPathKinds[i] & kind) != 0) {
+        result.add(myPaths[i]);
+      }
+    }
+    return result;
+  }
+
+  private boolean hasKind(@Nonnull String path, int kind) {
+    int index = Arrays.binarySearch(myPaths, path);
+
+    return index >= 0 && (myPathKinds[index] & kind) != 0;
+  }
+
+  /**
+   * @return approximate number of bytes retained by the list - paths are counted as not shared with other lists, per path overhead also
+   * covers lazily created changes
+   */
+  long estimateSize() {
+    long result = 128 + 2L * (myMessage != null ? myMessage.length() : 0);
+
+    for (String path : myPaths) {
+      result += 96 + 2L * path.length();
+    }
+    for (Map.Entry<String, String> entry : getCopiedAddedPaths().entrySet()) {
+      result += 64 + 2L * entry.getValue().length();
+    }
+    return result;
+  }
+
+  @Nullable
+  private String findCommonPath() {
+    CommonPathSearcher searcher = new CommonPathSearcher();
+    searcher.next(getPaths(AFFECTED));
+    return searcher.getCommon();
   }
 
   public Change getByPath(final String path) {
@@ -198,18 +279,20 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
   }
 
   private void createLists() {
-    myListsHolder = new ChangesListCreationHelper();
+    // changed paths under copied directories are added locally - so stored copies (and serialized list) do not depend on created changes
+    final NavigableMap<String, String> copiedAddedPaths = new TreeMap<>(getCopiedAddedPaths());
+    myListsHolder = new ChangesListCreationHelper(copiedAddedPaths);
 
     // key: copied-from
     final Map<String, ExternallyRenamedChange> copiedAddedChanges = new HashMap<>();
 
-    correctBeforePaths();
-    final List<String> copyDeleted = new ArrayList<>(myDeletedPaths);
+    final List<String> copyDeleted = correctBeforePaths(copiedAddedPaths);
+    final List<String> addedPaths = getPaths(ADDED);
 
-    for (String path : myAddedPaths) {
+    for (String path : addedPaths) {
       final Change addedChange;
-      if (myCopiedAddedPaths.containsKey(path)) {
-        final String copyTarget = myCopiedAddedPaths.get(path);
+      if (copiedAddedPaths.containsKey(path)) {
+        final String copyTarget = copiedAddedPaths.get(path);
         if (copyDeleted.contains(copyTarget)) {
           addedChange = new ExternallyRenamedChange(myListsHolder.createRevisionLazily(copyTarget, true),
                                                     myListsHolder.createRevisionLazily(path, false), copyTarget);
@@ -245,13 +328,13 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
       }
       myListsHolder.add(path, deletedChange);
     }
-    for (String path : myChangedPaths) {
+    for (String path : getPaths(CHANGED)) {
       boolean moveAndChange = false;
-      final boolean replaced = myReplacedPaths.contains(path);
+      final boolean replaced = hasKind(path, REPLACED);
 
       // this piece: for copied-from (or moved) and further modified
-      for (String addedPath : myAddedPaths) {
-        String copyFromPath = myCopiedAddedPaths.get(addedPath);
+      for (String addedPath : addedPaths) {
+        String copyFromPath = copiedAddedPaths.get(addedPath);
         if ((copyFromPath != null) && (SVNPathUtil.isAncestor(addedPath, path))) {
           if (addedPath.length() < path.length()) {
             final String relative = SVNPathUtil.getRelativePath(addedPath, path);
@@ -264,7 +347,7 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
           renamedChange.getMoveRelativePath(myVcs.getProject());
           renamedChange.setIsReplaced(replaced);
 
-          final ExternallyRenamedChange addedChange = copiedAddedChanges.get(myCopiedAddedPaths.get(addedPath));
+          final ExternallyRenamedChange addedChange = copiedAddedChanges.get(copiedAddedPaths.get(addedPath));
           renamedChange.setCopied(addedChange != null && addedChange.isCopied());
 
           myListsHolder.add(path, renamedChange);
@@ -282,29 +365,35 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
     }
   }
 
-  private void correctBeforePaths() {
-    processDeletedForBeforePaths(myDeletedPaths);
-    processModifiedForBeforePaths(myChangedPaths);
-    processModifiedForBeforePaths(myReplacedPaths);
+  /**
+   * @return deleted paths converted to before paths
+   */
+  @Nonnull
+  private List<String> correctBeforePaths(@Nonnull NavigableMap<String, String> copiedAddedPaths) {
+    List<String> deletedPaths = processDeletedForBeforePaths(getPaths(DELETED), copiedAddedPaths);
+    // replaced paths are also changed
+    processModifiedForBeforePaths(getPaths(CHANGED), copiedAddedPaths);
+    return deletedPaths;
   }
 
-  private void processModifiedForBeforePaths(Set<String> paths) {
+  private static void processModifiedForBeforePaths(List<String> paths, @Nonnull NavigableMap<String, String> copiedAddedPaths) {
     final RenameHelper helper = new RenameHelper();
     for (String s : paths) {
-      final String converted = helper.convertBeforePath(s, myCopiedAddedPaths);
+      final String converted = helper.convertBeforePath(s, copiedAddedPaths);
       if (!s.equals(converted)) {
-        myCopiedAddedPaths.put(s, converted);
+        copiedAddedPaths.put(s, converted);
       }
     }
   }
 
-  private void processDeletedForBeforePaths(Set<String> paths) {
+  @Nonnull
+  private static List<String> processDeletedForBeforePaths(List<String> paths, @Nonnull NavigableMap<String, String> copiedAddedPaths) {
     final RenameHelper helper = new RenameHelper();
-    final HashSet<String> copy = new HashSet<>(paths);
-    paths.clear();
-    for (String s : copy) {
-      paths.add(helper.convertBeforePath(s, myCopiedAddedPaths));
+    final Set<String> result = new LinkedHashSet<>();
+    for (String s : paths) {
+      result.add(helper.convertBeforePath(s, copiedAddedPaths));
     }
+    return new ArrayList<>(result);
   }
 
   @Nullable
@@ -328,8 +417,11 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
     private final Map<String, Change> myPathToChangeMapping;
     private List<Change> myDetailedList;
     private final List<Pair<Integer, Boolean>> myWithoutDirStatus;
+    // stored copies with changed paths under copied directories
+    @Nonnull private final NavigableMap<String, String> myCopiedPaths;
 
-    private ChangesListCreationHelper() {
+    private ChangesListCreationHelper(@Nonnull NavigableMap<String, String> copiedAddedPaths) {
+      myCopiedPaths = copiedAddedPaths;
       myList = new ArrayList<>();
       myWithoutDirStatus = new ArrayList<>();
       myPathToChangeMapping = new HashMap<>();
@@ -356,7 +448,7 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
     }
 
     public SvnRepositoryContentRevision createDeletedItemRevision(final String path, final boolean isBeforeRevision) {
-      final boolean knownAsDirectory = myKnownAsDirectories.contains(path);
+      final boolean knownAsDirectory = hasKind(path, DIRECTORY);
       final String fullPath = myRepositoryRoot + path;
       if (!knownAsDirectory) {
         myWithoutDirStatus.add(Pair.create(myList.size(), isBeforeRevision));
@@ -366,7 +458,7 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
     }
 
     public SvnRepositoryContentRevision createRevisionLazily(final String path, final boolean isBeforeRevision) {
-      final boolean knownAsDirectory = myKnownAsDirectories.contains(path);
+      final boolean knownAsDirectory = hasKind(path, DIRECTORY);
       final FilePath localPath = getLocalPath(path, new NotNullFunction<File, Boolean>() {
         @Nonnull
         public Boolean apply(final File file) {
@@ -450,7 +542,7 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
         }
         else if ((change.getBeforeRevision() == null) && (change.getAfterRevision().getFile().isDirectory())) {
           // look for renamed folders contents
-          if (myCopiedAddedPaths.containsKey(getRelativePath(change.getAfterRevision()))) {
+          if (myCopiedPaths.containsKey(getRelativePath(change.getAfterRevision()))) {
             result.addAll(getChildrenAsChanges(change.getAfterRevision(), false, duplicates));
           }
         }
@@ -523,7 +615,7 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
 
   private static class RenameHelper {
 
-    public String convertBeforePath(final String path, final TreeMap<String, String> after2before) {
+    public String convertBeforePath(final String path, final NavigableMap<String, String> after2before) {
       String current = path;
       // backwards
       for (String key : after2before.descendingKeySet()) {
@@ -638,87 +730,122 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
     return myMessage;
   }
 
+  /**
+   * Writes list in {@link SvnCommittedChangesProvider#VERSION_WITH_COMPACT_PATHS} format. All paths of the list are written once to sorted
+   * dictionary where each path is stored as length of prefix shared with previous path and remaining suffix - path sets just refer to
+   * dictionary indexes.
+   */
   public void writeToStream(@Nonnull DataOutput stream) throws IOException {
-    stream.writeUTF(myRepositoryRoot);
-    stream.writeLong(myRevision);
-    stream.writeUTF(myAuthor);
-    stream.writeLong(myDate.getTime());
-    writeUTFTruncated(stream, myMessage);
-    writeFiles(stream, myChangedPaths);
-    writeFiles(stream, myAddedPaths);
-    writeFiles(stream, myDeletedPaths);
-    writeMap(stream, myCopiedAddedPaths);
-    writeFiles(stream, myReplacedPaths);
+    writeString(stream, myRepositoryRoot);
+    writeVarLong(stream, myRevision);
+    writeString(stream, myAuthor);
+    writeVarLong(stream, zigZag(myDate.getTime()));
+    writeString(stream, myMessage);
 
-    stream.writeInt(myKnownAsDirectories.size());
-    for (String directory : myKnownAsDirectories) {
-      stream.writeUTF(directory);
-    }
-  }
+    TreeSet<String> paths = new TreeSet<>(Arrays.asList(myPaths));
+    paths.addAll(getCopiedAddedPaths().keySet());
+    paths.addAll(getCopiedAddedPaths().values());
+    Map<String, Integer> indexes = writeDictionary(stream, paths);
 
-  // to be able to update plugin only
-  public static void writeUTFTruncated(final DataOutput stream, final String text) throws IOException {
-    // we should not compare number of symbols to 65635 -> it is number of bytes what should be compared
-    // ? 4 bytes per symbol - rough estimation
-    if (text.length() > 16383) {
-      stream.writeUTF(text.substring(0, 16383));
-    }
-    else {
-      stream.writeUTF(text);
+    writeIndexes(stream, getPaths(CHANGED), indexes);
+    writeIndexes(stream, getPaths(ADDED), indexes);
+    writeIndexes(stream, getPaths(DELETED), indexes);
+    writeIndexes(stream, getPaths(REPLACED), indexes);
+    writeIndexes(stream, getPaths(DIRECTORY), indexes);
+    writeVarLong(stream, getCopiedAddedPaths().size());
+    for (Map.Entry<String, String> entry : getCopiedAddedPaths().entrySet()) {
+      writeVarLong(stream, indexes.get(entry.getKey()));
+      writeVarLong(stream, indexes.get(entry.getValue()));
     }
   }
 
-  private static void writeFiles(final DataOutput stream, final Set<String> paths) throws IOException {
-    stream.writeInt(paths.size());
-    for (String s : paths) {
-      stream.writeUTF(s);
+  @Nonnull
+  private static Map<String, Integer> writeDictionary(@Nonnull DataOutput stream, @Nonnull SortedSet<String> paths) throws IOException {
+    Map<String, Integer> result = new HashMap<>();
+    String previous = "";
+
+    writeVarLong(stream, paths.size());
+    for (String path : paths) {
+      int prefixLength = 0;
+      int maxLength = Math.min(previous.length(), path.length());
+      while (prefixLength < maxLength && previous.charAt(prefixLength) == path.charAt(prefixLength)) {
+        prefixLength++;
+      }
+      // surrogate pair should not be split - otherwise suffix could not be encoded
+      if (prefixLength > 0 && Character.isHighSurrogate(path.charAt(prefixLength - 1))) {
+        prefixLength--;
+      }
+
+      writeVarLong(stream, prefixLength);
+      writeString(stream, path.substring(prefixLength));
+      result.put(path, result.size());
+      previous = path;
     }
+
+    return result;
   }
 
-  private void readFromStream(@Nonnull DataInput stream, final boolean supportsCopyFromInfo, final boolean supportsReplaced)
-    throws IOException {
-    myRepositoryRoot = stream.readUTF();
-    setRevision(stream.readLong());
-    myAuthor = stream.readUTF();
-    myDate = new Date(stream.readLong());
-    myMessage = stream.readUTF();
-    readFiles(stream, myChangedPaths);
-    readFiles(stream, myAddedPaths);
-    readFiles(stream, myDeletedPaths);
+  @Nonnull
+  private static String[] readDictionary(@Nonnull DataInput stream) throws IOException {
+    String[] result = new String[readVarInt(stream)];
+    String previous = "";
 
-    if (supportsCopyFromInfo) {
-      readMap(stream, myCopiedAddedPaths);
+    for (int i = 0; i < result.length; i++) {
+      previous = result[i] = previous.substring(0, readVarInt(stream)) + readString(stream);
     }
 
-    if (supportsReplaced) {
-      readFiles(stream, myReplacedPaths);
-    }
+    return result;
+  }
 
-    final int size = stream.readInt();
-    for (int i = 0; i < size; i++) {
-      myKnownAsDirectories.add(stream.readUTF());
+  /**
+   * Indexes are written in ascending order as differences with previous index.
+   */
+  private static void writeIndexes(@Nonnull DataOutput stream, @Nonnull List<String> paths, @Nonnull Map<String, Integer> indexes)
+    throws IOException {
+    int[] values = new int[paths.size()];
+    int i = 0;
+    for (String path : paths) {
+      values[i++] = indexes.get(path);
     }
-  }
+    Arrays.sort(values);
 
-  private static void writeMap(final DataOutput stream, final Map<String, String> map) throws IOException {
-    stream.writeInt(map.size());
-    for (Map.Entry<String, String> entry : map.entrySet()) {
-      stream.writeUTF(entry.getKey());
-      stream.writeUTF(entry.getValue());
+    writeVarLong(stream, values.length);
+    int previous = 0;
+    for (int value : values) {
+      writeVarLong(stream, value - previous);
+      previous = value;
     }
   }
 
-  private static void readMap(final DataInput stream, final Map<String, String> map) throws IOException {
-    int count = stream.readInt();
+  private static void readIndexes(@Nonnull DataInput stream, @Nonnull Map<String, Integer> kinds, int kind, @Nonnull String[] dictionary)
+    throws IOException {
+    int count = readVarInt(stream);
+    int index = 0;
+
     for (int i = 0; i < count; i++) {
-      map.put(stream.readUTF(), stream.readUTF());
+      index += readVarInt(stream);
+      addPath(kinds, dictionary[index], kind);
     }
   }
 
-  private static void readFiles(final DataInput stream, final Set<String> paths) throws IOException {
-    int count = stream.readInt();
-    for (int i = 0; i < count; i++) {
-      paths.add(stream.readUTF());
+  private void readFromStream(@Nonnull DataInput stream) throws IOException {
+    myRepositoryRoot = readString(stream);
+    setRevision(readVarLong(stream));
+    myAuthor = readString(stream);
+    myDate = new Date(unZigZag(readVarLong(stream)));
+    myMessage = readString(stream);
+
+    String[] dictionary = readDictionary(stream);
+    Map<String, Integer> kinds = new HashMap<>();
+    readIndexes(stream, kinds, CHANGED, dictionary);
+    readIndexes(stream, kinds, ADDED, dictionary);
+    readIndexes(stream, kinds, DELETED, dictionary);
+    readIndexes(stream, kinds, REPLACED, dictionary);
+    readIndexes(stream, kinds, DIRECTORY, dictionary);
+    setPaths(kinds);
+    int copiedCount = readVarInt(stream);
+    for (int i = 0; i < copiedCount; i++) {
+      addCopiedAddedPath(dictionary[readVarInt(stream)], dictionary[readVarInt(stream)]);
     }
   }
 
@@ -787,7 +914,7 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
   private void updateCachedInfo() {
     myCachedInfoLoaded = true;
 
-    final String commonPath = myCommonPathSearcher.getCommon();
+    final String commonPath = myCommonPath;
     if (commonPath != null) {
       final SvnFileUrlMapping urlMapping = myVcs.getSvnFileUrlMapping();
       if (urlMapping.isEmpty()) {
@@ -808,13 +935,55 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
     myWcRoot = null;
   }
 
+  /**
+   * @return unmodifiable view of added, deleted and changed paths
+   */
   @Nonnull
   public Set<String> getAffectedPaths() {
-    Set<String> result = new HashSet<>();
-    result.addAll(myAddedPaths);
-    result.addAll(myDeletedPaths);
-    result.addAll(myChangedPaths);
-    return result;
+    return new AbstractSet<String>() {
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof String && hasKind((String)o, AFFECTED);
+      }
+
+      @Nonnull
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<String>() {
+          private int myIndex = next(0);
+
+          private int next(int index) {
+            while (index < myPaths.length && (myPathKinds[index] & AFFECTED) == 0) {
+              index++;
+            }
+            return index;
+          }
+
+          @Override
+          public boolean hasNext() {
+            return myIndex < myPaths.length;
+          }
+
+          @Override
+          public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            String result = myPaths[myIndex];
+            myIndex = next(myIndex + 1);
+            return result;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        int result = 0;
+        for (byte kind : myPathKinds) {
+          if ((kind & AFFECTED) != 0) result++;
+        }
+        return result;
+      }
+    };
   }
 
   @Nullable
@@ -825,7 +994,7 @@ public class SvnChangeList implements CommittedChangeList, VcsRevisionNumberAwar
   }
 
   public boolean allPathsUnder(final String path) {
-    final String commonRelative = myCommonPathSearcher.getCommon();
+    final String commonRelative = myCommonPath;
 
     return commonRelative != null && SVNPathUtil.isAncestor(path, SVNPathUtil.append(myRepositoryRoot, commonRelative));
   }
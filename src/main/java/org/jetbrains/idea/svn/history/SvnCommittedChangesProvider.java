@@ -79,6 +79,7 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
 
   public final static int VERSION_WITH_COPY_PATHS_ADDED = 2;
   public final static int VERSION_WITH_REPLACED_PATHS = 3;
+  public final static int VERSION_WITH_COMPACT_PATHS = 4;
 
   public SvnCommittedChangesProvider(@Nonnull SvnVcs vcs) {
     myVcs = vcs;
@@ -132,7 +133,8 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
                                    @Nonnull AsynchConsumer<CommittedChangeList> consumer) throws VcsException {
     try {
       SvnRepositoryLocation svnLocation = (SvnRepositoryLocation)location;
-      String repositoryRoot = getRepositoryRoot(svnLocation);
+      SVNURL repositoryRootUrl = getRepositoryRoot(svnLocation);
+      String repositoryRoot = repositoryRootUrl.toDecodedString();
       ChangeBrowserSettings.Filter filter = settings.createFilter();
       Consumer<LogEntry> resultConsumer = logEntry -> {
         SvnChangeList list = new SvnChangeList(myVcs, svnLocation, logEntry, repositoryRoot);
@@ -142,7 +144,7 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
       };
       SvnTarget target = SvnTarget.fromURL(svnLocation.toSvnUrl(), createBeforeRevision(settings));
 
-      getCommittedChangesImpl(settings, target, maxCount, resultConsumer, false, true);
+      getCommittedChangesImpl(settings, target, repositoryRootUrl, maxCount, resultConsumer, false, true);
     }
     finally {
       consumer.finished();
@@ -156,12 +158,13 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
                                                  int maxCount) throws VcsException {
     SvnRepositoryLocation svnLocation = (SvnRepositoryLocation)location;
     List<SvnChangeList> result = newArrayList();
-    String repositoryRoot = getRepositoryRoot(svnLocation);
+    SVNURL repositoryRootUrl = getRepositoryRoot(svnLocation);
+    String repositoryRoot = repositoryRootUrl.toDecodedString();
     Consumer<LogEntry> resultConsumer =
       logEntry -> result.add(new SvnChangeList(myVcs, svnLocation, logEntry, repositoryRoot));
     SvnTarget target = SvnTarget.fromURL(svnLocation.toSvnUrl(), createBeforeRevision(settings));
 
-    getCommittedChangesImpl(settings, target, maxCount, resultConsumer, false, true);
+    getCommittedChangesImpl(settings, target, repositoryRootUrl, maxCount, resultConsumer, false, true);
     settings.filterChanges(result);
     return result;
   }
@@ -172,12 +175,13 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
                                                     @Nonnull PairConsumer<SvnChangeList, LogHierarchyNode> finalConsumer)
     throws VcsException {
     SvnRepositoryLocation svnLocation = (SvnRepositoryLocation)location;
-    String repositoryRoot = getRepositoryRoot(svnLocation);
+    SVNURL repositoryRootUrl = getRepositoryRoot(svnLocation);
+    String repositoryRoot = repositoryRootUrl.toDecodedString();
     MergeSourceHierarchyBuilder builder = new MergeSourceHierarchyBuilder(
       node -> finalConsumer.consume(new SvnChangeList(myVcs, svnLocation, node.getMe(), repositoryRoot), node));
     SvnMergeSourceTracker mergeSourceTracker = new SvnMergeSourceTracker(builder);
 
-    getCommittedChangesImpl(settings, SvnTarget.fromURL(svnLocation.toSvnUrl()), maxCount, logEntry -> {
+    getCommittedChangesImpl(settings, SvnTarget.fromURL(svnLocation.toSvnUrl()), repositoryRootUrl, maxCount, logEntry -> {
       try {
         mergeSourceTracker.consume(logEntry);
       }
@@ -190,7 +194,7 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
   }
 
   @Nonnull
-  private String getRepositoryRoot(@Nonnull SvnRepositoryLocation svnLocation) throws VcsException {
+  private SVNURL getRepositoryRoot(@Nonnull SvnRepositoryLocation svnLocation) throws VcsException {
     // TODO: Additionally SvnRepositoryLocation could possibly be refactored to always contain FilePath (or similar local item)
     // TODO: So here we could get repository url without performing remote svn command
 
@@ -200,11 +204,12 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
       throw new SvnBindException("Could not resolve repository root url for " + svnLocation);
     }
 
-    return rootUrl.toDecodedString();
+    return rootUrl;
   }
 
   private void getCommittedChangesImpl(@Nonnull ChangeBrowserSettings settings,
                                        @Nonnull SvnTarget target,
+                                       @Nonnull SVNURL repositoryRoot,
                                        int maxCount,
                                        @Nonnull Consumer<LogEntry> resultConsumer,
                                        boolean includeMergedRevisions,
@@ -216,9 +221,43 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
     SVNRevision revisionBefore = createBeforeRevision(settings);
     SVNRevision revisionAfter = createAfterRevision(settings);
 
+    LogEntryConsumer handler = createLogHandler(resultConsumer, filterOutByDate, author);
+
+    if (!includeMergedRevisions && loadFromIndex(target, repositoryRoot, revisionBefore, revisionAfter, settings.STOP_ON_COPY, maxCount,
+                                                 handler)) {
+      return;
+    }
+    // author is still compared exactly by handler - search pattern also matches messages and paths containing author name
+    String[] searchPatterns = author != null && !includeMergedRevisions ? new String[]{escapeGlob(author)} : null;
     myVcs.getFactory(target).createHistoryClient()
          .doLog(target, revisionBefore, revisionAfter, settings.STOP_ON_COPY, true, includeMergedRevisions, maxCount, null,
-                createLogHandler(resultConsumer, filterOutByDate, author));
+                searchPatterns, handler);
+  }
+
+  @Nonnull
+  private static String escapeGlob(@Nonnull String value) {
+    StringBuilder result = new StringBuilder();
+
+    for (char c : value.toCharArray()) {
+      if ("*?[]\\".indexOf(c) != -1) {
+        result.append('\\');
+      }
+      result.append(c);
+    }
+    return result.toString();
+  }
+
+  private boolean loadFromIndex(@Nonnull SvnTarget target,
+                                @Nonnull SVNURL repositoryRoot,
+                                @Nonnull SVNRevision revisionBefore,
+                                @Nonnull SVNRevision revisionAfter,
+                                boolean stopOnCopy,
+                                int maxCount,
+                                @Nonnull LogEntryConsumer handler) throws VcsException {
+    String path = target.getURL() != null ? RevisionLogIndex.getRepositoryPath(repositoryRoot, target.getURL()) : null;
+    RevisionLogIndex index = path != null ? RevisionLogIndex.getSynchronized(myVcs, repositoryRoot) : null;
+
+    return index != null && index.query(path, revisionBefore, revisionAfter, stopOnCopy, maxCount, handler);
   }
 
   @Nonnull
@@ -327,7 +366,7 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
 
   @Override
   public int getFormatVersion() {
-    return VERSION_WITH_REPLACED_PATHS;
+    return VERSION_WITH_COMPACT_PATHS;
   }
 
   @Override
@@ -338,9 +377,7 @@ public class SvnCommittedChangesProvider implements CachingCommittedChangesProvi
   @Override
   @Nonnull
   public SvnChangeList readChangeList(@Nonnull RepositoryLocation location, @Nonnull DataInput stream) throws IOException {
-    int version = getFormatVersion();
-    return new SvnChangeList(myVcs, (SvnRepositoryLocation)location, stream, VERSION_WITH_COPY_PATHS_ADDED <= version,
-                             VERSION_WITH_REPLACED_PATHS <= version);
+    return new SvnChangeList(myVcs, (SvnRepositoryLocation)location, stream);
   }
 
   @Override
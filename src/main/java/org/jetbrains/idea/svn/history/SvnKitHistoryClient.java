@@ -31,6 +31,25 @@ public class SvnKitHistoryClient extends BaseSvnClient implements HistoryClient
                     @Nullable String[] revisionProperties,
                     @Nullable LogEntryConsumer handler) throws VcsException
   {
+    doLog(target, startRevision, endRevision, stopOnCopy, discoverChangedPaths, includeMergedRevisions, limit, revisionProperties, null,
+          handler);
+  }
+
+  @Override
+  public void doLog(@Nonnull SvnTarget target,
+                    @Nonnull SVNRevision startRevision,
+                    @Nonnull SVNRevision endRevision,
+                    boolean stopOnCopy,
+                    boolean discoverChangedPaths,
+                    boolean includeMergedRevisions,
+                    long limit,
+                    @Nullable String[] revisionProperties,
+                    @Nullable String[] searchPatterns,
+                    @Nullable LogEntryConsumer handler) throws VcsException
+  {
+    // SVNKit does not support log search - so entries are filtered here
+    handler = LogSearchFilter.wrap(searchPatterns, handler);
+
     try {
       SVNLogClient client = myVcs.getSvnKitManager().createLogClient();
 
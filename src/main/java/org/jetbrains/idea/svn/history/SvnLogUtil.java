@@ -52,8 +52,12 @@ public class SvnLogUtil implements SvnLogLoader {
     final List<CommittedChangeList> result = new ArrayList<>();
     LogEntryConsumer handler = createLogHandler(fromIncluding, toIncluding, includingYoungest, includeOldest, result);
     SvnTarget target = SvnTarget.fromURL(myLocation.toSvnUrl());
+    String path = RevisionLogIndex.getRepositoryPath(myRepositoryRoot, target.getURL());
+    RevisionLogIndex index = path != null ? RevisionLogIndex.getSynchronized(myVcs, myRepositoryRoot) : null;
 
-    myVcs.getFactory(target).createHistoryClient().doLog(target, fromIncluding, toIncluding, true, true, false, maxCount, null, handler);
+    if (index == null || !index.query(path, fromIncluding, toIncluding, true, maxCount, handler)) {
+      myVcs.getFactory(target).createHistoryClient().doLog(target, fromIncluding, toIncluding, true, true, false, maxCount, null, handler);
+    }
 
     return result;
   }
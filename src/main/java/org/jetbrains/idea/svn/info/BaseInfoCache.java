@@ -0,0 +1,84 @@
+package org.jetbrains.idea.svn.info;
+
+import consulo.util.collection.ContainerUtil;
+import consulo.util.io.FileUtil;
+import consulo.util.lang.Pair;
+import org.jetbrains.idea.svn.RootUrlInfo;
+import org.jetbrains.idea.svn.SvnUtil;
+import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.commandLine.SvnBindException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Resolves urls of local directories used as base for status requests - not to execute "svn info" before each "svn status".
+ * <p>
+ * Url of working copy root (or nested copy root) is taken from {@link org.jetbrains.idea.svn.SvnFileUrlMapping}. Urls of other
+ * directories are requested with "svn info" and cached until wc.db of corresponding working copy root is modified.
+ */
+public class BaseInfoCache {
+
+  @Nonnull private final SvnVcs myVcs;
+  // key - directory path, value - directory url and wc.db timestamp
+  @Nonnull private final Map<String, Pair<SVNURL, Long>> myCache = ContainerUtil.createSoftMap();
+
+  public BaseInfoCache(@Nonnull SvnVcs vcs) {
+    myVcs = vcs;
+  }
+
+  @Nullable
+  public SVNURL getUrl(@Nonnull File base, @Nullable SVNRevision revision, @Nonnull InfoClient client) throws SvnBindException {
+    RootUrlInfo root = isLocal(revision) ? myVcs.getSvnFileUrlMapping().getWcRootForFilePath(base) : null;
+
+    if (root == null) {
+      return getUrl(client.doInfo(base, revision));
+    }
+    if (FileUtil.filesEqual(root.getIoFile(), base)) {
+      return root.getAbsoluteUrlAsUrl();
+    }
+
+    String key = base.getAbsolutePath();
+    long timestamp = SvnUtil.getWcDb(root.getIoFile()).lastModified();
+    Pair<SVNURL, Long> cached;
+
+    synchronized (myCache) {
+      cached = myCache.get(key);
+    }
+    // zero means that wc.db was not found
+    if (cached != null && timestamp != 0 && cached.getSecond() == timestamp) {
+      return cached.getFirst();
+    }
+
+    SVNURL result = getUrl(client.doInfo(base, revision));
+    if (result != null && timestamp != 0) {
+      synchronized (myCache) {
+        myCache.put(key, Pair.create(result, timestamp));
+      }
+    }
+
+    return result;
+  }
+
+  public void clear() {
+    synchronized (myCache) {
+      myCache.clear();
+    }
+  }
+
+  @Nullable
+  private static SVNURL getUrl(@Nullable Info info) {
+    return info != null ? info.getURL() : null;
+  }
+
+  private static boolean isLocal(@Nullable SVNRevision revision) {
+    return revision == null ||
+           SVNRevision.UNDEFINED.equals(revision) ||
+           SVNRevision.BASE.equals(revision) ||
+           SVNRevision.WORKING.equals(revision);
+  }
+}
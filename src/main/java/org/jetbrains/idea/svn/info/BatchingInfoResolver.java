@@ -0,0 +1,134 @@
+package org.jetbrains.idea.svn.info;
+
+import consulo.ide.impl.idea.util.containers.Convertor;
+import consulo.logging.Logger;
+import consulo.util.io.FileUtil;
+import org.jetbrains.idea.svn.commandLine.SvnBindException;
+import org.jetbrains.idea.svn.commandLine.SvnExceptionWrapper;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.*;
+
+/**
+ * Lazily resolves {@link Info} for files reported by single status request.
+ * <p>
+ * Only files which info is likely to be requested (for instance, externals or entries without url) are registered while status output
+ * is processed. When info is requested for some file, info for all registered (but not yet resolved) files is requested with one
+ * "svn info" command per {@link #BATCH_SIZE} files. Resolved info is kept only until it is requested - status caches its info itself.
+ */
+public class BatchingInfoResolver implements Convertor<File, Info> {
+
+  private static final Logger LOG = Logger.getInstance(BatchingInfoResolver.class);
+
+  public static final int BATCH_SIZE = 256;
+
+  @Nonnull private final InfoClient myClient;
+  @Nullable private final SVNRevision myRevision;
+  @Nonnull private final Object myLock = new Object();
+  // key - system independent absolute path
+  @Nonnull private final Map<String, Info> myResolved = new HashMap<>();
+  @Nonnull private final LinkedHashMap<String, File> myPending = new LinkedHashMap<>();
+
+  public BatchingInfoResolver(@Nonnull InfoClient client, @Nullable SVNRevision revision) {
+    myClient = client;
+    myRevision = revision;
+  }
+
+  /**
+   * Registers file which info will likely be requested later.
+   */
+  public void register(@Nullable File file) {
+    if (file != null && isBatchable()) {
+      synchronized (myLock) {
+        myPending.put(getKey(file), file);
+      }
+    }
+  }
+
+  @Override
+  public Info convert(File file) {
+    try {
+      return resolve(file);
+    }
+    catch (SvnBindException e) {
+      throw new SvnExceptionWrapper(e);
+    }
+  }
+
+  @Nullable
+  public Info resolve(@Nonnull File file) throws SvnBindException {
+    String key = getKey(file);
+    List<File> batch = null;
+
+    synchronized (myLock) {
+      if (myResolved.containsKey(key)) {
+        return myResolved.remove(key);
+      }
+      myPending.remove(key);
+      if (!myPending.isEmpty()) {
+        batch = takeBatch(file);
+      }
+    }
+
+    // command is executed without lock - so info for other files could be requested concurrently
+    if (batch != null) {
+      Info result = resolveBatch(batch, key);
+
+      if (result != null) {
+        return result;
+      }
+    }
+
+    // file could be absent in batch result (for instance, if it is not versioned) - use separate request to get same result (or error)
+    // as it would be for single file
+    return myClient.doInfo(file, myRevision);
+  }
+
+  @Nonnull
+  private List<File> takeBatch(@Nonnull File requested) {
+    List<File> batch = new ArrayList<>(Math.min(BATCH_SIZE, myPending.size() + 1));
+    batch.add(requested);
+
+    Iterator<File> iterator = myPending.values().iterator();
+    while (batch.size() < BATCH_SIZE && iterator.hasNext()) {
+      batch.add(iterator.next());
+      iterator.remove();
+    }
+    return batch;
+  }
+
+  @Nullable
+  private Info resolveBatch(@Nonnull List<File> batch, @Nonnull String requestedKey) {
+    Map<String, Info> result = new HashMap<>();
+
+    try {
+      myClient.doInfo(batch, info -> {
+        if (info != null && info.getFile() != null) {
+          result.put(getKey(info.getFile()), info);
+        }
+      });
+    }
+    catch (SvnBindException e) {
+      LOG.debug("Could not get info for " + batch.size() + " files", e);
+    }
+
+    Info requested = result.remove(requestedKey);
+    synchronized (myLock) {
+      myResolved.putAll(result);
+    }
+    return requested;
+  }
+
+  private boolean isBatchable() {
+    // multiple targets info does not support revision parameter
+    return myRevision == null || SVNRevision.UNDEFINED.equals(myRevision) || SVNRevision.WORKING.equals(myRevision);
+  }
+
+  @Nonnull
+  private static String getKey(@Nonnull File file) {
+    return FileUtil.toSystemIndependentName(file.getAbsolutePath());
+  }
+}
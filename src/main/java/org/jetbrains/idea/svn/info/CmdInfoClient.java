@@ -34,7 +34,6 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
@@ -53,6 +52,13 @@ public class CmdInfoClient extends BaseSvnClient implements InfoClient {
   private static final Logger LOG = Logger.getInstance(CmdInfoClient.class);
 
   private String execute(@Nonnull List<String> parameters, @Nonnull File path) throws SvnBindException {
+    Command command = newCommand(SvnCommandName.info);
+    command.put(parameters);
+
+    return execute(command, path);
+  }
+
+  private String execute(@Nonnull Command command, @Nonnull File path) throws SvnBindException {
     // workaround: separately capture command output - used in exception handling logic to overcome svn 1.8 issue (see below)
     final ProcessOutput output = new ProcessOutput();
     LineCommandListener listener = new LineCommandAdapter() {
@@ -65,9 +71,9 @@ public class CmdInfoClient extends BaseSvnClient implements InfoClient {
     };
 
     try {
-      CommandExecutor command = execute(myVcs, SvnTarget.fromFile(path), SvnCommandName.info, parameters, listener);
+      CommandExecutor executor = execute(myVcs, SvnTarget.fromFile(path), null, command, listener);
 
-      return command.getOutput();
+      return executor.getOutput();
     }
     catch (SvnBindException e) {
       final String text = StringUtil.notNullize(e.getMessage());
@@ -121,7 +127,7 @@ public class CmdInfoClient extends BaseSvnClient implements InfoClient {
 
   private static void parseResult(@Nonnull String result, @Nonnull SvnInfoHandler handler) throws SvnBindException {
     try {
-      SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+      SAXParser parser = CommandUtil.newSaxParser();
 
       parser.parse(new ByteArrayInputStream(result.trim().getBytes(CharsetToolkit.UTF8_CHARSET)), handler);
     }
@@ -169,15 +175,15 @@ public class CmdInfoClient extends BaseSvnClient implements InfoClient {
     if (base != null) {
       base = CommandUtil.requireExistingParent(base);
 
-      List<String> parameters = ContainerUtil.newArrayList();
-      for (File file : paths) {
-        CommandUtil.put(parameters, file);
-      }
-      parameters.add("--xml");
+      // targets are passed using "--targets" file if command line becomes too long
+      Command command = newCommand(SvnCommandName.info);
+      command.put("--xml");
+      command.setTargets(paths);
 
       // Currently do not handle exceptions here like in SvnVcs.handleInfoException - just continue with parsing in case of warnings for
       // some of the requested items
-      String result = execute(parameters, base);
+      String result = execute(command, base);
+      myVcs.getLocalCommandPool().registerBatchedTargets(paths.size());
       if (handler != null) {
         parseResult(handler, base, result);
       }
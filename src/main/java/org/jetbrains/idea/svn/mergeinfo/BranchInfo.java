@@ -15,13 +15,18 @@
  */
 package org.jetbrains.idea.svn.mergeinfo;
 
+import consulo.component.ProcessCanceledException;
 import consulo.logging.Logger;
 import consulo.util.collection.ContainerUtil;
 import consulo.util.collection.MultiMap;
 import consulo.util.lang.Comparing;
+import consulo.util.lang.ExceptionUtil;
+import consulo.util.lang.ObjectUtil;
+import consulo.util.lang.ref.Ref;
 import consulo.util.lang.function.Condition;
 import consulo.versionControlSystem.VcsException;
 import org.jetbrains.idea.svn.SvnPropertyKeys;
+import org.jetbrains.idea.svn.SvnUtil;
 import org.jetbrains.idea.svn.SvnVcs;
 import org.jetbrains.idea.svn.commandLine.SvnBindException;
 import org.jetbrains.idea.svn.dialogs.WCInfoWithBranches;
@@ -38,23 +43,29 @@ import org.tmatesoft.svn.core.wc.SVNRevision;
 import org.tmatesoft.svn.core.wc2.SvnTarget;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 public class BranchInfo {
 
   private final static Logger LOG = Logger.getInstance(BranchInfo.class);
   // repo path in branch in format path@revision -> merged revisions
   @Nonnull
-  private final Map<String, Set<Long>> myPathMergedMap;
-  @Nonnull
-  private final Map<String, Set<Long>> myNonInheritablePathMergedMap;
+  private final Map<String, MergedRevisions> myPathMergedMap;
 
-  private boolean myMixedRevisionsFound;
+  private volatile boolean myMixedRevisionsFound;
 
   // revision in trunk -> whether merged into branch
   @Nonnull
-  private final Map<Long, SvnMergeInfoCache.MergeCheckResult> myAlreadyCalculatedMap;
+  private final ConcurrentMap<Long, SvnMergeInfoCache.MergeCheckResult> myAlreadyCalculatedMap;
+  // revision in trunk -> calculation in progress; change lists could be checked concurrently, but each revision is calculated only once
+  @Nonnull
+  private final ConcurrentMap<Long, FutureTask<SvnMergeInfoCache.MergeCheckResult>> myCalculatingMap;
+  // guards copy revision
   @Nonnull
   private final Object myCalculatedLock = new Object();
 
@@ -66,6 +77,8 @@ public class BranchInfo {
   private final SvnVcs myVcs;
 
   private SvnMergeInfoCache.CopyRevison myCopyRevison;
+  // repository uuid (or repository url if uuid could not be determined) - to identify merge info in persistent cache
+  private volatile String myRepositoryId;
   @Nonnull
   private final MultiMap<Long, String> myPartlyMerged;
 
@@ -74,53 +87,87 @@ public class BranchInfo {
     myInfo = info;
     myBranch = branch;
 
-    myPathMergedMap = new HashMap<>();
+    myPathMergedMap = ContainerUtil.newConcurrentMap();
     myPartlyMerged = MultiMap.create();
-    myNonInheritablePathMergedMap = new HashMap<>();
 
-    myAlreadyCalculatedMap = new HashMap<>();
+    myAlreadyCalculatedMap = ContainerUtil.newConcurrentMap();
+    myCalculatingMap = ContainerUtil.newConcurrentMap();
   }
 
   private long calculateCopyRevision(final String branchPath) {
-    if (myCopyRevison != null && Comparing.equal(myCopyRevison.getPath(), branchPath)) {
-      return myCopyRevison.getRevision();
+    synchronized (myCalculatedLock) {
+      if (myCopyRevison != null && Comparing.equal(myCopyRevison.getPath(), branchPath)) {
+        return myCopyRevison.getRevision();
+      }
+      myCopyRevison = new SvnMergeInfoCache.CopyRevison(myVcs, branchPath, myInfo.getRootInfo().getRepositoryUrlUrl(), myBranch.getUrl(),
+                                                        myInfo.getRootUrl());
+      return -1;
     }
-    myCopyRevison = new SvnMergeInfoCache.CopyRevison(myVcs, branchPath, myInfo.getRootInfo().getRepositoryUrlUrl(), myBranch.getUrl(),
-                                                      myInfo.getRootUrl());
-    return -1;
   }
 
   public void clear() {
     myPathMergedMap.clear();
-    synchronized (myCalculatedLock) {
-      myAlreadyCalculatedMap.clear();
-    }
+    // results of calculations that are still in progress are not stored - as they are not removed from calculating map by themselves
+    myCalculatingMap.clear();
+    myAlreadyCalculatedMap.clear();
     myMixedRevisionsFound = false;
   }
 
   @Nonnull
   public MergeInfoCached getCached() {
+    long revision;
     synchronized (myCalculatedLock) {
-      long revision = myCopyRevison != null ? myCopyRevison.getRevision() : -1;
-
-      // TODO: NEW MAP WILL ALSO BE CREATED IN MergeInfoCached constructor
-      return new MergeInfoCached(Collections.unmodifiableMap(myAlreadyCalculatedMap), revision);
+      revision = myCopyRevison != null ? myCopyRevison.getRevision() : -1;
     }
+
+    // TODO: NEW MAP WILL ALSO BE CREATED IN MergeInfoCached constructor
+    return new MergeInfoCached(Collections.unmodifiableMap(myAlreadyCalculatedMap), revision);
   }
 
   // branch path - is local working copy path
   @Nonnull
   public SvnMergeInfoCache.MergeCheckResult checkList(@Nonnull final SvnChangeList list, final String branchPath) {
-    synchronized (myCalculatedLock) {
-      SvnMergeInfoCache.MergeCheckResult result;
-      final long revision = calculateCopyRevision(branchPath);
-      if (revision != -1 && revision >= list.getNumber()) {
-        result = SvnMergeInfoCache.MergeCheckResult.COMMON;
+    final long revision = calculateCopyRevision(branchPath);
+    if (revision != -1 && revision >= list.getNumber()) {
+      return SvnMergeInfoCache.MergeCheckResult.COMMON;
+    }
+
+    SvnMergeInfoCache.MergeCheckResult result = myAlreadyCalculatedMap.get(list.getNumber());
+    if (result == null) {
+      FutureTask<SvnMergeInfoCache.MergeCheckResult> task = new FutureTask<>(() -> checkAlive(list, branchPath));
+      FutureTask<SvnMergeInfoCache.MergeCheckResult> calculation = myCalculatingMap.putIfAbsent(list.getNumber(), task);
+
+      if (calculation == null) {
+        calculation = task;
+        task.run();
       }
-      else {
-        result = myAlreadyCalculatedMap.computeIfAbsent(list.getNumber(), aLong -> checkAlive(list, branchPath));
+      SvnMergeInfoCache.MergeCheckResult calculated = null;
+      try {
+        calculated = getResult(calculation);
+      }
+      finally {
+        // failed (or cancelled) calculation is not kept - so it is repeated by next check
+        if (myCalculatingMap.remove(list.getNumber(), calculation) && calculated != null) {
+          myAlreadyCalculatedMap.put(list.getNumber(), calculated);
+        }
       }
-      return result;
+      result = calculated;
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static SvnMergeInfoCache.MergeCheckResult getResult(@Nonnull FutureTask<SvnMergeInfoCache.MergeCheckResult> calculation) {
+    try {
+      return calculation.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ProcessCanceledException(e);
+    }
+    catch (ExecutionException e) {
+      ExceptionUtil.rethrowAllAsUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
     }
   }
 
@@ -138,7 +185,9 @@ public class BranchInfo {
       return SvnMergeInfoCache.MergeCheckResult.NOT_EXISTS;
     }
     if (result.containsKey(SvnMergeInfoCache.MergeCheckResult.NOT_MERGED)) {
-      myPartlyMerged.put(list.getNumber(), result.get(SvnMergeInfoCache.MergeCheckResult.NOT_MERGED));
+      synchronized (myPartlyMerged) {
+        myPartlyMerged.put(list.getNumber(), result.get(SvnMergeInfoCache.MergeCheckResult.NOT_MERGED));
+      }
       return SvnMergeInfoCache.MergeCheckResult.NOT_MERGED;
     }
     return SvnMergeInfoCache.MergeCheckResult.MERGED;
@@ -225,16 +274,14 @@ public class BranchInfo {
                                                         final SVNURL branchUrl,
                                                         final String trunkUrl) throws VcsException, SVNException {
     SvnMergeInfoCache.MergeCheckResult result;
-    Set<Long> mergeInfo = myPathMergedMap.get(branchUrl.toString() + "@" + targetRevision);
+    MergedRevisions mergeInfo = myPathMergedMap.get(branchUrl.toString() + "@" + targetRevision);
 
     if (mergeInfo != null) {
       // take from self or first parent with info; do not go further
-      result = SvnMergeInfoCache.MergeCheckResult.getInstance(mergeInfo.contains(revisionAsked));
+      result = SvnMergeInfoCache.MergeCheckResult.getInstance(mergeInfo.isMerged(revisionAsked, false));
     }
     else {
-      SvnTarget target = SvnTarget.fromURL(branchUrl);
-      PropertyValue mergeinfoProperty = myVcs.getFactory(target).createPropertyClient()
-        .getProperty(target, SvnPropertyKeys.MERGE_INFO, false, SVNRevision.create(targetRevision));
+      Map<String, MergedRevisions> mergeinfoProperty = getMergeInfo(SvnTarget.fromURL(branchUrl), SVNRevision.create(targetRevision));
 
       if (mergeinfoProperty == null) {
         final String newTrunkUrl = SVNPathUtil.removeTail(trunkUrl).trim();
@@ -284,12 +331,10 @@ public class BranchInfo {
 
         // check existing info
         final String keyString = path + "@" + targetRevisionCorrected;
-        final Set<Long> selfInfo = self ? myNonInheritablePathMergedMap.get(keyString) : null;
-        final Set<Long> mergeInfo = myPathMergedMap.get(keyString);
-        if (mergeInfo != null || selfInfo != null) {
-          boolean merged = mergeInfo != null && mergeInfo.contains(revisionAsked) || selfInfo != null && selfInfo.contains(revisionAsked);
+        final MergedRevisions mergeInfo = myPathMergedMap.get(keyString);
+        if (mergeInfo != null) {
           // take from self or first parent with info; do not go further
-          result = SvnMergeInfoCache.MergeCheckResult.getInstance(merged);
+          result = SvnMergeInfoCache.MergeCheckResult.getInstance(mergeInfo.isMerged(revisionAsked, self));
         }
         else {
           if (actualRevision != targetRevisionCorrected) {
@@ -309,8 +354,7 @@ public class BranchInfo {
             revision = SVNRevision.create(targetRevisionCorrected);
           }
 
-          PropertyValue mergeinfoProperty =
-            myVcs.getFactory(target).createPropertyClient().getProperty(target, SvnPropertyKeys.MERGE_INFO, false, revision);
+          Map<String, MergedRevisions> mergeinfoProperty = getMergeInfo(target, revision);
 
           result = mergeinfoProperty == null
                    ? goUp(revisionAsked, targetRevisionCorrected, branchRootPath, path, trunkUrl)
@@ -322,14 +366,52 @@ public class BranchInfo {
     return result;
   }
 
+  /**
+   * Merge info of repository urls (at fixed revision) is taken from persistent cache if possible - as it never changes.
+   *
+   * @return null if target does not have "svn:mergeinfo" property
+   */
+  @Nullable
+  private Map<String, MergedRevisions> getMergeInfo(@Nonnull SvnTarget target, @Nonnull SVNRevision revision) throws VcsException {
+    MergeInfoPersistentCache cache = target.isURL() && revision.getNumber() >= 0 ? myVcs.getMergeInfoPersistentCache() : null;
+    String key = cache != null ? getCacheKey(target.getURL(), revision.getNumber()) : null;
+    Ref<Map<String, MergedRevisions>> cached = key != null ? cache.get(key) : null;
+
+    if (cached != null) {
+      return cached.get();
+    }
+
+    PropertyValue value = myVcs.getFactory(target).createPropertyClient().getProperty(target, SvnPropertyKeys.MERGE_INFO, false, revision);
+    Map<String, MergedRevisions> result = value != null ? MergedRevisions.create(parseMergeInfo(value)) : null;
+
+    if (key != null) {
+      cache.put(key, result);
+    }
+
+    return result;
+  }
+
+  @Nonnull
+  private String getCacheKey(@Nonnull SVNURL url, long revision) {
+    String repositoryUrl = myInfo.getRepoUrl();
+    String urlString = url.toString();
+
+    if (myRepositoryId == null) {
+      myRepositoryId = ObjectUtil.notNull(SvnUtil.getRepositoryUUID(myVcs, myInfo.getRootInfo().getIoFile()), repositoryUrl);
+    }
+
+    return MergeInfoPersistentCache.getKey(myRepositoryId, urlString.startsWith(repositoryUrl)
+                                                          ? urlString.substring(repositoryUrl.length())
+                                                          : urlString, revision);
+  }
+
   @Nonnull
   private SvnMergeInfoCache.MergeCheckResult processMergeinfoProperty(final String pathWithRevisionNumber,
                                                                       final long revisionAsked,
-                                                                      @Nonnull PropertyValue value,
+                                                                      @Nonnull Map<String, MergedRevisions> mergedPathsMap,
                                                                       final String trunkRelativeUrl,
-                                                                      final boolean self) throws SvnBindException {
+                                                                      final boolean self) {
     SvnMergeInfoCache.MergeCheckResult result;
-    Map<String, SVNMergeRangeList> mergedPathsMap = parseMergeInfo(value);
     String mergedPathAffectingTrunkUrl = ContainerUtil.find(mergedPathsMap.keySet(), new Condition<String>() {
       @Override
       public boolean value(String path) {
@@ -338,21 +420,13 @@ public class BranchInfo {
     });
 
     if (mergedPathAffectingTrunkUrl != null) {
-      SVNMergeRangeList mergeRangeList = mergedPathsMap.get(mergedPathAffectingTrunkUrl);
-
-      fillMergedRevisions(pathWithRevisionNumber, mergeRangeList);
+      MergedRevisions mergedRevisions = mergedPathsMap.get(mergedPathAffectingTrunkUrl);
 
-      boolean isAskedRevisionMerged = ContainerUtil.or(mergeRangeList.getRanges(), new Condition<SVNMergeRange>() {
-        @Override
-        public boolean value(@Nonnull SVNMergeRange range) {
-          return isInRange(range, revisionAsked) && (range.isInheritable() || self);
-        }
-      });
-
-      result = SvnMergeInfoCache.MergeCheckResult.getInstance(isAskedRevisionMerged);
+      myPathMergedMap.put(pathWithRevisionNumber, mergedRevisions);
+      result = SvnMergeInfoCache.MergeCheckResult.getInstance(mergedRevisions.isMerged(revisionAsked, self));
     }
     else {
-      myPathMergedMap.put(pathWithRevisionNumber, Collections.<Long>emptySet());
+      myPathMergedMap.put(pathWithRevisionNumber, MergedRevisions.EMPTY);
       result = SvnMergeInfoCache.MergeCheckResult.NOT_MERGED;
     }
 
@@ -369,34 +443,6 @@ public class BranchInfo {
     }
   }
 
-  private void fillMergedRevisions(String pathWithRevisionNumber, @Nonnull SVNMergeRangeList mergeRangeList) {
-    Set<Long> revisions = new HashSet<>();
-    Set<Long> nonInheritableRevisions = new HashSet<>();
-
-    for (SVNMergeRange range : mergeRangeList.getRanges()) {
-      // TODO: Seems there is no much sense in converting merge range to list of revisions - we need just implement smart search
-      // TODO: of revision in sorted list of ranges
-      (range.isInheritable() ? revisions : nonInheritableRevisions).addAll(toRevisionsList(range));
-    }
-
-    myPathMergedMap.put(pathWithRevisionNumber, revisions);
-    if (!nonInheritableRevisions.isEmpty()) {
-      myNonInheritablePathMergedMap.put(pathWithRevisionNumber, nonInheritableRevisions);
-    }
-  }
-
-  @Nonnull
-  private static Collection<Long> toRevisionsList(@Nonnull SVNMergeRange range) {
-    List<Long> result = ContainerUtil.newArrayList();
-
-    // SVN does not include start revision in range
-    for (long i = range.getStartRevision() + 1; i <= range.getEndRevision(); i++) {
-      result.add(i);
-    }
-
-    return result;
-  }
-
   public static boolean isInRange(@Nonnull SVNMergeRange range, long revision) {
     // SVN does not include start revision in range
     return revision > range.getStartRevision() && revision <= range.getEndRevision();
@@ -410,6 +456,8 @@ public class BranchInfo {
   @SuppressWarnings("unused")
   @Nonnull
   public Collection<String> getNotMergedPaths(final long number) {
-    return myPartlyMerged.get(number);
+    synchronized (myPartlyMerged) {
+      return myPartlyMerged.get(number);
+    }
   }
 }
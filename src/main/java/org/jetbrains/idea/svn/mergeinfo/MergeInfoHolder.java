@@ -16,6 +16,10 @@
 package org.jetbrains.idea.svn.mergeinfo;
 
 import consulo.application.ApplicationManager;
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.ProgressManager;
+import consulo.component.ProcessCanceledException;
+import consulo.logging.Logger;
 import consulo.project.Project;
 import consulo.util.lang.Couple;
 import consulo.util.lang.ObjectUtil;
@@ -31,9 +35,15 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 public class MergeInfoHolder {
 
+  private static final Logger LOG = Logger.getInstance(MergeInfoHolder.class);
+
+  // number of change lists which merge state is calculated concurrently during refresh
+  private static final int REFRESH_PARALLELISM = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+
   @Nonnull
   private final DecoratorManager myManager;
   @Nonnull
@@ -112,6 +122,9 @@ public class MergeInfoHolder {
 	private final WCInfoWithBranches myRefreshedRoot;
     private final WCInfoWithBranches.Branch myRefreshedBranch;
     private final String myBranchPath;
+    // limits number of change lists being checked at the same time
+    @Nonnull
+    private final Semaphore myPermits = new Semaphore(REFRESH_PARALLELISM);
 
     private MyRefresher() {
       myRefreshedRoot = myPanel.getWcInfo();
@@ -122,26 +135,58 @@ public class MergeInfoHolder {
     public void onBeforeStartReport() {
     }
 
+    // change lists are reported on background thread - their merge state is calculated on pooled threads under progress indicator of
+    // reporting thread, so refresh cancellation also stops the checks
     public boolean report(final CommittedChangeList list) {
       if (list instanceof SvnChangeList) {
-        final SvnMergeInfoCache.MergeCheckResult checkState =
-          myMergeInfoCache.getState(myRefreshedRoot, (SvnChangeList)list, myRefreshedBranch, myBranchPath);
-        // todo make batches - by 10
-        final long number = list.getNumber();
-        ApplicationManager.getApplication().invokeLater(new Runnable() {
-          public void run() {
-            final MergeInfoCached cachedState = myCachedMap.get(createKey(myRefreshedRoot, myRefreshedBranch));
-            if (cachedState != null) {
-              cachedState.getMap().put(number, checkState);
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+
+        ProgressManager.checkCanceled();
+        myPermits.acquireUninterruptibly();
+        try {
+          ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+              ProgressManager.getInstance().executeProcessUnderProgress(() -> checkState((SvnChangeList)list), indicator);
             }
-            myManager.repaintTree();
-          }
-        });
+            catch (ProcessCanceledException ignore) {
+            }
+            catch (Throwable e) {
+              LOG.error(e);
+            }
+            finally {
+              myPermits.release();
+            }
+          });
+        }
+        catch (RuntimeException e) {
+          myPermits.release();
+          throw e;
+        }
       }
       return true;
     }
 
+    private void checkState(@Nonnull SvnChangeList list) {
+      final SvnMergeInfoCache.MergeCheckResult checkState =
+        myMergeInfoCache.getState(myRefreshedRoot, list, myRefreshedBranch, myBranchPath);
+      // todo make batches - by 10
+      final long number = list.getNumber();
+      ApplicationManager.getApplication().invokeLater(new Runnable() {
+        public void run() {
+          final MergeInfoCached cachedState = myCachedMap.get(createKey(myRefreshedRoot, myRefreshedBranch));
+          if (cachedState != null) {
+            cachedState.getMap().put(number, checkState);
+          }
+          myManager.repaintTree();
+        }
+      });
+    }
+
     public void onAfterEndReport() {
+      // wait for all reported change lists to be checked
+      myPermits.acquireUninterruptibly(REFRESH_PARALLELISM);
+      myPermits.release(REFRESH_PARALLELISM);
+
       ApplicationManager.getApplication().invokeLater(new Runnable() {
         public void run() {
           myCachedMap.remove(createKey(myRefreshedRoot, myRefreshedBranch));
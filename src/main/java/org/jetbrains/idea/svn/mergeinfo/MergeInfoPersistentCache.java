@@ -0,0 +1,198 @@
+package org.jetbrains.idea.svn.mergeinfo;
+
+import consulo.application.impl.internal.JobScheduler;
+import consulo.container.boot.ContainerPathManager;
+import consulo.index.io.data.DataOutputStream;
+import consulo.logging.Logger;
+import consulo.util.io.BufferExposingByteArrayOutputStream;
+import consulo.util.io.FileUtil;
+import consulo.util.io.UnsyncByteArrayInputStream;
+import consulo.util.lang.ref.Ref;
+import org.jetbrains.idea.svn.SvnVcs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disk-backed cache of "svn:mergeinfo" property values of repository urls at fixed revisions - such values never change, so they could
+ * be reused between IDE sessions instead of requesting them from repository again.
+ * <p>
+ * Keys are built with {@link #getKey(String, String, long)} from repository identifier (uuid), repository relative path and revision.
+ * Only {@link #MAX_ENTRIES} most recently used entries are kept. Changed cache is saved every {@link #SAVE_INTERVAL} minutes and on dispose.
+ */
+public class MergeInfoPersistentCache {
+
+  private static final Logger LOG = Logger.getInstance(MergeInfoPersistentCache.class);
+
+  private static final int VERSION = 1;
+  public static final int MAX_ENTRIES = 20000;
+  public static final long SAVE_INTERVAL = 5;
+
+  @Nonnull private final File myFile;
+  @Nonnull private final Object myLock = new Object();
+  // access ordered - so least recently used entries are evicted first; null value - url does not have "svn:mergeinfo" property
+  @Nonnull private final LinkedHashMap<String, Map<String, MergedRevisions>> myEntries =
+    new LinkedHashMap<String, Map<String, MergedRevisions>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Map<String, MergedRevisions>> eldest) {
+        return size() > MAX_ENTRIES;
+      }
+    };
+  // cache is changed since last save if counts differ
+  private long myModificationCount;
+  private long mySavedModificationCount;
+  @Nonnull private final ScheduledFuture<?> mySaveFuture;
+
+  public MergeInfoPersistentCache(@Nonnull SvnVcs vcs) {
+    File directory = new File(new File(ContainerPathManager.get().getSystemPath(), "vcs"), "svn_mergeinfo");
+    directory.mkdirs();
+    myFile = new File(directory, vcs.getProject().getLocationHash());
+    load();
+    mySaveFuture = JobScheduler.getScheduler().scheduleWithFixedDelay(this::force, SAVE_INTERVAL, SAVE_INTERVAL, TimeUnit.MINUTES);
+  }
+
+  @Nonnull
+  public static String getKey(@Nonnull String repositoryId, @Nonnull String relativePath, long revision) {
+    return repositoryId + ":" + relativePath + "@" + revision;
+  }
+
+  /**
+   * @return null if there is no cached value, reference to null if url does not have merge info
+   */
+  @Nullable
+  public Ref<Map<String, MergedRevisions>> get(@Nonnull String key) {
+    synchronized (myLock) {
+      return myEntries.containsKey(key) ? Ref.create(myEntries.get(key)) : null;
+    }
+  }
+
+  public void put(@Nonnull String key, @Nullable Map<String, MergedRevisions> mergeInfo) {
+    synchronized (myLock) {
+      myEntries.put(key, mergeInfo);
+      myModificationCount++;
+    }
+  }
+
+  public void force() {
+    // saves are serialized - so older snapshot could not overwrite newer one
+    synchronized (myFile) {
+      long modificationCount;
+      byte[] data;
+
+      synchronized (myLock) {
+        if (myModificationCount == mySavedModificationCount) return;
+
+        modificationCount = myModificationCount;
+        data = serialize();
+      }
+
+      // file is written without cache lock - so cache could be used while it is being saved
+      if (data != null && write(data)) {
+        synchronized (myLock) {
+          mySavedModificationCount = modificationCount;
+        }
+      }
+    }
+  }
+
+  @Nullable
+  private byte[] serialize() {
+    try {
+      BufferExposingByteArrayOutputStream bos = new BufferExposingByteArrayOutputStream();
+      DataOutput out = new DataOutputStream(bos);
+
+      out.writeInt(VERSION);
+      out.writeInt(myEntries.size());
+      // eldest entries first - so access order is restored on load
+      for (Map.Entry<String, Map<String, MergedRevisions>> entry : myEntries.entrySet()) {
+        out.writeUTF(entry.getKey());
+        save(out, entry.getValue());
+      }
+      return bos.toByteArray();
+    }
+    catch (IOException e) {
+      LOG.info(e);
+      return null;
+    }
+  }
+
+  /**
+   * Data is written to temporary file first - so existing cache file is not corrupted if write fails.
+   */
+  private boolean write(@Nonnull byte[] data) {
+    File temp = new File(myFile.getPath() + ".tmp");
+
+    try {
+      FileUtil.writeToFile(temp, data);
+      Files.move(temp.toPath(), myFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return true;
+    }
+    catch (IOException e) {
+      LOG.info("Could not save merge info cache " + myFile, e);
+      FileUtil.delete(temp);
+      return false;
+    }
+  }
+
+  public void dispose() {
+    mySaveFuture.cancel(false);
+    force();
+  }
+
+  private void load() {
+    try {
+      DataInputStream in = new DataInputStream(new UnsyncByteArrayInputStream(Files.readAllBytes(myFile.toPath())));
+
+      if (in.readInt() == VERSION) {
+        int size = in.readInt();
+
+        for (int i = 0; i < size; i++) {
+          myEntries.put(in.readUTF(), read(in));
+        }
+      }
+    }
+    catch (FileNotFoundException | NoSuchFileException ignore) {
+    }
+    catch (IOException | RuntimeException e) {
+      // cache is just dropped if it could not be read (for instance, file is corrupted)
+      LOG.info(e);
+      myEntries.clear();
+      FileUtil.delete(myFile);
+    }
+  }
+
+  private static void save(@Nonnull DataOutput out, @Nullable Map<String, MergedRevisions> mergeInfo) throws IOException {
+    out.writeBoolean(mergeInfo != null);
+    if (mergeInfo != null) {
+      out.writeInt(mergeInfo.size());
+      for (Map.Entry<String, MergedRevisions> entry : mergeInfo.entrySet()) {
+        out.writeUTF(entry.getKey());
+        MergedRevisions.Externalizer.INSTANCE.save(out, entry.getValue());
+      }
+    }
+  }
+
+  @Nullable
+  private static Map<String, MergedRevisions> read(@Nonnull DataInput in) throws IOException {
+    Map<String, MergedRevisions> result = null;
+
+    if (in.readBoolean()) {
+      int size = in.readInt();
+
+      result = new LinkedHashMap<>(size);
+      for (int i = 0; i < size; i++) {
+        result.put(in.readUTF(), MergedRevisions.Externalizer.INSTANCE.read(in));
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,165 @@
+package org.jetbrains.idea.svn.mergeinfo;
+
+import consulo.index.io.data.DataExternalizer;
+import org.tmatesoft.svn.core.SVNMergeRange;
+import org.tmatesoft.svn.core.SVNMergeRangeList;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Immutable set of revisions merged from some path - as specified by single "svn:mergeinfo" entry.
+ * <p>
+ * Merge ranges are not expanded to separate revisions, but stored as sorted non-overlapping intervals (separately for inheritable and
+ * non-inheritable ranges) - so memory is proportional to number of ranges and revision lookup is a binary search.
+ */
+public class MergedRevisions {
+
+  public static final MergedRevisions EMPTY = new MergedRevisions(new long[0], new long[0], new long[0], new long[0]);
+
+  // SVN does not include start revision in range - so intervals are (start, end]
+  @Nonnull private final long[] myStarts;
+  @Nonnull private final long[] myEnds;
+  @Nonnull private final long[] myNonInheritableStarts;
+  @Nonnull private final long[] myNonInheritableEnds;
+
+  private MergedRevisions(@Nonnull long[] starts,
+                          @Nonnull long[] ends,
+                          @Nonnull long[] nonInheritableStarts,
+                          @Nonnull long[] nonInheritableEnds) {
+    myStarts = starts;
+    myEnds = ends;
+    myNonInheritableStarts = nonInheritableStarts;
+    myNonInheritableEnds = nonInheritableEnds;
+  }
+
+  @Nonnull
+  public static MergedRevisions create(@Nonnull SVNMergeRangeList mergeRangeList) {
+    List<SVNMergeRange> inheritable = new ArrayList<>();
+    List<SVNMergeRange> nonInheritable = new ArrayList<>();
+
+    for (SVNMergeRange range : mergeRangeList.getRanges()) {
+      // reverse ranges do not contain any revision
+      if (range.getStartRevision() < range.getEndRevision()) {
+        (range.isInheritable() ? inheritable : nonInheritable).add(range);
+      }
+    }
+
+    if (inheritable.isEmpty() && nonInheritable.isEmpty()) {
+      return EMPTY;
+    }
+
+    long[][] intervals = toIntervals(inheritable);
+    long[][] nonInheritableIntervals = toIntervals(nonInheritable);
+
+    return new MergedRevisions(intervals[0], intervals[1], nonInheritableIntervals[0], nonInheritableIntervals[1]);
+  }
+
+  /**
+   * @param mergeInfo parsed "svn:mergeinfo" property value - merge source path to merged ranges
+   */
+  @Nonnull
+  public static Map<String, MergedRevisions> create(@Nonnull Map<String, SVNMergeRangeList> mergeInfo) {
+    Map<String, MergedRevisions> result = new LinkedHashMap<>();
+
+    for (Map.Entry<String, SVNMergeRangeList> entry : mergeInfo.entrySet()) {
+      result.put(entry.getKey(), create(entry.getValue()));
+    }
+
+    return result;
+  }
+
+  /**
+   * @param includeNonInheritable if non-inheritable ranges should also be checked - should be true only if merge info is set on the path
+   *                              being checked (and not on one of its parents)
+   */
+  public boolean isMerged(long revision, boolean includeNonInheritable) {
+    return contains(myStarts, myEnds, revision) ||
+           includeNonInheritable && contains(myNonInheritableStarts, myNonInheritableEnds, revision);
+  }
+
+  public boolean isEmpty() {
+    return myStarts.length == 0 && myNonInheritableStarts.length == 0;
+  }
+
+  public int getRangesCount() {
+    return myStarts.length + myNonInheritableStarts.length;
+  }
+
+  private static boolean contains(@Nonnull long[] starts, @Nonnull long[] ends, long revision) {
+    int index = Arrays.binarySearch(starts, revision);
+    // last interval which start is less than revision
+    int candidate = index >= 0 ? index - 1 : -index - 2;
+
+    return candidate >= 0 && revision <= ends[candidate];
+  }
+
+  @Nonnull
+  private static long[][] toIntervals(@Nonnull List<SVNMergeRange> ranges) {
+    ranges.sort(Comparator.comparingLong(SVNMergeRange::getStartRevision));
+
+    long[] starts = new long[ranges.size()];
+    long[] ends = new long[ranges.size()];
+    int count = 0;
+
+    for (SVNMergeRange range : ranges) {
+      // join overlapping and adjacent intervals - so starts are strictly increasing
+      if (count > 0 && range.getStartRevision() <= ends[count - 1]) {
+        ends[count - 1] = Math.max(ends[count - 1], range.getEndRevision());
+      }
+      else {
+        starts[count] = range.getStartRevision();
+        ends[count] = range.getEndRevision();
+        count++;
+      }
+    }
+
+    return new long[][]{Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)};
+  }
+
+  static class Externalizer implements DataExternalizer<MergedRevisions> {
+    public static final Externalizer INSTANCE = new Externalizer();
+
+    @Override
+    public void save(@Nonnull DataOutput out, @Nonnull MergedRevisions value) throws IOException {
+      saveIntervals(out, value.myStarts, value.myEnds);
+      saveIntervals(out, value.myNonInheritableStarts, value.myNonInheritableEnds);
+    }
+
+    @Nonnull
+    @Override
+    public MergedRevisions read(@Nonnull DataInput in) throws IOException {
+      long[][] intervals = readIntervals(in);
+      long[][] nonInheritableIntervals = readIntervals(in);
+
+      return intervals[0].length == 0 && nonInheritableIntervals[0].length == 0
+             ? EMPTY
+             : new MergedRevisions(intervals[0], intervals[1], nonInheritableIntervals[0], nonInheritableIntervals[1]);
+    }
+
+    private static void saveIntervals(@Nonnull DataOutput out, @Nonnull long[] starts, @Nonnull long[] ends) throws IOException {
+      out.writeInt(starts.length);
+      for (int i = 0; i < starts.length; i++) {
+        out.writeLong(starts[i]);
+        out.writeLong(ends[i]);
+      }
+    }
+
+    @Nonnull
+    private static long[][] readIntervals(@Nonnull DataInput in) throws IOException {
+      int size = in.readInt();
+      long[] starts = new long[size];
+      long[] ends = new long[size];
+
+      for (int i = 0; i < size; i++) {
+        starts[i] = in.readLong();
+        ends[i] = in.readLong();
+      }
+
+      return new long[][]{starts, ends};
+    }
+  }
+}
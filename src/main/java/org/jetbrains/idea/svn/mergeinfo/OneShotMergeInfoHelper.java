@@ -57,7 +57,7 @@ public class OneShotMergeInfoHelper implements MergeChecker {
   private final Map<Long, Collection<String>> myPartiallyMerged;
   // subpath [file] (local) to (subpathURL - merged FROM - to ranges list)
   @Nonnull
-  private final NavigableMap<String, Map<String, SVNMergeRangeList>> myMergeInfoMap;
+  private final NavigableMap<String, Map<String, MergedRevisions>> myMergeInfoMap;
   @Nonnull
   private final Object myMergeInfoLock;
 
@@ -120,12 +120,12 @@ public class OneShotMergeInfoHelper implements MergeChecker {
       String key = toKey(sourceRelativePath);
 
       synchronized (myMergeInfoLock) {
-        Map<String, SVNMergeRangeList> mergeInfo = myMergeInfoMap.get(key);
+        Map<String, MergedRevisions> mergeInfo = myMergeInfoMap.get(key);
         if (mergeInfo != null) {
           processor.process(key, mergeInfo);
         }
         else {
-          for (Map.Entry<String, Map<String, SVNMergeRangeList>> entry : myMergeInfoMap.tailMap(key).entrySet()) {
+          for (Map.Entry<String, Map<String, MergedRevisions>> entry : myMergeInfoMap.tailMap(key).entrySet()) {
             if (isUnder(entry.getKey(), key) && processor.process(entry.getKey(), entry.getValue())) {
               break;
             }
@@ -143,7 +143,7 @@ public class OneShotMergeInfoHelper implements MergeChecker {
     return ".".equals(parentUrl) || isAncestor(ensureStartSlash(parentUrl), ensureStartSlash(childUrl));
   }
 
-  private static class InfoProcessor implements PairProcessor<String, Map<String, SVNMergeRangeList>>
+  private static class InfoProcessor implements PairProcessor<String, Map<String, MergedRevisions>>
   {
 
     @Nonnull
@@ -164,7 +164,7 @@ public class OneShotMergeInfoHelper implements MergeChecker {
     }
 
     // TODO: Try to unify with BranchInfo.processMergeinfoProperty()
-    public boolean process(@Nonnull String workingCopyRelativePath, @Nonnull Map<String, SVNMergeRangeList> mergedPathsMap) {
+    public boolean process(@Nonnull String workingCopyRelativePath, @Nonnull Map<String, MergedRevisions> mergedPathsMap) {
       boolean processed = false;
       boolean isCurrentPath = workingCopyRelativePath.equals(mySourceRelativePath);
 
@@ -177,11 +177,8 @@ public class OneShotMergeInfoHelper implements MergeChecker {
           find(mergedPathsMap.keySet(), path -> isAncestor(myRepositoryRelativeSourcePath, ensureStartSlash(path)));
 
         if (mergedPathAffectingSourcePath != null) {
-          SVNMergeRangeList mergeRangeList = mergedPathsMap.get(mergedPathAffectingSourcePath);
-
           processed = true;
-          myIsMerged = exists(mergeRangeList.getRanges(),
-                              range -> BranchInfo.isInRange(range, myRevisionNumber) && (range.isInheritable() || isCurrentPath));
+          myIsMerged = mergedPathsMap.get(mergedPathAffectingSourcePath).isMerged(myRevisionNumber, isCurrentPath);
         }
       }
 
@@ -194,7 +191,7 @@ public class OneShotMergeInfoHelper implements MergeChecker {
     return new PropertyConsumer() {
       public void handleProperty(@Nonnull File path, @Nonnull PropertyData property) throws SVNException {
         String workingCopyRelativePath = getWorkingCopyRelativePath(path);
-        Map<String, SVNMergeRangeList> mergeInfo = parseMergeInfo(property);
+        Map<String, MergedRevisions> mergeInfo = parseMergeInfo(property);
 
         synchronized (myMergeInfoLock) {
           myMergeInfoMap.put(toKey(workingCopyRelativePath), mergeInfo);
@@ -208,9 +205,9 @@ public class OneShotMergeInfoHelper implements MergeChecker {
       }
 
       @Nonnull
-      private Map<String, SVNMergeRangeList> parseMergeInfo(@Nonnull PropertyData property) throws SVNException {
+      private Map<String, MergedRevisions> parseMergeInfo(@Nonnull PropertyData property) throws SVNException {
         try {
-          return BranchInfo.parseMergeInfo(ObjectUtil.notNull(property.getValue()));
+          return MergedRevisions.create(BranchInfo.parseMergeInfo(ObjectUtil.notNull(property.getValue())));
         }
         catch (SvnBindException e) {
           throw new SVNException(SVNErrorMessage.create(SVNErrorCode.MERGE_INFO_PARSE_ERROR, e), e);
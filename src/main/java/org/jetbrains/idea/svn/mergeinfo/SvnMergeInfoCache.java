@@ -37,8 +37,9 @@ import org.tmatesoft.svn.core.SVNURL;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 @Singleton
 public class SvnMergeInfoCache {
@@ -48,7 +49,7 @@ public class SvnMergeInfoCache {
   private final Project myProject;
   // key - working copy root url
   @Nonnull
-  private final Map<String, MyCurrentUrlData> myCurrentUrlMapping;
+  private final ConcurrentMap<String, MyCurrentUrlData> myCurrentUrlMapping;
 
   @Deprecated
   public static Class<SvnMergeInfoCacheListener> SVN_MERGE_INFO_CACHE = SvnMergeInfoCacheListener.class;
@@ -56,7 +57,7 @@ public class SvnMergeInfoCache {
   @Inject
   private SvnMergeInfoCache(@Nonnull Project project) {
     myProject = project;
-    myCurrentUrlMapping = new HashMap<>();
+    myCurrentUrlMapping = ContainerUtil.newConcurrentMap();
   }
 
   public static SvnMergeInfoCache getInstance(@Nonnull Project project) {
@@ -79,23 +80,14 @@ public class SvnMergeInfoCache {
   }
 
   // only refresh might have changed; for branches/roots change, another method is used
+  // could be called concurrently for different change lists
   public MergeCheckResult getState(@Nonnull WCInfoWithBranches info,
                                    @Nonnull SvnChangeList list,
                                    @Nonnull WCInfoWithBranches.Branch selectedBranch,
                                    final String branchPath) {
-    MyCurrentUrlData rootMapping = myCurrentUrlMapping.get(info.getRootUrl());
-    BranchInfo mergeChecker = null;
-    if (rootMapping == null) {
-      rootMapping = new MyCurrentUrlData();
-      myCurrentUrlMapping.put(info.getRootUrl(), rootMapping);
-    }
-    else {
-      mergeChecker = rootMapping.getBranchInfo(branchPath);
-    }
-    if (mergeChecker == null) {
-      mergeChecker = new BranchInfo(SvnVcs.getInstance(myProject), info, selectedBranch);
-      rootMapping.addBranchInfo(branchPath, mergeChecker);
-    }
+    MyCurrentUrlData rootMapping = myCurrentUrlMapping.computeIfAbsent(info.getRootUrl(), key -> new MyCurrentUrlData());
+    BranchInfo mergeChecker =
+      rootMapping.getOrCreateBranchInfo(branchPath, () -> new BranchInfo(SvnVcs.getInstance(myProject), info, selectedBranch));
 
     return mergeChecker.checkList(list, branchPath);
   }
@@ -186,11 +178,16 @@ public class SvnMergeInfoCache {
     }
 
     public BranchInfo getBranchInfo(final String branchUrl) {
-      return myBranchInfo.get(branchUrl);
+      synchronized (myBranchInfo) {
+        return myBranchInfo.get(branchUrl);
+      }
     }
 
-    public void addBranchInfo(@Nonnull String branchUrl, @Nonnull BranchInfo mergeChecker) {
-      myBranchInfo.put(branchUrl, mergeChecker);
+    @Nonnull
+    public BranchInfo getOrCreateBranchInfo(@Nonnull String branchUrl, @Nonnull Supplier<BranchInfo> factory) {
+      synchronized (myBranchInfo) {
+        return myBranchInfo.computeIfAbsent(branchUrl, key -> factory.get());
+      }
     }
   }
 
@@ -17,13 +17,16 @@ package org.jetbrains.idea.svn.status;
 
 import consulo.ide.impl.idea.openapi.util.Getter;
 import consulo.ide.impl.idea.util.containers.Convertor;
+import consulo.logging.Logger;
 import consulo.util.io.CharsetToolkit;
 import consulo.util.io.FileUtil;
 import consulo.util.lang.StringUtil;
+import consulo.versionControlSystem.VcsException;
 import org.jetbrains.idea.svn.SvnUtil;
 import org.jetbrains.idea.svn.api.BaseSvnClient;
 import org.jetbrains.idea.svn.api.Depth;
 import org.jetbrains.idea.svn.commandLine.*;
+import org.jetbrains.idea.svn.info.BatchingInfoResolver;
 import org.jetbrains.idea.svn.info.Info;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNException;
@@ -31,13 +34,13 @@ import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
 import org.tmatesoft.svn.core.wc.SVNRevision;
 import org.tmatesoft.svn.core.wc2.SvnTarget;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
@@ -51,6 +54,13 @@ import java.util.*;
  */
 public class CmdStatusClient extends BaseSvnClient implements StatusClient {
 
+  private static final Logger LOG = Logger.getInstance(CmdStatusClient.class);
+
+  /**
+   * Local status output is parsed while command is running - not to keep whole (potentially very large) xml document in memory.
+   */
+  public static final boolean STREAM_LOCAL_STATUS = !Boolean.getBoolean("svn.do.not.stream.status");
+
   @Override
   public long doStatus(@Nonnull final File path,
                        @Nullable final SVNRevision revision,
@@ -62,21 +72,54 @@ public class CmdStatusClient extends BaseSvnClient implements StatusClient {
                        @Nonnull final StatusConsumer handler,
                        @Nullable final Collection changeLists) throws SvnBindException {
     File base = CommandUtil.requireExistingParent(path);
-    final Info infoBase = myFactory.createInfoClient().doInfo(base, revision);
+    final SVNURL baseUrl = myVcs.getBaseInfoCache().getUrl(base, revision, myFactory.createInfoClient());
     List<String> parameters = new ArrayList<>();
 
     putParameters(parameters, path, depth, remote, reportAll, includeIgnored, changeLists);
 
-    CommandExecutor command = execute(myVcs, SvnTarget.fromFile(path), SvnCommandName.st, parameters, null);
-    parseResult(path, revision, handler, base, infoBase, command);
+    // remote status could be repeated with new credentials - so its output is not streamed
+    if (STREAM_LOCAL_STATUS && !remote) {
+      streamResult(path, revision, handler, base, baseUrl, parameters);
+    }
+    else {
+      CommandExecutor command = execute(myVcs, SvnTarget.fromFile(path), SvnCommandName.st, parameters, null);
+      parseResult(path, revision, handler, base, baseUrl, command);
+    }
     return 0;
   }
 
+  private void streamResult(@Nonnull File path,
+                            @Nullable SVNRevision revision,
+                            @Nonnull StatusConsumer handler,
+                            @Nonnull File base,
+                            @Nullable SVNURL baseUrl,
+                            @Nonnull List<String> parameters) throws SvnBindException {
+    final SvnStatusHandler[] svnHandl = new SvnStatusHandler[1];
+    svnHandl[0] = createStatusHandler(revision, handler, base, baseUrl, svnHandl);
+    CommandExecutor command;
+
+    try {
+      command = executeStreaming(myVcs, SvnTarget.fromFile(path), SvnCommandName.st, parameters,
+                                 output -> CommandUtil.newSaxParser().parse(new InputSource(output), svnHandl[0]));
+    }
+    catch (SvnBindException e) {
+      throw e;
+    }
+    catch (VcsException e) {
+      if (e.getCause() instanceof SAXException) {
+        LOG.info("Could not parse status output for path: " + path);
+      }
+      throw new SvnBindException(e);
+    }
+
+    handleNothingReported(path, handler, svnHandl[0], command, null);
+  }
+
   private void parseResult(final File path,
                            SVNRevision revision,
                            StatusConsumer handler,
                            File base,
-                           Info infoBase,
+                           SVNURL baseUrl,
                            CommandExecutor command) throws SvnBindException {
     String result = command.getOutput();
 
@@ -86,38 +129,10 @@ public class CmdStatusClient extends BaseSvnClient implements StatusClient {
 
     try {
       final SvnStatusHandler[] svnHandl = new SvnStatusHandler[1];
-      svnHandl[0] = createStatusHandler(revision, handler, base, infoBase, svnHandl);
-      SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+      svnHandl[0] = createStatusHandler(revision, handler, base, baseUrl, svnHandl);
+      SAXParser parser = CommandUtil.newSaxParser();
       parser.parse(new ByteArrayInputStream(result.trim().getBytes(CharsetToolkit.UTF8_CHARSET)), svnHandl[0]);
-      if (!svnHandl[0].isAnythingReported()) {
-        if (!SvnUtil.isSvnVersioned(myVcs, path)) {
-          throw new SvnBindException(SVNErrorCode.WC_NOT_DIRECTORY, "Command - " + command.getCommandText() + ". Result - " + result);
-        } else {
-          // return status indicating "NORMAL" state
-          // typical output would be like
-          // <status>
-          // <target path="1.txt"></target>
-          // </status>
-          // so it does not contain any <entry> element and current parsing logic returns null
-
-          PortableStatus status = new PortableStatus();
-          status.setFile(path);
-          status.setPath(path.getAbsolutePath());
-          status.setContentsStatus(StatusType.STATUS_NORMAL);
-          status.setInfoGetter(new Getter<Info>() {
-            @Override
-            public Info get() {
-              return createInfoGetter(null).convert(path);
-            }
-          });
-          try {
-            handler.consume(status);
-          }
-          catch (SVNException e) {
-            throw new SvnBindException(e);
-          }
-        }
-      }
+      handleNothingReported(path, handler, svnHandl[0], command, result);
     }
     catch (SvnExceptionWrapper e) {
       throw new SvnBindException(e.getCause());
@@ -133,6 +148,42 @@ public class CmdStatusClient extends BaseSvnClient implements StatusClient {
     }
   }
 
+  private void handleNothingReported(@Nonnull final File path,
+                                     @Nonnull StatusConsumer handler,
+                                     @Nonnull SvnStatusHandler svnHandler,
+                                     @Nonnull CommandExecutor command,
+                                     @Nullable String result) throws SvnBindException {
+    if (!svnHandler.isAnythingReported()) {
+      if (!SvnUtil.isSvnVersioned(myVcs, path)) {
+        throw new SvnBindException(SVNErrorCode.WC_NOT_DIRECTORY, "Command - " + command.getCommandText() + ". Result - " + StringUtil.notNullize(result));
+      } else {
+        // return status indicating "NORMAL" state
+        // typical output would be like
+        // <status>
+        // <target path="1.txt"></target>
+        // </status>
+        // so it does not contain any <entry> element and current parsing logic returns null
+
+        PortableStatus status = new PortableStatus();
+        status.setFile(path);
+        status.setPath(path.getAbsolutePath());
+        status.setContentsStatus(StatusType.STATUS_NORMAL);
+        status.setInfoGetter(new Getter<Info>() {
+          @Override
+          public Info get() {
+            return createInfoGetter(null).convert(path);
+          }
+        });
+        try {
+          handler.consume(status);
+        }
+        catch (SVNException e) {
+          throw new SvnBindException(e);
+        }
+      }
+    }
+  }
+
   private static void putParameters(@Nonnull List<String> parameters,
                                     @Nonnull File path,
                                     @Nullable Depth depth,
@@ -153,10 +204,12 @@ public class CmdStatusClient extends BaseSvnClient implements StatusClient {
   public SvnStatusHandler createStatusHandler(final SVNRevision revision,
                                                final StatusConsumer handler,
                                                final File base,
-                                               final Info infoBase, final SvnStatusHandler[] svnHandl) {
-    final SvnStatusHandler.ExternalDataCallback callback = createStatusCallback(handler, base, infoBase, svnHandl);
+                                               final SVNURL baseUrl, final SvnStatusHandler[] svnHandl) {
+    // info for reported files is requested lazily - and in batches for all files reported by this status request
+    final BatchingInfoResolver infoResolver = new BatchingInfoResolver(myFactory.createInfoClient(), revision);
+    final SvnStatusHandler.ExternalDataCallback callback = createStatusCallback(handler, base, baseUrl, svnHandl, infoResolver);
 
-    return new SvnStatusHandler(callback, base, createInfoGetter(revision));
+    return new SvnStatusHandler(callback, base, infoResolver);
   }
 
   private Convertor<File, Info> createInfoGetter(final SVNRevision revision) {
@@ -175,8 +228,9 @@ public class CmdStatusClient extends BaseSvnClient implements StatusClient {
 
   public static SvnStatusHandler.ExternalDataCallback createStatusCallback(final StatusConsumer handler,
                                                                             final File base,
-                                                                            final Info infoBase,
-                                                                            final SvnStatusHandler[] svnHandl) {
+                                                                            final SVNURL baseUrl,
+                                                                            final SvnStatusHandler[] svnHandl,
+                                                                            @Nullable final BatchingInfoResolver infoResolver) {
     final Map<File, Info> externalsMap = new HashMap<>();
     final String[] changelistName = new String[1];
 
@@ -186,32 +240,38 @@ public class CmdStatusClient extends BaseSvnClient implements StatusClient {
         final PortableStatus pending = svnHandl[0].getPending();
         pending.setChangelistName(changelistName[0]);
         try {
-          //if (infoBase != null) {
-          Info baseInfo = infoBase;
+          SVNURL baseFileUrl = baseUrl;
           File baseFile = base;
           final File pendingFile = new File(pending.getPath());
           if (! externalsMap.isEmpty()) {
             for (File file : externalsMap.keySet()) {
               if (FileUtil.isAncestor(file, pendingFile, false)) {
-                baseInfo = externalsMap.get(file);
+                Info externalInfo = externalsMap.get(file);
+                baseFileUrl = externalInfo != null ? externalInfo.getURL() : null;
                 baseFile = file;
                 break;
               }
             }
           }
-          if (baseInfo != null) {
+          if (baseFileUrl != null) {
             final String append;
             final String systemIndependentPath = FileUtil.toSystemIndependentName(pending.getPath());
             if (pendingFile.isAbsolute()) {
               final String relativePath =
                 FileUtil.getRelativePath(FileUtil.toSystemIndependentName(baseFile.getPath()), systemIndependentPath, '/');
-              append = SVNPathUtil.append(baseInfo.getURL().toString(), FileUtil.toSystemIndependentName(relativePath));
+              append = SVNPathUtil.append(baseFileUrl.toString(), FileUtil.toSystemIndependentName(relativePath));
             }
             else {
-              append = SVNPathUtil.append(baseInfo.getURL().toString(), systemIndependentPath);
+              append = SVNPathUtil.append(baseFileUrl.toString(), systemIndependentPath);
             }
             pending.setURL(SVNURL.parseURIEncoded(append));
           }
+          // info is usually requested only for externals, entries without url, copied or conflicted entries
+          if (infoResolver != null &&
+              (baseFileUrl == null || pending.isCopied() || pending.isConflicted() ||
+               StatusType.STATUS_EXTERNAL.equals(pending.getNodeStatus()))) {
+            infoResolver.register(pending.getFile());
+          }
           if (StatusType.STATUS_EXTERNAL.equals(pending.getNodeStatus())) {
             externalsMap.put(pending.getFile(), pending.getInfo());
           }
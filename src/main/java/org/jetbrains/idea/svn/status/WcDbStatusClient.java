@@ -0,0 +1,932 @@
+package org.jetbrains.idea.svn.status;
+
+import consulo.application.progress.ProgressManager;
+import consulo.logging.Logger;
+import consulo.util.lang.StringUtil;
+import org.jetbrains.idea.svn.SvnPropertyKeys;
+import org.jetbrains.idea.svn.SvnUtil;
+import org.jetbrains.idea.svn.WorkingCopyFormat;
+import org.jetbrains.idea.svn.api.BaseSvnClient;
+import org.jetbrains.idea.svn.api.Depth;
+import org.jetbrains.idea.svn.api.NodeKind;
+import org.jetbrains.idea.svn.commandLine.SvnBindException;
+import org.jetbrains.idea.svn.info.Info;
+import org.jetbrains.idea.svn.lock.Lock;
+import org.tmatesoft.sqljet.core.SqlJetException;
+import org.tmatesoft.sqljet.core.table.ISqlJetCursor;
+import org.tmatesoft.sqljet.core.table.ISqlJetTable;
+import org.tmatesoft.sqljet.core.table.SqlJetDb;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.util.SVNDate;
+import org.tmatesoft.svn.core.internal.util.SVNSkel;
+import org.tmatesoft.svn.core.wc.DefaultSVNOptions;
+import org.tmatesoft.svn.core.wc.ISVNOptions;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates local status of 1.7+ working copies by reading "wc.db" directly - without starting "svn" process or using SVNKit. Node state
+ * is taken from "NODES" and "ACTUAL_NODE" tables, files are considered modified if their size or modification time differ from the
+ * recorded ones and (optionally, but enabled by default) their SHA-1 checksum differs from the pristine one.
+ * <p>
+ * Only common cases are handled here. Status of conflicted files and of files with translated contents (eol style, keywords, special
+ * files) is requested from {@link CmdStatusClient} separately for each such file - if there are only few such files. Whole request is
+ * passed to {@link CmdStatusClient} for remote status, changelist filtering, working copies with externals, "svn:global-ignores" or
+ * unfinished operations (work queue or working copy locks), unsupported database formats and if database could not be read.
+ * <p>
+ * Info of created statuses is also built from database rows - so it does not require "svn info" call.
+ */
+public class WcDbStatusClient extends BaseSvnClient implements StatusClient {
+
+  private static final Logger LOG = Logger.getInstance(WcDbStatusClient.class);
+
+  public static final boolean ENABLED = Boolean.getBoolean("svn.status.read.wc.db");
+  public static final boolean VERIFY_CONTENTS = !Boolean.getBoolean("svn.status.wc.db.do.not.verify.contents");
+  /**
+   * If more files should be checked with "svn" process - whole status request is performed with single "svn" process.
+   */
+  public static final int MAX_DELEGATED_PATHS = 3;
+
+  @Nonnull private static final String NODES_PARENT_INDEX = "I_NODES_PARENT";
+  @Nonnull private static final String ACTUAL_PARENT_INDEX = "I_ACTUAL_PARENT";
+  @Nonnull private static final String CHECKSUM_PREFIX = "$sha1$";
+  @Nonnull private static final String GLOBAL_IGNORES = "svn:global-ignores";
+  @Nonnull private static final String SPECIAL = "svn:special";
+  @Nonnull private static final String SCHEDULE_NORMAL = "normal";
+  @Nonnull private static final String SCHEDULE_DELETE = "delete";
+  @Nonnull private static final String SCHEDULE_REPLACE = "replace";
+
+  @Override
+  public long doStatus(@Nonnull File path,
+                       @Nullable SVNRevision revision,
+                       @Nonnull Depth depth,
+                       boolean remote,
+                       boolean reportAll,
+                       boolean includeIgnored,
+                       boolean collectParentExternals,
+                       @Nonnull StatusConsumer handler,
+                       @Nullable Collection changeLists) throws SvnBindException {
+    List<Status> statuses = remote || changeLists != null ? null : collectStatuses(path, depth, reportAll, includeIgnored);
+
+    if (statuses == null) {
+      return createDelegate()
+        .doStatus(path, revision, depth, remote, reportAll, includeIgnored, collectParentExternals, handler, changeLists);
+    }
+
+    try {
+      for (Status status : statuses) {
+        handler.consume(status);
+      }
+    }
+    catch (SVNException e) {
+      throw new SvnBindException(e);
+    }
+    return 0;
+  }
+
+  @Nullable
+  @Override
+  public Status doStatus(@Nonnull File path, boolean remote) throws SvnBindException {
+    List<Status> statuses = remote ? null : collectStatuses(path, Depth.EMPTY, true, false);
+
+    return statuses == null || statuses.isEmpty() ? createDelegate().doStatus(path, remote) : statuses.get(0);
+  }
+
+  @Nonnull
+  private StatusClient createDelegate() {
+    CmdStatusClient result = new CmdStatusClient();
+
+    result.setVcs(myVcs);
+    result.setFactory(myFactory);
+    result.setIsActive(true);
+
+    return result;
+  }
+
+  /**
+   * @return null if status should be requested with "svn" process
+   */
+  @Nullable
+  private List<Status> collectStatuses(@Nonnull File path,
+                                       @Nonnull Depth depth,
+                                       boolean reportAll,
+                                       boolean includeIgnored) throws SvnBindException {
+    File root = findWorkingCopyRoot(path);
+    if (root == null) return null;
+
+    String relativePath = SvnUtil.getRelativePath(root.getPath(), path.getPath());
+    if (relativePath == null || relativePath.startsWith("..")) return null;
+    relativePath = ".".equals(relativePath) ? "" : StringUtil.trimEnd(relativePath, "/");
+
+    WcDb db = WcDb.read(root, relativePath, depth);
+    if (db == null || !db.myNodes.containsKey(relativePath)) return null;
+
+    StatusBuilder builder = new StatusBuilder(db, root, relativePath, depth, reportAll, includeIgnored, getGlobalIgnores());
+    if (!builder.build()) return null;
+
+    for (File file : builder.myDelegated) {
+      Status status = createDelegate().doStatus(file, false);
+
+      if (status != null) {
+        builder.myResult.add(status);
+      }
+    }
+
+    return builder.myResult;
+  }
+
+  @Nonnull
+  private String[] getGlobalIgnores() {
+    ISVNOptions options = myVcs.getSvnConfiguration().getOptions();
+
+    return options instanceof DefaultSVNOptions ? ((DefaultSVNOptions)options).getIgnorePatterns() : new String[0];
+  }
+
+  @Nullable
+  private static File findWorkingCopyRoot(@Nonnull File path) {
+    for (File current = path; current != null; current = current.getParentFile()) {
+      File wcDb = SvnUtil.getWcDb(current);
+
+      if (wcDb.isFile()) {
+        return current;
+      }
+    }
+    return null;
+  }
+
+  private static int getDepth(@Nonnull String relativePath) {
+    return relativePath.isEmpty() ? 0 : StringUtil.countChars(relativePath, '/') + 1;
+  }
+
+  @Nonnull
+  private static String getName(@Nonnull String relativePath) {
+    return relativePath.substring(relativePath.lastIndexOf('/') + 1);
+  }
+
+  @Nonnull
+  private static String getParentPath(@Nonnull String relativePath) {
+    return relativePath.contains("/") ? relativePath.substring(0, relativePath.lastIndexOf('/')) : "";
+  }
+
+  @Nonnull
+  private static String join(@Nonnull String path, @Nonnull String child) {
+    return path.isEmpty() ? child : child.isEmpty() ? path : path + "/" + child;
+  }
+
+  private static boolean contains(@Nullable byte[] data, @Nonnull String text) {
+    if (data == null) return false;
+
+    byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+    outer:
+    for (int i = 0; i <= data.length - pattern.length; i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (data[i + j] != pattern[j]) continue outer;
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Creates statuses from database rows and current file system state.
+   */
+  private static class StatusBuilder {
+    @Nonnull private final WcDb myDb;
+    @Nonnull private final File myRoot;
+    @Nonnull private final String myTarget;
+    @Nonnull private final Depth myDepth;
+    private final boolean myReportAll;
+    private final boolean myIncludeIgnored;
+    @Nonnull private final String[] myGlobalIgnores;
+    @Nonnull private final List<Status> myResult = new ArrayList<>();
+    @Nonnull private final List<File> myDelegated = new ArrayList<>();
+
+    private StatusBuilder(@Nonnull WcDb db,
+                          @Nonnull File root,
+                          @Nonnull String target,
+                          @Nonnull Depth depth,
+                          boolean reportAll,
+                          boolean includeIgnored,
+                          @Nonnull String[] globalIgnores) {
+      myDb = db;
+      myRoot = root;
+      myTarget = target;
+      myDepth = depth;
+      myReportAll = reportAll;
+      myIncludeIgnored = includeIgnored;
+      myGlobalIgnores = globalIgnores;
+    }
+
+    /**
+     * @return false if status should be requested with "svn" process
+     */
+    private boolean build() throws SvnBindException {
+      for (Map.Entry<String, List<NodeRow>> entry : myDb.myNodes.entrySet()) {
+        ProgressManager.checkCanceled();
+
+        String path = entry.getKey();
+        if (!isInScope(path)) continue;
+
+        List<NodeRow> rows = entry.getValue();
+        NodeRow top = rows.get(rows.size() - 1);
+        ActualRow actual = myDb.myActuals.get(path);
+        File file = path.isEmpty() ? myRoot : new File(myRoot, path);
+
+        if (actual != null && actual.myConflicted) {
+          myDelegated.add(file);
+        }
+        else if (!buildStatus(path, file, rows, top, actual)) {
+          return false;
+        }
+        if (myDelegated.size() > MAX_DELEGATED_PATHS) {
+          return false;
+        }
+
+        if (NodeKind.DIR.equals(top.myKind) && isPresent(top) && isListed(path)) {
+          addUnversioned(path, file, top, actual);
+        }
+      }
+      // for instance, tree conflict victims that are not versioned
+      for (Map.Entry<String, ActualRow> entry : myDb.myActuals.entrySet()) {
+        if (entry.getValue().myConflicted && !myDb.myNodes.containsKey(entry.getKey()) && isInScope(entry.getKey())) {
+          myDelegated.add(new File(myRoot, entry.getKey()));
+        }
+      }
+
+      return myDelegated.size() <= MAX_DELEGATED_PATHS;
+    }
+
+    private boolean buildStatus(@Nonnull String path,
+                                @Nonnull File file,
+                                @Nonnull List<NodeRow> rows,
+                                @Nonnull NodeRow top,
+                                @Nullable ActualRow actual) throws SvnBindException {
+      NodeRow base = rows.get(0).myOpDepth == 0 ? rows.get(0) : null;
+      StatusType status;
+      String schedule = SCHEDULE_NORMAL;
+      boolean copied = false;
+
+      if (top.myOpDepth > 0 && (WcDb.BASE_DELETED.equals(top.myPresence) || WcDb.NOT_PRESENT.equals(top.myPresence))) {
+        status = StatusType.STATUS_DELETED;
+        schedule = SCHEDULE_DELETE;
+      }
+      else if (WcDb.INCOMPLETE.equals(top.myPresence)) {
+        status = StatusType.STATUS_INCOMPLETE;
+      }
+      else if (!WcDb.NORMAL.equals(top.myPresence)) {
+        // excluded or not present in base - not reported by "svn status"
+        return true;
+      }
+      else if (top.myOpDepth > 0) {
+        copied = top.myReposId != null;
+
+        if (top.myOpDepth == getDepth(path)) {
+          status = hasReplacedNode(rows) ? StatusType.STATUS_REPLACED : StatusType.STATUS_ADDED;
+          schedule = StatusType.STATUS_REPLACED.equals(status) ? SCHEDULE_REPLACE : Info.SCHEDULE_ADD;
+        }
+        else {
+          // nodes under copied directory are reported as normal copied nodes, nodes under added directory - as added nodes
+          status = copied ? StatusType.STATUS_NORMAL : StatusType.STATUS_ADDED;
+          schedule = copied ? SCHEDULE_NORMAL : Info.SCHEDULE_ADD;
+        }
+      }
+      else {
+        status = StatusType.STATUS_NORMAL;
+      }
+
+      BasicFileAttributes attributes = readAttributes(file);
+      boolean exists = attributes != null;
+      boolean isDirectory = NodeKind.DIR.equals(top.myKind);
+
+      if (!StatusType.STATUS_DELETED.equals(status)) {
+        if (!exists) {
+          status = StatusType.STATUS_MISSING;
+        }
+        else if (isDirectory != attributes.isDirectory() || attributes.isSymbolicLink() && !top.myTranslated) {
+          status = StatusType.STATUS_OBSTRUCTED;
+        }
+        else if (StatusType.STATUS_NORMAL.equals(status) && !isDirectory) {
+          Boolean modified = isModified(file, top, attributes);
+
+          if (modified == null) {
+            myDelegated.add(file);
+            return true;
+          }
+          if (modified) {
+            status = StatusType.STATUS_MODIFIED;
+          }
+        }
+      }
+
+      StatusType propertiesStatus = top.myHasProperties ? StatusType.STATUS_NORMAL : StatusType.STATUS_NONE;
+      if (actual != null && actual.myProperties != null && !Arrays.equals(actual.myProperties, top.myProperties)) {
+        propertiesStatus = StatusType.STATUS_MODIFIED;
+      }
+
+      boolean switched = base != null && top == base && isSwitched(path, base);
+      Lock lock = base != null ? myDb.myLocks.get(WcDb.getLockKey(base.myReposId, base.myReposPath)) : null;
+      String changelist = actual != null ? actual.myChangelist : null;
+
+      boolean isInteresting = !StatusType.STATUS_NORMAL.equals(status) ||
+                              StatusType.STATUS_MODIFIED.equals(propertiesStatus) ||
+                              switched ||
+                              lock != null ||
+                              changelist != null;
+      if (!myReportAll && !isInteresting) {
+        return true;
+      }
+
+      PortableStatus result = new PortableStatus();
+      result.setFile(file);
+      result.setPath(file.getAbsolutePath());
+      result.setKind(exists, isDirectory ? NodeKind.DIR : NodeKind.FILE);
+      result.setContentsStatus(status);
+      result.setPropertiesStatus(propertiesStatus);
+      result.setIsCopied(copied);
+      result.setIsSwitched(switched);
+      result.setLocalLock(lock);
+      result.setChangelistName(changelist);
+      if (base != null && top == base) {
+        result.setRevision(SVNRevision.create(base.myRevision));
+        result.setRepositoryRootURL(getUrl(base.myReposId, ""));
+        result.setURL(getUrl(base.myReposId, base.myReposPath));
+      }
+      if (base != null && base.myChangedRevision >= 0) {
+        result.setCommittedRevision(SVNRevision.create(base.myChangedRevision));
+      }
+      Info info = createInfo(path, file, top, base, schedule, copied, lock);
+      result.setInfoGetter(() -> info);
+
+      myResult.add(result);
+      return true;
+    }
+
+    @Nonnull
+    private Info createInfo(@Nonnull String path,
+                            @Nonnull File file,
+                            @Nonnull NodeRow top,
+                            @Nullable NodeRow base,
+                            @Nonnull String schedule,
+                            boolean copied,
+                            @Nullable Lock lock) throws SvnBindException {
+      // url of added node is not stored - it is calculated from the nearest ancestor that has base node
+      Long reposId = null;
+      String reposPath = null;
+      String suffix = "";
+      for (String current = path; ; current = getParentPath(current)) {
+        NodeRow node = getBase(current);
+
+        if (node != null && node.myReposId != null && node.myReposPath != null) {
+          reposId = node.myReposId;
+          reposPath = join(node.myReposPath, suffix);
+          break;
+        }
+        if (current.isEmpty()) break;
+        suffix = join(getName(current), suffix);
+      }
+
+      NodeRow committed = top.myReposId != null ? top : SCHEDULE_DELETE.equals(schedule) ? base : null;
+      boolean isCopyRoot = copied && top.myOpDepth == getDepth(path);
+      String uuid = reposId != null ? myDb.myRepositoryUuids.get(reposId) : null;
+
+      return new Info(file, getUrl(reposId, reposPath), getUrl(reposId, ""), base != null ? base.myRevision : -1, top.myKind, uuid,
+                      committed != null ? committed.myChangedRevision : -1,
+                      committed != null && committed.myChangedDate >= 0
+                      ? SVNDate.formatDate(new Date(TimeUnit.MICROSECONDS.toMillis(committed.myChangedDate)))
+                      : null,
+                      committed != null ? committed.myChangedAuthor : null, schedule,
+                      isCopyRoot ? getUrl(top.myReposId, top.myReposPath) : null, isCopyRoot ? top.myRevision : -1,
+                      null, null, null, null, lock, top.myDepth, null);
+    }
+
+    @Nullable
+    private SVNURL getUrl(@Nullable Long reposId, @Nullable String reposPath) throws SvnBindException {
+      String repositoryUrl = reposId != null ? myDb.myRepositories.get(reposId) : null;
+      if (repositoryUrl == null || reposPath == null) return null;
+
+      try {
+        SVNURL repositoryRoot = SVNURL.parseURIEncoded(repositoryUrl);
+
+        return reposPath.isEmpty() ? repositoryRoot : repositoryRoot.appendPath(reposPath, false);
+      }
+      catch (SVNException e) {
+        throw new SvnBindException(e);
+      }
+    }
+
+    @Nullable
+    private NodeRow getBase(@Nonnull String path) {
+      List<NodeRow> rows = myDb.myNodes.get(path);
+
+      return rows != null && rows.get(0).myOpDepth == 0 ? rows.get(0) : null;
+    }
+
+    /**
+     * @return null if modification could not be detected without contents translation
+     */
+    @Nullable
+    private static Boolean isModified(@Nonnull File file, @Nonnull NodeRow node, @Nonnull BasicFileAttributes attributes)
+      throws SvnBindException {
+      if (node.myTranslatedSize == attributes.size() &&
+          node.myLastModifiedTime == attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS)) {
+        return false;
+      }
+      if (node.myTranslated || node.myChecksum == null || !node.myChecksum.startsWith(CHECKSUM_PREFIX)) {
+        return null;
+      }
+      if (node.myTranslatedSize >= 0 && node.myTranslatedSize != attributes.size() || !VERIFY_CONTENTS) {
+        return true;
+      }
+
+      return !node.myChecksum.substring(CHECKSUM_PREFIX.length()).equalsIgnoreCase(getChecksum(file));
+    }
+
+    private static boolean hasReplacedNode(@Nonnull List<NodeRow> rows) {
+      for (int i = rows.size() - 2; i >= 0; i--) {
+        String presence = rows.get(i).myPresence;
+
+        if (WcDb.NORMAL.equals(presence) || WcDb.INCOMPLETE.equals(presence)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean isSwitched(@Nonnull String path, @Nonnull NodeRow base) {
+      if (path.isEmpty() || base.myReposPath == null) return false;
+
+      List<NodeRow> parentRows = myDb.myNodes.get(base.myParentPath);
+      NodeRow parent = parentRows != null && parentRows.get(0).myOpDepth == 0 ? parentRows.get(0) : null;
+      if (parent == null || parent.myReposPath == null || !Objects.equals(parent.myReposId, base.myReposId)) return false;
+
+      String expected = parent.myReposPath.isEmpty() ? getName(path) : parent.myReposPath + "/" + getName(path);
+      return !expected.equals(base.myReposPath);
+    }
+
+    private void addUnversioned(@Nonnull String path, @Nonnull File directory, @Nonnull NodeRow node, @Nullable ActualRow actual) {
+      File[] children = directory.listFiles();
+      if (children == null) return;
+
+      byte[] properties = actual != null && actual.myProperties != null ? actual.myProperties : node.myProperties;
+      List<String> ignores = new ArrayList<>(Arrays.asList(myGlobalIgnores));
+      ignores.addAll(getIgnores(properties));
+      Arrays.sort(children);
+
+      for (File child : children) {
+        String name = child.getName();
+        String childPath = path.isEmpty() ? name : path + "/" + name;
+
+        if (SvnUtil.SVN_ADMIN_DIR_NAME.equals(name) || myDb.myNodes.containsKey(childPath)) continue;
+        if (Depth.FILES.equals(myDepth) && path.equals(myTarget) && child.isDirectory()) continue;
+
+        boolean ignored = isIgnored(name, ignores);
+        if (ignored && !myIncludeIgnored) continue;
+
+        PortableStatus status = new PortableStatus();
+        status.setFile(child);
+        status.setPath(child.getAbsolutePath());
+        status.setKind(true, NodeKind.from(child.isDirectory()));
+        status.setContentsStatus(ignored ? StatusType.STATUS_IGNORED : StatusType.STATUS_UNVERSIONED);
+        status.setPropertiesStatus(StatusType.STATUS_NONE);
+        myResult.add(status);
+      }
+    }
+
+    @Nonnull
+    private static List<String> getIgnores(@Nullable byte[] properties) {
+      List<String> result = new ArrayList<>();
+
+      if (contains(properties, SvnPropertyKeys.SVN_IGNORE)) {
+        try {
+          SVNPropertyValue value = SVNSkel.parse(properties).parsePropList().get(SvnPropertyKeys.SVN_IGNORE);
+          String ignores = value != null ? SVNPropertyValue.getPropertyAsString(value) : null;
+
+          if (ignores != null) {
+            for (String line : StringUtil.splitByLines(ignores)) {
+              if (!StringUtil.isEmptyOrSpaces(line)) {
+                result.add(line.trim());
+              }
+            }
+          }
+        }
+        catch (SVNException e) {
+          LOG.info(e);
+        }
+      }
+
+      return result;
+    }
+
+    private static boolean isIgnored(@Nonnull String name, @Nonnull List<String> ignores) {
+      for (String pattern : ignores) {
+        if (DefaultSVNOptions.matches(pattern, name)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean isInScope(@Nonnull String path) {
+      if (path.equals(myTarget)) return true;
+      if (!myTarget.isEmpty() && !path.startsWith(myTarget + "/")) return false;
+      if (Depth.INFINITY.equals(myDepth)) return true;
+
+      return (Depth.IMMEDIATES.equals(myDepth) || Depth.FILES.equals(myDepth)) &&
+             getDepth(path) == getDepth(myTarget) + 1 &&
+             (Depth.IMMEDIATES.equals(myDepth) || !isDirectoryNode(path));
+    }
+
+    private boolean isDirectoryNode(@Nonnull String path) {
+      List<NodeRow> rows = myDb.myNodes.get(path);
+
+      return rows != null && NodeKind.DIR.equals(rows.get(rows.size() - 1).myKind);
+    }
+
+    /**
+     * @return true if unversioned children of given directory should be reported
+     */
+    private boolean isListed(@Nonnull String path) {
+      return Depth.INFINITY.equals(myDepth) && isInScope(path) ||
+             (Depth.IMMEDIATES.equals(myDepth) || Depth.FILES.equals(myDepth)) && path.equals(myTarget);
+    }
+
+    private static boolean isPresent(@Nonnull NodeRow node) {
+      return WcDb.NORMAL.equals(node.myPresence) || WcDb.INCOMPLETE.equals(node.myPresence);
+    }
+
+    @Nullable
+    private static BasicFileAttributes readAttributes(@Nonnull File file) throws SvnBindException {
+      try {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      }
+      catch (NoSuchFileException e) {
+        return null;
+      }
+      catch (IOException e) {
+        throw new SvnBindException(e);
+      }
+    }
+
+    @Nonnull
+    private static String getChecksum(@Nonnull File file) throws SvnBindException {
+      try (InputStream stream = Files.newInputStream(file.toPath())) {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        byte[] buffer = new byte[8192];
+        int count;
+
+        while ((count = stream.read(buffer)) != -1) {
+          digest.update(buffer, 0, count);
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest()) {
+          result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+      }
+      catch (IOException | NoSuchAlgorithmException e) {
+        throw new SvnBindException(e);
+      }
+    }
+  }
+
+  /**
+   * Rows of working copy database required to calculate status of some path.
+   */
+  private static class WcDb {
+    @Nonnull private static final String NORMAL = "normal";
+    @Nonnull private static final String INCOMPLETE = "incomplete";
+    @Nonnull private static final String NOT_PRESENT = "not-present";
+    @Nonnull private static final String BASE_DELETED = "base-deleted";
+
+    private final int myFormat;
+    private final long myWcId;
+    // key - path relative to working copy root, value - rows ordered by "op_depth"
+    @Nonnull private final TreeMap<String, List<NodeRow>> myNodes = new TreeMap<>();
+    @Nonnull private final Map<String, ActualRow> myActuals = new HashMap<>();
+    @Nonnull private final Map<Long, String> myRepositories = new HashMap<>();
+    @Nonnull private final Map<Long, String> myRepositoryUuids = new HashMap<>();
+    @Nonnull private final Map<String, Lock> myLocks = new HashMap<>();
+
+    private WcDb(int format, long wcId) {
+      myFormat = format;
+      myWcId = wcId;
+    }
+
+    /**
+     * @return null if database could not be read or status of given path should be requested with "svn" process
+     */
+    @Nullable
+    public static WcDb read(@Nonnull File root, @Nonnull String path, @Nonnull Depth depth) {
+      SqlJetDb db = null;
+
+      try {
+        db = SqlJetDb.open(SvnUtil.getWcDb(root), false);
+        return (WcDb)db.runReadTransaction(database -> {
+          int format = database.getOptions().getUserVersion();
+          if (format < WorkingCopyFormat.INTERNAL_FORMAT_17 || format > WorkingCopyFormat.INTERNAL_FORMAT_18) return null;
+          if (!isEmpty(database, "WORK_QUEUE") || !isEmpty(database, "WC_LOCK") || hasExternals(database, path)) return null;
+
+          Long wcId = readWcId(database);
+          if (wcId == null) return null;
+
+          WcDb result = new WcDb(format, wcId);
+          result.readRepositories(database);
+          result.readLocks(database);
+          result.readActuals(database, path, depth);
+          result.readNodes(database, path, depth);
+          return result.hasGlobalIgnores() ? null : result;
+        });
+      }
+      catch (SqlJetException | NonWritableChannelException e) {
+        LOG.debug("Could not read working copy database " + root, e);
+        return null;
+      }
+      finally {
+        if (db != null) {
+          try {
+            db.close();
+          }
+          catch (SqlJetException e) {
+            LOG.info(e);
+          }
+        }
+      }
+    }
+
+    @Nonnull
+    private static String getLockKey(@Nullable Long reposId, @Nullable String reposPath) {
+      return reposId + ":" + reposPath;
+    }
+
+    private static boolean isEmpty(@Nonnull SqlJetDb db, @Nonnull String tableName) throws SqlJetException {
+      ISqlJetCursor cursor = db.getTable(tableName).open();
+
+      try {
+        return cursor.eof();
+      }
+      finally {
+        cursor.close();
+      }
+    }
+
+    private static boolean hasExternals(@Nonnull SqlJetDb db, @Nonnull String path) throws SqlJetException {
+      ISqlJetCursor cursor = db.getTable("EXTERNALS").open();
+
+      try {
+        for (; !cursor.eof(); cursor.next()) {
+          String externalPath = cursor.getString("local_relpath");
+
+          if (path.isEmpty() || path.equals(externalPath) || externalPath != null && externalPath.startsWith(path + "/")) {
+            return true;
+          }
+        }
+        return false;
+      }
+      finally {
+        cursor.close();
+      }
+    }
+
+    @Nullable
+    private static Long readWcId(@Nonnull SqlJetDb db) throws SqlJetException {
+      ISqlJetCursor cursor = db.getTable("WCROOT").open();
+
+      try {
+        Long result = cursor.eof() ? null : cursor.getInteger("id");
+        cursor.next();
+        // several working copy roots in the same database are not supported
+        return cursor.eof() ? result : null;
+      }
+      finally {
+        cursor.close();
+      }
+    }
+
+    private void readRepositories(@Nonnull SqlJetDb db) throws SqlJetException {
+      ISqlJetCursor cursor = db.getTable("REPOSITORY").open();
+
+      try {
+        for (; !cursor.eof(); cursor.next()) {
+          myRepositories.put(cursor.getInteger("id"), cursor.getString("root"));
+          myRepositoryUuids.put(cursor.getInteger("id"), cursor.getString("uuid"));
+        }
+      }
+      finally {
+        cursor.close();
+      }
+    }
+
+    private void readLocks(@Nonnull SqlJetDb db) throws SqlJetException {
+      ISqlJetCursor cursor = db.getTable("LOCK").open();
+
+      try {
+        for (; !cursor.eof(); cursor.next()) {
+          Lock.Builder lock = new Lock.Builder()
+            .setToken(cursor.getString("lock_token"))
+            .setOwner(cursor.getString("lock_owner"))
+            .setComment(cursor.getString("lock_comment"));
+          if (!cursor.isNull("lock_date")) {
+            lock.setCreationDate(new Date(TimeUnit.MICROSECONDS.toMillis(cursor.getInteger("lock_date"))));
+          }
+
+          myLocks.put(getLockKey(cursor.getInteger("repos_id"), cursor.getString("repos_relpath")), lock.build());
+        }
+      }
+      finally {
+        cursor.close();
+      }
+    }
+
+    private void readActuals(@Nonnull SqlJetDb db, @Nonnull String path, @Nonnull Depth depth) throws SqlJetException {
+      ISqlJetTable table = db.getTable("ACTUAL_NODE");
+
+      for (ISqlJetCursor cursor : open(table, ACTUAL_PARENT_INDEX, path, depth)) {
+        try {
+          for (; !cursor.eof(); cursor.next()) {
+            String relativePath = cursor.getString("local_relpath");
+
+            if (relativePath != null && cursor.getInteger("wc_id") == myWcId && isUnder(relativePath, path)) {
+              myActuals.put(relativePath, new ActualRow(cursor, myFormat));
+            }
+          }
+        }
+        finally {
+          cursor.close();
+        }
+      }
+    }
+
+    private void readNodes(@Nonnull SqlJetDb db, @Nonnull String path, @Nonnull Depth depth) throws SqlJetException {
+      ISqlJetTable table = db.getTable("NODES");
+      List<ISqlJetCursor> cursors = new ArrayList<>(open(table, NODES_PARENT_INDEX, path, depth));
+
+      // ancestors are required to detect switched paths and inherited ignores
+      for (String ancestor = path; !ancestor.isEmpty(); ) {
+        ancestor = getParentPath(ancestor);
+        cursors.add(table.lookup(table.getPrimaryKeyIndexName(), myWcId, ancestor));
+      }
+
+      for (ISqlJetCursor cursor : cursors) {
+        try {
+          for (; !cursor.eof(); cursor.next()) {
+            String relativePath = cursor.getString("local_relpath");
+
+            if (relativePath != null && cursor.getInteger("wc_id") == myWcId) {
+              ActualRow actual = myActuals.get(relativePath);
+              NodeRow row = new NodeRow(cursor, actual != null && actual.myProperties != null);
+              List<NodeRow> rows = myNodes.computeIfAbsent(relativePath, key -> new ArrayList<>());
+
+              if (rows.stream().noneMatch(other -> other.myOpDepth == row.myOpDepth)) {
+                rows.add(row);
+              }
+            }
+          }
+        }
+        finally {
+          cursor.close();
+        }
+      }
+
+      for (List<NodeRow> rows : myNodes.values()) {
+        rows.sort(Comparator.comparingLong(row -> row.myOpDepth));
+      }
+    }
+
+    /**
+     * Opens cursors for rows of given path and its children (with respect to given depth).
+     */
+    @Nonnull
+    private List<ISqlJetCursor> open(@Nonnull ISqlJetTable table, @Nonnull String parentIndex, @Nonnull String path, @Nonnull Depth depth)
+      throws SqlJetException {
+      String primaryKey = table.getPrimaryKeyIndexName();
+
+      if (Depth.INFINITY.equals(depth)) {
+        // all paths under "path/" are less than "path0" - as '0' follows '/'
+        return Collections.singletonList(path.isEmpty()
+                                         ? table.open()
+                                         : table.scope(primaryKey, new Object[]{myWcId, path}, new Object[]{myWcId, path + "0"}));
+      }
+
+      List<ISqlJetCursor> result = new ArrayList<>();
+      result.add(table.lookup(primaryKey, myWcId, path));
+      if (!Depth.EMPTY.equals(depth)) {
+        result.add(table.lookup(parentIndex, myWcId, path));
+      }
+      return result;
+    }
+
+    private static boolean isUnder(@Nonnull String relativePath, @Nonnull String path) {
+      return path.isEmpty() || relativePath.equals(path) || relativePath.startsWith(path + "/");
+    }
+
+    private boolean hasGlobalIgnores() {
+      for (List<NodeRow> rows : myNodes.values()) {
+        for (NodeRow row : rows) {
+          if (row.myHasGlobalIgnores) return true;
+        }
+      }
+      for (ActualRow actual : myActuals.values()) {
+        if (contains(actual.myProperties, GLOBAL_IGNORES)) return true;
+      }
+      return false;
+    }
+  }
+
+  private static class NodeRow {
+    private final long myOpDepth;
+    @Nonnull private final String myParentPath;
+    @Nullable private final String myPresence;
+    @Nonnull private final NodeKind myKind;
+    @Nullable private final Long myReposId;
+    @Nullable private final String myReposPath;
+    private final long myRevision;
+    private final long myChangedRevision;
+    private final long myChangedDate;
+    @Nullable private final String myChangedAuthor;
+    @Nonnull private final Depth myDepth;
+    @Nullable private final String myChecksum;
+    private final long myTranslatedSize;
+    private final long myLastModifiedTime;
+    private final boolean myHasProperties;
+    private final boolean myTranslated;
+    private final boolean myHasGlobalIgnores;
+    // kept only for directories (to get ignore patterns) and nodes with changed properties (to compare them)
+    @Nullable private final byte[] myProperties;
+
+    private NodeRow(@Nonnull ISqlJetCursor cursor, boolean keepProperties) throws SqlJetException {
+      myOpDepth = cursor.getInteger("op_depth");
+      myParentPath = StringUtil.notNullize(cursor.getString("parent_relpath"));
+      myPresence = cursor.getString("presence");
+      myKind = "dir".equals(cursor.getString("kind")) ? NodeKind.DIR : NodeKind.FILE;
+      myReposId = cursor.isNull("repos_id") ? null : cursor.getInteger("repos_id");
+      myReposPath = cursor.getString("repos_path");
+      myRevision = cursor.isNull("revision") ? -1 : cursor.getInteger("revision");
+      myChangedRevision = cursor.isNull("changed_revision") ? -1 : cursor.getInteger("changed_revision");
+      myChangedDate = cursor.isNull("changed_date") ? -1 : cursor.getInteger("changed_date");
+      myChangedAuthor = cursor.getString("changed_author");
+      myDepth = parseDepth(cursor.getString("depth"));
+      myChecksum = cursor.getString("checksum");
+      myTranslatedSize = cursor.isNull("translated_size") ? -1 : cursor.getInteger("translated_size");
+      myLastModifiedTime = cursor.isNull("last_mod_time") ? -1 : cursor.getInteger("last_mod_time");
+
+      byte[] properties = cursor.isNull("properties") ? null : cursor.getBlobAsArray("properties");
+      myHasProperties = properties != null && properties.length > 2;
+      myTranslated = contains(properties, SvnPropertyKeys.SVN_EOL_STYLE) || contains(properties, SvnPropertyKeys.SVN_KEYWORDS) ||
+                     contains(properties, SPECIAL) || "symlink".equals(cursor.getString("kind"));
+      myHasGlobalIgnores = contains(properties, GLOBAL_IGNORES) ||
+                           // inherited properties are stored only for base row of working copy root
+                           cursor.getInteger("op_depth") == 0 && StringUtil.isEmpty(cursor.getString("local_relpath")) &&
+                           hasInheritedGlobalIgnores(cursor);
+      myProperties = NodeKind.DIR.equals(myKind) || keepProperties ? properties : null;
+    }
+
+    @Nonnull
+    private static Depth parseDepth(@Nullable String depth) {
+      // depth is stored only for directories, "exclude" nodes are not reported
+      return depth != null && !"exclude".equals(depth) ? Depth.from(depth) : Depth.INFINITY;
+    }
+
+    private static boolean hasInheritedGlobalIgnores(@Nonnull ISqlJetCursor cursor) throws SqlJetException {
+      try {
+        return !cursor.isNull("inherited_props") && contains(cursor.getBlobAsArray("inherited_props"), GLOBAL_IGNORES);
+      }
+      catch (SqlJetException e) {
+        // no such column in 1.7 working copies
+        return false;
+      }
+    }
+  }
+
+  private static class ActualRow {
+    @Nullable private final byte[] myProperties;
+    @Nullable private final String myChangelist;
+    private final boolean myConflicted;
+
+    private ActualRow(@Nonnull ISqlJetCursor cursor, int format) throws SqlJetException {
+      myProperties = cursor.isNull("properties") ? null : cursor.getBlobAsArray("properties");
+      myChangelist = cursor.getString("changelist");
+      myConflicted = format == WorkingCopyFormat.INTERNAL_FORMAT_17
+                     ? !cursor.isNull("conflict_old") || !cursor.isNull("conflict_new") || !cursor.isNull("conflict_working") ||
+                       !cursor.isNull("prop_reject") || !cursor.isNull("tree_conflict_data")
+                     : !cursor.isNull("conflict_data");
+    }
+  }
+}
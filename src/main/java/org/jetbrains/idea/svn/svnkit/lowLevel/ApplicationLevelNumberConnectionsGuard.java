@@ -17,6 +17,8 @@ package org.jetbrains.idea.svn.svnkit.lowLevel;
 
 import org.tmatesoft.svn.core.SVNException;
 
+import javax.annotation.Nonnull;
+
 /**
  * Created with IntelliJ IDEA.
  * User: Irina.Chernushina
@@ -30,4 +32,10 @@ public interface ApplicationLevelNumberConnectionsGuard {
   void connectionCreated();
 
   void connectionDestroyed(int number);
+
+  /**
+   * @return statistics of given host accumulated for the whole application session
+   */
+  @Nonnull
+  RepositoryPoolStatistics getHostStatistics(@Nonnull String host);
 }
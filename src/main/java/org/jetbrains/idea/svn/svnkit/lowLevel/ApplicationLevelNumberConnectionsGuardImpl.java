@@ -19,13 +19,14 @@ import consulo.application.ApplicationManager;
 import consulo.application.progress.ProgressIndicator;
 import consulo.application.progress.ProgressManager;
 import consulo.disposer.Disposable;
+import consulo.util.collection.ContainerUtil;
 import consulo.util.concurrent.ConcurrencyUtil;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
 
-import java.util.HashSet;
-import java.util.Set;
+import javax.annotation.Nonnull;
+import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -52,6 +53,8 @@ public class ApplicationLevelNumberConnectionsGuardImpl implements Disposable, A
   private final Runnable myRecheck;
   private int myDelay;
   private int myCurrentlyOpenedCount;
+  // key - host, kept after pools are disposed
+  private final Map<String, RepositoryPoolStatistics> myHostStatistics = ContainerUtil.newConcurrentMap();
 
   public ApplicationLevelNumberConnectionsGuardImpl() {
     myDelay = DELAY;
@@ -84,11 +87,44 @@ public class ApplicationLevelNumberConnectionsGuardImpl implements Disposable, A
 
   public int getCurrentlyActiveConnections() {
     synchronized (myLock) {
-      assert ApplicationManager.getApplication().isUnitTestMode();
       return myCurrentlyActiveConnections;
     }
   }
 
+  public int getCurrentlyOpenedConnections() {
+    synchronized (myLock) {
+      return myCurrentlyOpenedConnections;
+    }
+  }
+
+  @Nonnull
+  @Override
+  public RepositoryPoolStatistics getHostStatistics(@Nonnull String host) {
+    return myHostStatistics.computeIfAbsent(host, key -> new RepositoryPoolStatistics());
+  }
+
+  /**
+   * @return connections usage statistics of each host (since application start) and current state of all registered pools
+   */
+  public String getStatistics() {
+    final List<CachingSvnRepositoryPool> pools;
+    final StringBuilder result = new StringBuilder();
+
+    synchronized (myLock) {
+      pools = new ArrayList<>(mySet);
+      result.append(String.format("SVNKit connections: active %d, opened %d (limit %d), pools with kept connections %d\n",
+                                  myCurrentlyActiveConnections, myCurrentlyOpenedConnections, CachingSvnRepositoryPool.ourMaxTotal,
+                                  pools.size()));
+    }
+    for (Map.Entry<String, RepositoryPoolStatistics> entry : new TreeMap<>(myHostStatistics).entrySet()) {
+      result.append(entry.getValue().format(entry.getKey())).append('\n');
+    }
+    for (CachingSvnRepositoryPool pool : pools) {
+      result.append(pool.getStatistics());
+    }
+    return result.toString();
+  }
+
   public int getInstanceCount() {
     assert ApplicationManager.getApplication().isUnitTestMode();
     return myInstanceCount;
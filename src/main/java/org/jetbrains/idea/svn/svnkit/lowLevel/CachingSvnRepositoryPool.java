@@ -19,9 +19,11 @@ import consulo.application.ApplicationManager;
 import consulo.application.progress.ProgressIndicator;
 import consulo.component.ProcessCanceledException;
 import consulo.application.progress.ProgressManager;
+import consulo.util.collection.ContainerUtil;
 import consulo.util.lang.Pair;
 import consulo.util.lang.function.ThrowableConsumer;
 import consulo.ide.impl.idea.util.ThrowableConvertor;
+import org.jetbrains.idea.svn.CancellableSemaphore;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
@@ -29,15 +31,23 @@ import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.io.SVNRepository;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Created with IntelliJ IDEA.
  * User: Irina.Chernushina
  * Date: 7/30/12
  * Time: 3:39 PM
+ * <p>
+ * Repositories are pooled per host. Pool does not use any global lock - groups are kept in concurrent map, idle repositories of group
+ * are kept in concurrent deque and number of concurrently used repositories is limited with {@link CancellableSemaphore} (so waiting
+ * requests are served in FIFO order and could be cancelled).
  */
 public class CachingSvnRepositoryPool implements SvnRepositoryPool {
   private static final long DEFAULT_IDLE_TIMEOUT = 60*1000;
+  // waiting requests check cancellation with this interval
+  private static final long WAIT_INTERVAL = 300;
 
   private static final int ourMaxCachedDefault = 5;
   private static final int ourMaxConcurrentDefault = 20;
@@ -47,20 +57,18 @@ public class CachingSvnRepositoryPool implements SvnRepositoryPool {
   private int myMaxConcurrent;        // per host
   private final ThrowableConvertor<SVNURL, SVNRepository, SVNException> myCreator;
   private final ThrowableConsumer<Pair<SVNURL, SVNRepository>, SVNException> myAdjuster;
-  private final Map<String, RepoGroup> myGroups;
+  private final ConcurrentMap<String, RepoGroup> myGroups;
   private ApplicationLevelNumberConnectionsGuard myGuard;
 
-  private long myConnectionTimeout;
+  private volatile long myConnectionTimeout;
 
-  private boolean myDisposed;
-  private final Object myLock;
+  private volatile boolean myDisposed;
 
   public CachingSvnRepositoryPool(ThrowableConvertor<SVNURL, SVNRepository, SVNException> creator,
                                   final int maxCached, final int maxConcurrent,
                                   ThrowableConsumer<Pair<SVNURL, SVNRepository>, SVNException> adjuster,
                                   final ApplicationLevelNumberConnectionsGuard guard) {
     myGuard = guard;
-    myLock = new Object();
     myConnectionTimeout = DEFAULT_IDLE_TIMEOUT;
     myCreator = creator;
     myAdjuster = adjuster;
@@ -69,7 +77,7 @@ public class CachingSvnRepositoryPool implements SvnRepositoryPool {
     if (myMaxConcurrent < myMaxCached) {
       myMaxConcurrent = myMaxCached;
     }
-    myGroups = new HashMap<>();
+    myGroups = ContainerUtil.newConcurrentMap();
     myDisposed = false;
   }
 
@@ -81,73 +89,58 @@ public class CachingSvnRepositoryPool implements SvnRepositoryPool {
 
 
   public void setConnectionTimeout(long connectionTimeout) {
-    synchronized (myLock) {
-      myConnectionTimeout = connectionTimeout;
+    myConnectionTimeout = connectionTimeout;
+    for (RepoGroup group : myGroups.values()) {
+      group.myConnectionTimeout = connectionTimeout;
     }
   }
 
+  /**
+   * Waiting requests check cancellation every {@link #WAIT_INTERVAL} ms by themselves - so nothing should be done here.
+   */
   public void waitingInterrupted() {
-    synchronized (myLock) {
-      for (RepoGroup group : myGroups.values()) {
-        group.interruptWaiting();
-      }
-    }
   }
 
   public void check() {
-    synchronized (myLock) {
-      if (myDisposed) return;
-      for (RepoGroup group : myGroups.values()) {
-        group.recheck();
-      }
+    if (myDisposed) return;
+    for (RepoGroup group : myGroups.values()) {
+      group.recheck();
     }
   }
 
   @Override
   public SVNRepository getRepo(SVNURL url, boolean mayReuse) throws SVNException {
-    synchronized (myLock) {
-      if (myDisposed) throw new ProcessCanceledException();
+    if (myDisposed) throw new ProcessCanceledException();
 
-      final String host = url.getHost();
-      RepoGroup group = myGroups.get(host);
-      if (group == null) {
-        group = new RepoGroup(myCreator, myMaxCached, myMaxConcurrent, myAdjuster, myGuard, myLock, myConnectionTimeout);
-      }
-      myGroups.put(host, group);
-      return group.getRepo(url, mayReuse);
-    }
+    RepoGroup group = myGroups.computeIfAbsent(url.getHost(), host -> new RepoGroup(host, myCreator, myMaxCached, myMaxConcurrent,
+                                                                                    myAdjuster, myGuard, myConnectionTimeout));
+    return group.getRepo(url, mayReuse);
   }
 
   @Override
   public void returnRepo(SVNRepository repo) {
-    synchronized (myLock) {
-      if (myDisposed) {
-        repo.closeSession();
-        myGuard.connectionDestroyed(1);
-        return;
-      }
-      final String host = repo.getLocation().getHost();
-      RepoGroup group = myGroups.get(host);
-      assert group != null;
-      group.returnRepo(repo);
+    // repositories returned after dispose are also passed to their group - it closes them
+    RepoGroup group = myGroups.get(repo.getLocation().getHost());
+
+    if (group == null) {
+      repo.closeSession();
+      myGuard.connectionDestroyed(1);
+      return;
     }
+    group.returnRepo(repo);
   }
 
   @Override
   public void dispose() {
-    synchronized (myLock) {
-      myDisposed = true;
-      for (RepoGroup group : myGroups.values()) {
-        group.dispose();
-      }
+    myDisposed = true;
+    for (RepoGroup group : myGroups.values()) {
+      group.dispose();
     }
   }
 
   public void closeInactive() {
-    synchronized (myLock) {
-      for (RepoGroup group : myGroups.values()) {
-        group.closeInactive();
-      }
+    for (RepoGroup group : myGroups.values()) {
+      group.closeInactive();
     }
   }
 
@@ -160,15 +153,18 @@ public class CachingSvnRepositoryPool implements SvnRepositoryPool {
     private final ThrowableConsumer<Pair<SVNURL, SVNRepository>, SVNException> myAdjuster;
     private final ApplicationLevelNumberConnectionsGuard myGuard;
 
-    private final TreeMap<Long, SVNRepository> myInactive;
+    // most recently returned repositories are at the end - they are reused first, while eldest are closed by timeout
+    private final ConcurrentLinkedDeque<InactiveRepo> myInactive;
     private final Set<SVNRepository> myUsed;
-    private boolean myDisposed;
-    private final Object myWait;
-    private long myConnectionTimeout;
+    // permit per used repository
+    private final CancellableSemaphore myPermits;
+    private volatile boolean myDisposed;
+    private volatile long myConnectionTimeout;
+    private final RepositoryPoolStatistics myStatistics;
 
-    private RepoGroup(ThrowableConvertor<SVNURL, SVNRepository, SVNException> creator, int cached, int concurrent,
+    private RepoGroup(String host, ThrowableConvertor<SVNURL, SVNRepository, SVNException> creator, int cached, int concurrent,
 					  final ThrowableConsumer<Pair<SVNURL, SVNRepository>, SVNException> adjuster,
-					  final ApplicationLevelNumberConnectionsGuard guard, final Object waitObj, final long connectionTimeout) {
+					  final ApplicationLevelNumberConnectionsGuard guard, final long connectionTimeout) {
       myCreator = creator;
       myMaxCached = cached;
       myMaxConcurrent = concurrent;
@@ -176,24 +172,20 @@ public class CachingSvnRepositoryPool implements SvnRepositoryPool {
       myGuard = guard;
       myConnectionTimeout = connectionTimeout;
 
-      myInactive = new TreeMap<>();
-      myUsed = new HashSet<>();
+      myInactive = new ConcurrentLinkedDeque<>();
+      myUsed = ContainerUtil.newConcurrentSet();
+      myPermits = new CancellableSemaphore(concurrent, WAIT_INTERVAL);
+      // statistics are shared with other pools and kept after this pool is disposed
+      myStatistics = guard.getHostStatistics(host);
 
       myDisposed = false;
-      myWait = waitObj;
     }
 
     public void dispose() {
-      final List<SVNRepository> listForClose = new ArrayList<>();
-      listForClose.addAll(myInactive.values());
-      myInactive.clear();
-      myUsed.clear();   // todo use counter instead of list??
-
-      synchronized (myWait) {
-        myWait.notifyAll();
-      }
       myDisposed = true;
-      myWait.notifyAll();
+      final List<SVNRepository> listForClose = pollAllInactive();
+      // repositories that are still used are closed when returned
+      myUsed.clear();
 
       myGuard.connectionDestroyed(listForClose.size());
       ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
@@ -206,105 +198,146 @@ public class CachingSvnRepositoryPool implements SvnRepositoryPool {
       });
     }
 
-    public void interruptWaiting() {
-      synchronized (myWait) {
-        myWait.notifyAll();
-      }
-    }
-
     @Override
     public SVNRepository getRepo(SVNURL url, boolean mayReuse) throws SVNException {
-      if (myDisposed) return null;
-      if (! myInactive.isEmpty() && mayReuse) {
-        return fromInactive(url);
-      }
-      myGuard.waitForTotalNumberOfConnectionsOk();
-
-      if (myUsed.size() >= myMaxConcurrent) {
-        synchronized (myWait) {
-          if ((myUsed.size() + myInactive.size()) >= myMaxConcurrent) {
-            while ((myUsed.size() + myInactive.size()) >= myMaxConcurrent && ! myDisposed) {
-              try {
-                myWait.wait(300);
-              }
-              catch (InterruptedException e) {
-                //
-              }
-              ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
-              if (indicator != null && indicator.isCanceled()) {
-                throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED));
-              }
-            }
-
-            //somewhy unblocked
-            if (myDisposed) {
-              myWait.notifyAll();    // unblock others
-              throw new ProcessCanceledException();
-            }
+      long waitStart = System.nanoTime();
+      acquirePermit();
+      long waitTime = System.nanoTime() - waitStart;
+
+      boolean success = false;
+      try {
+        SVNRepository result = mayReuse ? fromInactive(url) : null;
+        final boolean reused = result != null;
+
+        if (result == null) {
+          waitStart = System.nanoTime();
+          myGuard.waitForTotalNumberOfConnectionsOk();
+          waitTime += System.nanoTime() - waitStart;
+          // idle repositories are also counted in limit of repositories per host
+          if (myUsed.size() + myInactive.size() >= myMaxConcurrent) {
+            closeEldestInactive();
           }
+          final long createStart = System.nanoTime();
+          result = myCreator.convert(url);
+          myStatistics.created(System.nanoTime() - createStart);
+          myGuard.connectionCreated();
         }
+        myStatistics.borrowed(waitTime, reused);
+        myUsed.add(result);
+        success = true;
+        return result;
+      }
+      finally {
+        if (!success) {
+          myPermits.release();
+        }
+      }
+    }
+
+    private void acquirePermit() throws SVNException {
+      try {
+        myPermits.acquire(this::checkCanceled);
       }
-      if (! myInactive.isEmpty() && mayReuse) {
-        return fromInactive(url);
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED));
+      }
+
+      // pool could be disposed while request was waiting
+      if (myDisposed) {
+        myPermits.release();
+        throw new ProcessCanceledException();
+      }
+    }
+
+    private void checkCanceled() throws SVNException {
+      if (myDisposed) throw new ProcessCanceledException();
+
+      ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+      if (indicator != null && indicator.isCanceled()) {
+        throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED));
       }
-      assert myUsed.size() <= myMaxConcurrent;
-      final SVNRepository fun = myCreator.convert(url);
-      myUsed.add(fun);
-      myGuard.connectionCreated();
-      return fun;
     }
 
     private SVNRepository fromInactive(SVNURL url) throws SVNException {
-      // oldest
-      final Map.Entry<Long, SVNRepository> entry = myInactive.firstEntry();
-      final SVNRepository next = entry.getValue();
-      myInactive.remove(entry.getKey());
-      myAdjuster.consume(Pair.create(url, next));
+      final InactiveRepo inactive = myInactive.pollLast();
+      if (inactive == null) return null;
+
+      final SVNRepository next = inactive.myRepository;
+      try {
+        myAdjuster.consume(Pair.create(url, next));
+      }
+      catch (SVNException e) {
+        next.closeSession();
+        myGuard.connectionDestroyed(1);
+        throw e;
+      }
       if (! myGuard.shouldKeepConnectionLocally()) {
-        myInactive.clear();
+        closeInactive();
       }
       return next;
     }
 
     @Override
     public void returnRepo(SVNRepository repo) {
-      myUsed.remove(repo);
-      if (myGuard.shouldKeepConnectionLocally() && myInactive.size() < myMaxCached) {
-        long time = System.currentTimeMillis();
-        if (myInactive.containsKey(time)) {
-          time = myInactive.lastKey() + 1;
-        }
-        myInactive.put(time, repo);
+      if (!myUsed.remove(repo)) {
+        // not borrowed from this group or already returned
+        repo.closeSession();
+        myGuard.connectionDestroyed(1);
+        return;
+      }
+
+      if (!myDisposed && myGuard.shouldKeepConnectionLocally() && myInactive.size() < myMaxCached) {
+        myInactive.offerLast(new InactiveRepo(repo, System.currentTimeMillis()));
       } else {
         repo.closeSession();
         myGuard.connectionDestroyed(1);
       }
+      myPermits.release();
     }
 
     public void recheck() {
       final long time = System.currentTimeMillis();
-      final Set<Long> longs = myInactive.keySet();
-      final Iterator<Long> iterator = longs.iterator();
-      while (iterator.hasNext()) {
-        final Long next = iterator.next();
-        if (time - next > myConnectionTimeout) {
-          myInactive.get(next).closeSession();
+      InactiveRepo eldest;
+
+      while ((eldest = myInactive.peekFirst()) != null && time - eldest.myReturnTime > myConnectionTimeout) {
+        // repository could be concurrently taken for reuse
+        if (myInactive.removeFirstOccurrence(eldest)) {
+          eldest.myRepository.closeSession();
           myGuard.connectionDestroyed(1);
-          iterator.remove();
-        } else {
-          break;
+          myStatistics.idleEvicted(1);
         }
       }
     }
 
+    private void closeEldestInactive() {
+      final InactiveRepo eldest = myInactive.pollFirst();
+
+      if (eldest != null) {
+        eldest.myRepository.closeSession();
+        myGuard.connectionDestroyed(1);
+        myStatistics.limitEvicted(1);
+      }
+    }
+
     public int closeInactive() {
-      int cnt = myInactive.size();
-      for (SVNRepository repository : myInactive.values()) {
+      final List<SVNRepository> repositories = pollAllInactive();
+      for (SVNRepository repository : repositories) {
         repository.closeSession();
-        myGuard.connectionDestroyed(1);
       }
-      myInactive.clear();
-      return cnt;
+      myGuard.connectionDestroyed(repositories.size());
+      myStatistics.limitEvicted(repositories.size());
+      return repositories.size();
+    }
+
+    private List<SVNRepository> pollAllInactive() {
+      final List<SVNRepository> result = new ArrayList<>();
+      InactiveRepo inactive;
+
+      while ((inactive = myInactive.pollFirst()) != null) {
+        result.add(inactive.myRepository);
+      }
+      return result;
     }
 
     public int getUsedSize() {
@@ -314,6 +347,43 @@ public class CachingSvnRepositoryPool implements SvnRepositoryPool {
     public int getInactiveSize() {
       return myInactive.size();
     }
+
+    /**
+     * @return number of requests waiting for repository
+     */
+    public int getWaitingCount() {
+      return myPermits.getQueueLength();
+    }
+
+    public RepositoryPoolStatistics getStatistics() {
+      return myStatistics;
+    }
+  }
+
+  private static class InactiveRepo {
+    private final SVNRepository myRepository;
+    private final long myReturnTime;
+
+    private InactiveRepo(SVNRepository repository, long returnTime) {
+      myRepository = repository;
+      myReturnTime = returnTime;
+    }
+  }
+
+  /**
+   * @return current state of each host - one line per host
+   */
+  public String getStatistics() {
+    final StringBuilder result = new StringBuilder();
+
+    for (Map.Entry<String, RepoGroup> entry : new TreeMap<>(myGroups).entrySet()) {
+      final RepoGroup group = entry.getValue();
+
+      result.append(String.format("%s: used %d, idle %d, waiting %d", entry.getKey(), group.getUsedSize(), group.getInactiveSize(),
+                                  group.getWaitingCount()))
+        .append('\n');
+    }
+    return result.toString();
   }
 
   public Map<String, RepoGroup> getGroups() {
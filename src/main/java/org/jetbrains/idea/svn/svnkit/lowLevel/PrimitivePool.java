@@ -22,6 +22,7 @@ import org.tmatesoft.svn.core.SVNCancelException;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.ISVNConnectionListener;
 import org.tmatesoft.svn.core.io.ISVNSession;
 import org.tmatesoft.svn.core.io.ISVNTunnelProvider;
 import org.tmatesoft.svn.core.io.SVNRepository;
@@ -47,7 +48,13 @@ public class PrimitivePool implements ISVNRepositoryPool, ISVNSession {
 
   @Override
   public SVNRepository createRepository(SVNURL url, boolean mayReuse) throws SVNException {
+    final RepositoryPoolStatistics statistics = SvnIdeaRepositoryPoolManager.getHostStatistics(url.getHost());
+    final long start = System.nanoTime();
     final SVNRepository repos = SVNRepositoryFactory.create(url, this);
+    statistics.created(System.nanoTime() - start);
+    // connections are not kept - each request gets new repository without waiting
+    statistics.borrowed(0, false);
+    repos.addConnectionListener(new ConnectionCounter(statistics));
     repos.setAuthenticationManager(myManager);
     repos.setTunnelProvider(myTunnelProvider);
     repos.setDebugLog(new ProxySvnLog(SVNDebugLog.getDefaultLog()));
@@ -96,6 +103,23 @@ public class PrimitivePool implements ISVNRepositoryPool, ISVNSession {
     return false;
   }
 
+  private static class ConnectionCounter implements ISVNConnectionListener {
+    private final RepositoryPoolStatistics myStatistics;
+
+    private ConnectionCounter(RepositoryPoolStatistics statistics) {
+      myStatistics = statistics;
+    }
+
+    @Override
+    public void connectionOpened(SVNRepository repository) {
+      myStatistics.connectionOpened();
+    }
+
+    @Override
+    public void connectionClosed(SVNRepository repository) {
+    }
+  }
+
   private static class MyCanceller implements ISVNCanceller {
     @Override
     public void checkCancelled() throws SVNCancelException {
@@ -0,0 +1,148 @@
+package org.jetbrains.idea.svn.svnkit.lowLevel;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Usage statistics of SVNKit repositories of single host - collected by {@link PrimitivePool} and {@link CachingSvnRepositoryPool} and
+ * accumulated for the whole application session by {@link ApplicationLevelNumberConnectionsGuardImpl}. Could be used to choose
+ * "maxCached" and "maxConcurrent" pool settings.
+ */
+public class RepositoryPoolStatistics {
+
+  // upper bounds (in milliseconds) of wait time histogram buckets, last bucket contains all longer waits
+  private static final long[] WAIT_BUCKETS = {1, 10, 100, 1000, 10000};
+
+  @Nonnull private final AtomicLong myBorrowCount = new AtomicLong();
+  @Nonnull private final AtomicLong myReuseCount = new AtomicLong();
+  @Nonnull private final AtomicLong myWaitTime = new AtomicLong();
+  @Nonnull private final AtomicLongArray myWaitHistogram = new AtomicLongArray(WAIT_BUCKETS.length + 1);
+  @Nonnull private final AtomicLong myCreateCount = new AtomicLong();
+  @Nonnull private final AtomicLong myCreateTime = new AtomicLong();
+  @Nonnull private final AtomicLong myIdleEvictionCount = new AtomicLong();
+  @Nonnull private final AtomicLong myLimitEvictionCount = new AtomicLong();
+  @Nonnull private final AtomicLong myConnectionCount = new AtomicLong();
+
+  /**
+   * @param waitTime time (in nanoseconds) request waited for free slot
+   * @param reused   if idle repository was reused
+   */
+  void borrowed(long waitTime, boolean reused) {
+    myBorrowCount.incrementAndGet();
+    if (reused) {
+      myReuseCount.incrementAndGet();
+    }
+    myWaitTime.addAndGet(waitTime);
+    myWaitHistogram.incrementAndGet(getBucket(TimeUnit.NANOSECONDS.toMillis(waitTime)));
+  }
+
+  /**
+   * @param createTime time (in nanoseconds) spent to create repository
+   */
+  void created(long createTime) {
+    myCreateCount.incrementAndGet();
+    myCreateTime.addAndGet(createTime);
+  }
+
+  /**
+   * Idle repositories closed by timeout.
+   */
+  void idleEvicted(int count) {
+    myIdleEvictionCount.addAndGet(count);
+  }
+
+  /**
+   * Idle repositories closed because of per host or total connections limit.
+   */
+  void limitEvicted(int count) {
+    myLimitEvictionCount.addAndGet(count);
+  }
+
+  /**
+   * Network connection was opened by repository.
+   */
+  void connectionOpened() {
+    myConnectionCount.incrementAndGet();
+  }
+
+  public long getBorrowCount() {
+    return myBorrowCount.get();
+  }
+
+  public long getReuseCount() {
+    return myReuseCount.get();
+  }
+
+  /**
+   * @return part of requests served with idle repository
+   */
+  public double getReuseRatio() {
+    long borrowCount = myBorrowCount.get();
+
+    return borrowCount > 0 ? (double)myReuseCount.get() / borrowCount : 0;
+  }
+
+  public long getCreateCount() {
+    return myCreateCount.get();
+  }
+
+  /**
+   * @return average repository creation time in milliseconds
+   */
+  public long getAverageCreateTime() {
+    long createCount = myCreateCount.get();
+
+    return createCount > 0 ? TimeUnit.NANOSECONDS.toMillis(myCreateTime.get() / createCount) : 0;
+  }
+
+  public long getIdleEvictionCount() {
+    return myIdleEvictionCount.get();
+  }
+
+  public long getLimitEvictionCount() {
+    return myLimitEvictionCount.get();
+  }
+
+  public long getConnectionCount() {
+    return myConnectionCount.get();
+  }
+
+  @Nonnull
+  public long[] getWaitHistogram() {
+    long[] result = new long[myWaitHistogram.length()];
+
+    for (int i = 0; i < result.length; i++) {
+      result[i] = myWaitHistogram.get(i);
+    }
+    return result;
+  }
+
+  @Nonnull
+  public String format(@Nonnull String host) {
+    StringBuilder result = new StringBuilder();
+
+    result.append(String.format("%s: borrowed %d, reuse ratio %.2f, total wait %d ms; created %d (avg %d ms), connections opened %d; " +
+                                "evicted idle %d, evicted by limit %d; wait histogram:",
+                                host, getBorrowCount(), getReuseRatio(), TimeUnit.NANOSECONDS.toMillis(myWaitTime.get()),
+                                getCreateCount(), getAverageCreateTime(), getConnectionCount(), getIdleEvictionCount(),
+                                getLimitEvictionCount()));
+    long[] histogram = getWaitHistogram();
+    for (int i = 0; i < histogram.length; i++) {
+      result.append(i < WAIT_BUCKETS.length ? " <" + WAIT_BUCKETS[i] : " >=" + WAIT_BUCKETS[WAIT_BUCKETS.length - 1]).append("ms=")
+        .append(histogram[i]);
+    }
+
+    return result.toString();
+  }
+
+  private static int getBucket(long waitTime) {
+    int bucket = 0;
+
+    while (bucket < WAIT_BUCKETS.length && waitTime >= WAIT_BUCKETS[bucket]) {
+      bucket++;
+    }
+    return bucket;
+  }
+}
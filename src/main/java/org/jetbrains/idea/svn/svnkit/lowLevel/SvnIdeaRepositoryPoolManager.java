@@ -19,6 +19,7 @@ import consulo.application.ApplicationManager;
 import consulo.util.lang.function.ThrowableConsumer;
 import consulo.ide.impl.idea.util.ThrowableConvertor;
 import consulo.application.progress.ProgressIndicator;
+import consulo.logging.Logger;
 import consulo.application.progress.ProgressManager;
 import consulo.util.lang.Pair;
 import org.tmatesoft.svn.core.ISVNCanceller;
@@ -31,11 +32,15 @@ import org.tmatesoft.svn.core.wc.ISVNRepositoryPool;
 import org.tmatesoft.svn.util.ISVNDebugLog;
 import org.tmatesoft.svn.util.SVNDebugLog;
 
+import javax.annotation.Nonnull;
+
 /**
  * @author Irina.Chernushina
  * @since 30.07.2012
  */
 public class SvnIdeaRepositoryPoolManager implements ISVNRepositoryPool, ISVNSession {
+  private static final Logger LOG = Logger.getInstance(SvnIdeaRepositoryPoolManager.class);
+
   private final static ApplicationLevelNumberConnectionsGuardImpl ourGuard;
 
   private final ISVNDebugLog myLog;
@@ -102,6 +107,7 @@ public class SvnIdeaRepositoryPoolManager implements ISVNRepositoryPool, ISVNSes
         @Override
         public void connectionOpened(SVNRepository repository) {
           ourGuard.connectionOpened();
+          ourGuard.getHostStatistics(repository.getLocation().getHost()).connectionOpened();
         }
 
         @Override
@@ -170,6 +176,9 @@ public class SvnIdeaRepositoryPoolManager implements ISVNRepositoryPool, ISVNSes
   @Override
   public void dispose() {
     if (myKeepConnection) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Disposing repository pool:\n" + ((CachingSvnRepositoryPool)myPool).getStatistics());
+      }
       ourGuard.removeRepositoryPool((CachingSvnRepositoryPool)myPool);
     }
     myKeepConnection = false;
@@ -210,6 +219,18 @@ public class SvnIdeaRepositoryPoolManager implements ISVNRepositoryPool, ISVNSes
     return myPool;
   }
 
+  /**
+   * @return connections usage statistics of all hosts and current state of pools with kept connections
+   */
+  public static String getStatistics() {
+    return ourGuard.getStatistics();
+  }
+
+  @Nonnull
+  static RepositoryPoolStatistics getHostStatistics(@Nonnull String host) {
+    return ourGuard.getHostStatistics(host);
+  }
+
   public static ApplicationLevelNumberConnectionsGuardImpl getOurGuard() {
     assert ApplicationManager.getApplication().isUnitTestMode();
     return ourGuard;
@@ -35,7 +35,9 @@ import org.jetbrains.annotations.NonNls;
 import org.jetbrains.idea.svn.SvnBundle;
 import org.jetbrains.idea.svn.SvnUtil;
 import org.jetbrains.idea.svn.SvnVcs;
+import org.jetbrains.idea.svn.SvnWCRootCrawler;
 import org.jetbrains.idea.svn.actions.SvnMergeProvider;
+import org.jetbrains.idea.svn.annotate.AnnotationPrefetcher;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -75,11 +77,21 @@ public abstract class AbstractSvnUpdateIntegrateEnvironment implements UpdateEnv
     }
 
     final ArrayList<VcsException> exceptions = new ArrayList<>();
-    UpdateEventHandler eventHandler = new UpdateEventHandler(myVcs, progressIndicator, (SvnUpdateContext) context.get());
-    eventHandler.setUpdatedFiles(updatedFiles);
+    final int parallelism = getParallelism();
+    final List<File> parallelRoots = new ArrayList<>();
+    final SvnWCRootCrawler crawler;
 
-    boolean totalUpdate = true;
-    AbstractUpdateIntegrateCrawler crawler = createCrawler(eventHandler, totalUpdate, exceptions, updatedFiles);
+    if (parallelism > 1) {
+      // only collect working copy roots - they are updated after crawling is finished
+      crawler = (root, progress) -> parallelRoots.add(root);
+    }
+    else {
+      UpdateEventHandler eventHandler = new UpdateEventHandler(myVcs, progressIndicator, (SvnUpdateContext) context.get());
+      eventHandler.setUpdatedFiles(updatedFiles);
+
+      boolean totalUpdate = true;
+      crawler = createCrawler(eventHandler, totalUpdate, exceptions, updatedFiles);
+    }
 
     Collection<VirtualFile> updatedRoots = new HashSet<>();
     Arrays.sort(contentRoots, new Comparator<FilePath>() {
@@ -98,6 +110,10 @@ public abstract class AbstractSvnUpdateIntegrateEnvironment implements UpdateEnv
       Collection<VirtualFile> roots = SvnUtil.crawlWCRoots(myVcs.getProject(), ioRoot, crawler, progressIndicator);
       updatedRoots.addAll(roots);
     }
+    if (!parallelRoots.isEmpty()) {
+      new ParallelUpdater(this, myVcs, (SvnUpdateContext)context.get(), progressIndicator, parallelism)
+        .run(parallelRoots, updatedFiles, exceptions);
+    }
     if (updatedRoots.isEmpty()) {
       WaitForProgressToShow.runOrInvokeLaterAboveProgress(new Runnable() {
         public void run() {
@@ -149,6 +165,11 @@ public abstract class AbstractSvnUpdateIntegrateEnvironment implements UpdateEnv
       for (Runnable groupWorker : myGroupWorkers) {
         groupWorker.run();
       }
+
+      AnnotationPrefetcher prefetcher = myVcs.getAnnotationPrefetcher();
+      if (prefetcher != null && !isDryRun()) {
+        prefetcher.schedule(myUpdatedFiles);
+      }
     }
 
     // not a conflict worker; to correctly show replaced items
@@ -308,6 +329,13 @@ public abstract class AbstractSvnUpdateIntegrateEnvironment implements UpdateEnv
     return false;
   }
 
+  /**
+   * @return number of working copies that could be updated concurrently
+   */
+  protected int getParallelism() {
+    return 1;
+  }
+
   protected abstract AbstractUpdateIntegrateCrawler createCrawler(UpdateEventHandler eventHandler,
 																  boolean totalUpdate,
 																  ArrayList<VcsException> exceptions, UpdatedFiles updatedFiles);
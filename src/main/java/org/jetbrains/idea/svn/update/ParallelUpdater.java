@@ -0,0 +1,131 @@
+package org.jetbrains.idea.svn.update;
+
+import consulo.application.progress.ProgressIndicator;
+import consulo.ide.impl.idea.openapi.vcs.update.UpdatedFilesReverseSide;
+import consulo.util.io.FileUtil;
+import consulo.versionControlSystem.VcsException;
+import consulo.versionControlSystem.update.UpdatedFiles;
+import org.jetbrains.idea.svn.ParallelTasks;
+import org.jetbrains.idea.svn.RootUrlInfo;
+import org.jetbrains.idea.svn.SvnVcs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.*;
+
+/**
+ * Updates several working copies concurrently. Each working copy is updated with its own {@link UpdateEventHandler} and
+ * {@link UpdatedFiles} - collected files and exceptions are merged to the resulting ones in roots order after all updates are finished, so
+ * update tree does not depend on which working copy was updated first.
+ * <p>
+ * Roots of the same working copy are updated sequentially by the same task. Working copies nested into other updated working copies (for
+ * instance, externals) are updated after all independent working copies - as update of parent working copy could also touch them.
+ */
+class ParallelUpdater {
+
+  @Nonnull private final AbstractSvnUpdateIntegrateEnvironment myEnvironment;
+  @Nonnull private final SvnVcs myVcs;
+  @Nonnull private final SvnUpdateContext myContext;
+  @Nullable private final ProgressIndicator myProgress;
+  private final int myParallelism;
+
+  ParallelUpdater(@Nonnull AbstractSvnUpdateIntegrateEnvironment environment,
+                  @Nonnull SvnVcs vcs,
+                  @Nonnull SvnUpdateContext context,
+                  @Nullable ProgressIndicator progress,
+                  int parallelism) {
+    myEnvironment = environment;
+    myVcs = vcs;
+    myContext = context;
+    myProgress = progress;
+    myParallelism = parallelism;
+  }
+
+  public void run(@Nonnull List<File> roots, @Nonnull UpdatedFiles updatedFiles, @Nonnull List<VcsException> exceptions) {
+    List<RootsUpdate> updates = groupByWorkingCopy(roots);
+    List<RootsUpdate> independent = new ArrayList<>();
+    List<RootsUpdate> nested = new ArrayList<>();
+
+    for (RootsUpdate update : updates) {
+      (isNested(update, updates) ? nested : independent).add(update);
+    }
+
+    runConcurrently(independent);
+    for (RootsUpdate update : nested) {
+      update.run(true);
+    }
+
+    UpdatedFilesReverseSide result = new UpdatedFilesReverseSide(updatedFiles);
+    for (RootsUpdate update : updates) {
+      result.accomulateFiles(update.myUpdatedFiles, UpdatedFilesReverseSide.DuplicateLevel.DUPLICATE_ERRORS);
+      exceptions.addAll(update.myExceptions);
+    }
+  }
+
+  private void runConcurrently(@Nonnull List<RootsUpdate> updates) {
+    int workersCount = Math.min(myParallelism, updates.size());
+
+    if (workersCount <= 1) {
+      for (RootsUpdate update : updates) {
+        update.run(false);
+      }
+      return;
+    }
+
+    new ParallelTasks<RootsUpdate, RuntimeException>(myParallelism, myProgress, update -> update.run(false)).addAll(updates).run();
+  }
+
+  @Nonnull
+  private List<RootsUpdate> groupByWorkingCopy(@Nonnull List<File> roots) {
+    Map<File, RootsUpdate> result = new LinkedHashMap<>();
+
+    for (File root : roots) {
+      RootUrlInfo info = myVcs.getSvnFileUrlMapping().getWcRootForFilePath(root);
+      File workingCopy = info != null ? info.getIoFile() : root;
+
+      result.computeIfAbsent(workingCopy, RootsUpdate::new).myRoots.add(root);
+    }
+
+    return new ArrayList<>(result.values());
+  }
+
+  private static boolean isNested(@Nonnull RootsUpdate update, @Nonnull List<RootsUpdate> updates) {
+    for (RootsUpdate other : updates) {
+      if (other != update && FileUtil.isAncestor(other.myWorkingCopy, update.myWorkingCopy, true)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private class RootsUpdate {
+    @Nonnull private final File myWorkingCopy;
+    @Nonnull private final List<File> myRoots = new ArrayList<>();
+    @Nonnull private final UpdatedFiles myUpdatedFiles = UpdatedFiles.create();
+    @Nonnull private final ArrayList<VcsException> myExceptions = new ArrayList<>();
+
+    private RootsUpdate(@Nonnull File workingCopy) {
+      myWorkingCopy = workingCopy;
+    }
+
+    /**
+     * @param checkContext if roots should be checked once again - they could already be updated as externals of parent working copy
+     */
+    private void run(boolean checkContext) {
+      myEnvironment.fillGroups(myUpdatedFiles);
+      UpdateEventHandler handler = new UpdateEventHandler(myVcs, myProgress, myContext);
+      handler.setUpdatedFiles(myUpdatedFiles);
+      AbstractUpdateIntegrateCrawler crawler = myEnvironment.createCrawler(handler, true, myExceptions, myUpdatedFiles);
+
+      for (File root : myRoots) {
+        if (myProgress != null) {
+          myProgress.checkCanceled();
+        }
+        if (!checkContext || myContext.shouldRunFor(root)) {
+          crawler.handleWorkingCopyRoot(root, myProgress);
+        }
+      }
+    }
+  }
+}
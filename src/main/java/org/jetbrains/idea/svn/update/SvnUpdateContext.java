@@ -15,6 +15,7 @@
  */
 package org.jetbrains.idea.svn.update;
 
+import consulo.util.collection.ContainerUtil;
 import consulo.versionControlSystem.FilePath;
 import consulo.ide.impl.idea.util.FilePathByPathComparator;
 import javax.annotation.Nonnull;
@@ -38,7 +39,8 @@ public class SvnUpdateContext implements SequentialUpdatesContext
     myVcs = vcs;
     myContentRoots = Arrays.asList(contentRoots);
     Collections.sort(myContentRoots, FilePathByPathComparator.getInstance());
-    myUpdatedExternals = new HashSet<>();
+    // externals could be registered by several concurrent updates
+    myUpdatedExternals = ContainerUtil.newConcurrentSet();
   }
 
   @Nonnull
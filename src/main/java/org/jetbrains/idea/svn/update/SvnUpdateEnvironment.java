@@ -36,6 +36,11 @@ import java.util.Collection;
 
 public class SvnUpdateEnvironment extends AbstractSvnUpdateIntegrateEnvironment {
 
+  /**
+   * Number of independent working copies that could be updated concurrently.
+   */
+  public static final int CONFIGURED_PARALLELISM = Math.max(1, Integer.getInteger("svn.update.parallelism", 1));
+
   public SvnUpdateEnvironment(SvnVcs vcs) {
     super(vcs);
   }
@@ -46,6 +51,11 @@ public class SvnUpdateEnvironment extends AbstractSvnUpdateIntegrateEnvironment
     return new UpdateCrawler(myVcs, eventHandler, totalUpdate, exceptions, updatedFiles);
   }
 
+  @Override
+  protected int getParallelism() {
+    return CONFIGURED_PARALLELISM;
+  }
+
   public Configurable createConfigurable(final Collection<FilePath> collection) {
     if (collection.isEmpty()) return null;
     return new SvnUpdateConfigurable(myVcs.getProject()){
@@ -32,10 +32,9 @@ import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.io.ISVNSession;
 import org.tmatesoft.svn.core.io.SVNRepository;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created with IntelliJ IDEA.
@@ -137,6 +136,221 @@ public abstract class SvnCachingRepositoryPoolTest extends FileBasedTest {
     checkAfterDispose(poolManager);
   }
 
+  @Test
+  public void testWaitersAreServedInFifoOrder() throws Exception {
+    final SvnIdeaRepositoryPoolManager poolManager = new SvnIdeaRepositoryPoolManager(true, null, null, 1, 1);
+    final SVNURL url = SVNURL.parseURIEncoded("http://a.b.c");
+    poolManager.setCreator(new ThrowableConvertor<SVNURL, SVNRepository, SVNException>() {
+      @Override
+      public SVNRepository convert(SVNURL svnurl) throws SVNException {
+        return new MockSvnRepository(svnurl, ISVNSession.DEFAULT);
+      }
+    });
+    final MockSvnRepository repository1 = (MockSvnRepository)poolManager.createRepository(url, true);
+    repository1.fireConnectionOpened();
+    final CachingSvnRepositoryPool.RepoGroup group = getGroup(poolManager);
+
+    final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+    final SVNException[] exc = new SVNException[1];
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final int index = i;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            final MockSvnRepository repository = (MockSvnRepository)poolManager.createRepository(url, true);
+            order.add(index);
+            repository.fireConnectionOpened();
+            repository.fireConnectionClosed();
+          }
+          catch (SVNException e) {
+            e.printStackTrace();
+            exc[0] = e;
+          }
+        }
+      }, "svn cache waiter " + i);
+      thread.start();
+      threads.add(thread);
+      // next thread starts waiting only after previous one is queued
+      waitFor(group, i + 1);
+    }
+
+    repository1.fireConnectionClosed();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertNull(exc[0]);
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < threads.size(); i++) {
+      expected.add(i);
+    }
+    Assert.assertEquals(expected, order);
+    Assert.assertEquals(0, group.getWaitingCount());
+    Assert.assertEquals(0, group.getUsedSize());
+
+    poolManager.dispose();
+    checkAfterDispose(poolManager);
+  }
+
+  @Test
+  public void testCancelledWaiterLeavesQueue() throws Exception {
+    final SvnIdeaRepositoryPoolManager poolManager = new SvnIdeaRepositoryPoolManager(true, null, null, 1, 1);
+    final SVNURL url = SVNURL.parseURIEncoded("http://a.b.c");
+    poolManager.setCreator(new ThrowableConvertor<SVNURL, SVNRepository, SVNException>() {
+      @Override
+      public SVNRepository convert(SVNURL svnurl) throws SVNException {
+        return new MockSvnRepository(svnurl, ISVNSession.DEFAULT);
+      }
+    });
+    final MockSvnRepository repository1 = (MockSvnRepository)poolManager.createRepository(url, true);
+    repository1.fireConnectionOpened();
+    final CachingSvnRepositoryPool.RepoGroup group = getGroup(poolManager);
+
+    final SVNException[] exc = new SVNException[1];
+    final EmptyProgressIndicator indicator = new EmptyProgressIndicator();
+    Thread cancelled = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        ((ProgressManagerImpl)ProgressManager.getInstance()).executeProcessUnderProgress(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              poolManager.createRepository(url, true);
+            }
+            catch (SVNException e) {
+              exc[0] = e;
+            }
+          }
+        }, indicator);
+      }
+    }, "svn cache cancelled waiter");
+    cancelled.start();
+    waitFor(group, 1);
+
+    final MockSvnRepository[] next = new MockSvnRepository[1];
+    Thread waiter = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          next[0] = (MockSvnRepository)poolManager.createRepository(url, true);
+        }
+        catch (SVNException e) {
+          e.printStackTrace();
+        }
+      }
+    }, "svn cache waiter");
+    waiter.start();
+    waitFor(group, 2);
+
+    indicator.cancel();
+    cancelled.join();
+    Assert.assertNotNull(exc[0]);
+    Assert.assertEquals(1, group.getWaitingCount());
+
+    // permit is passed to the remaining waiter, not lost with cancelled one
+    repository1.fireConnectionClosed();
+    waiter.join();
+    Assert.assertNotNull(next[0]);
+    Assert.assertEquals(0, group.getWaitingCount());
+    Assert.assertEquals(1, group.getUsedSize());
+
+    next[0].fireConnectionOpened();
+    next[0].fireConnectionClosed();
+    poolManager.dispose();
+    checkAfterDispose(poolManager);
+  }
+
+  /**
+   * Many threads borrow and return repositories of the same host - reports throughput and fairness of the pool under contention.
+   */
+  @Test
+  public void testContentionBenchmark() throws Exception {
+    final int threadCount = 50;
+    final int iterations = 200;
+    final SvnIdeaRepositoryPoolManager poolManager = new SvnIdeaRepositoryPoolManager(true, null, null, 5, 5);
+    poolManager.setCreator(new ThrowableConvertor<SVNURL, SVNRepository, SVNException>() {
+      @Override
+      public SVNRepository convert(SVNURL svnurl) throws SVNException {
+        return new MockSvnRepository(svnurl, ISVNSession.DEFAULT);
+      }
+    });
+    // separate host - so borrow count is not affected by other tests
+    final SVNURL url = SVNURL.parseURIEncoded("http://benchmark.a.b.c");
+    final SVNException[] exc = new SVNException[1];
+    final long[] maxWait = new long[threadCount];
+    final CountDownLatch startSignal = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+
+    for (int i = 0; i < threadCount; i++) {
+      final int index = i;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            startSignal.await();
+            for (int j = 0; j < iterations; j++) {
+              final long start = System.nanoTime();
+              final MockSvnRepository repository = (MockSvnRepository)poolManager.createRepository(url, true);
+              maxWait[index] = Math.max(maxWait[index], System.nanoTime() - start);
+              repository.fireConnectionOpened();
+              repository.fireConnectionClosed();
+            }
+          }
+          catch (SVNException e) {
+            e.printStackTrace();
+            exc[0] = e;
+          }
+          catch (InterruptedException e) {
+            //
+          }
+        }
+      }, "svn cache benchmark " + i);
+      thread.start();
+      threads.add(thread);
+    }
+
+    final long start = System.nanoTime();
+    startSignal.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    final long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    Assert.assertNull(exc[0]);
+    long worstWait = 0;
+    for (long wait : maxWait) {
+      worstWait = Math.max(worstWait, wait);
+    }
+    System.out.println(String.format("Pool contention: %d threads x %d requests in %d ms (%.0f requests/s), max wait %d ms\n%s",
+                                     threadCount, iterations, time, threadCount * iterations * 1000.0 / Math.max(time, 1),
+                                     TimeUnit.NANOSECONDS.toMillis(worstWait),
+                                     ((CachingSvnRepositoryPool)poolManager.getPool()).getStatistics()));
+
+    final CachingSvnRepositoryPool.RepoGroup group = getGroup(poolManager);
+    Assert.assertEquals(0, group.getUsedSize());
+    Assert.assertEquals(0, group.getWaitingCount());
+    Assert.assertEquals(threadCount * iterations, group.getStatistics().getBorrowCount());
+
+    poolManager.dispose();
+    checkAfterDispose(poolManager);
+  }
+
+  private static CachingSvnRepositoryPool.RepoGroup getGroup(SvnIdeaRepositoryPoolManager poolManager) {
+    Map<String,CachingSvnRepositoryPool.RepoGroup> groups = ((CachingSvnRepositoryPool) poolManager.getPool()).getGroups();
+    Assert.assertEquals(1, groups.size());
+    return groups.values().iterator().next();
+  }
+
+  private void waitFor(CachingSvnRepositoryPool.RepoGroup group, int waitingCount) {
+    final long start = System.currentTimeMillis();
+    while (group.getWaitingCount() < waitingCount && ! timeout(start)) {
+      TimeoutUtil.sleep(1);
+    }
+    Assert.assertEquals(waitingCount, group.getWaitingCount());
+  }
+
   private void checkAfterDispose(SvnIdeaRepositoryPoolManager poolManager) {
     final ApplicationLevelNumberConnectionsGuardImpl guard = SvnIdeaRepositoryPoolManager.getOurGuard();
     Assert.assertEquals(0, guard.getCurrentlyActiveConnections());
@@ -0,0 +1,59 @@
+package org.jetbrains.idea.svn;
+
+import consulo.versionControlSystem.FilePath;
+import consulo.versionControlSystem.VcsConfiguration;
+import consulo.versionControlSystem.util.VcsUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+public abstract class WcDbChangesTrackerTest extends Svn17TestCase {
+
+  @Test
+  public void testUnchangedDatabaseHasNoDirtyPaths() throws Exception {
+    prepareWorkingCopy();
+    File root = new File(myWorkingCopyDir.getPath());
+
+    WcDbChangesTracker.Snapshot previous = WcDbChangesTracker.readSnapshot(root);
+    WcDbChangesTracker.Snapshot snapshot = WcDbChangesTracker.readSnapshot(root);
+    Assert.assertNotNull(previous);
+    Assert.assertNotNull(snapshot);
+
+    // rows with properties (blob columns) and locks should be equal for the same database state
+    Assert.assertEquals(Collections.<FilePath>emptyList(), WcDbChangesTracker.getDirtyPaths(root, previous, snapshot));
+  }
+
+  @Test
+  public void testOnlyChangedPathIsDirty() throws Exception {
+    prepareWorkingCopy();
+    File root = new File(myWorkingCopyDir.getPath());
+    File file = new File(root, "dir/b.txt");
+
+    WcDbChangesTracker.Snapshot previous = WcDbChangesTracker.readSnapshot(root);
+    runInAndVerifyIgnoreOutput("propset", "testprop", "changed", file.getPath());
+    WcDbChangesTracker.Snapshot snapshot = WcDbChangesTracker.readSnapshot(root);
+    Assert.assertNotNull(previous);
+    Assert.assertNotNull(snapshot);
+
+    List<FilePath> dirtyPaths = WcDbChangesTracker.getDirtyPaths(root, previous, snapshot);
+    Assert.assertEquals(Collections.singletonList(VcsUtil.getFilePath(file, false)), dirtyPaths);
+  }
+
+  private void prepareWorkingCopy() throws Exception {
+    enableSilentOperation(VcsConfiguration.StandardConfirmation.ADD);
+    VirtualFile dir = createDirInCommand(myWorkingCopyDir, "dir");
+    VirtualFile a = createFileInCommand("a.txt", "content");
+    VirtualFile b = createFileInCommand(dir, "b.txt", "content");
+    checkin();
+
+    runInAndVerifyIgnoreOutput("propset", "svn:eol-style", "native", a.getPath());
+    runInAndVerifyIgnoreOutput("propset", "testprop", "value", dir.getPath());
+    runInAndVerifyIgnoreOutput("propset", "testprop", "value", b.getPath());
+    checkin();
+    runInAndVerifyIgnoreOutput("lock", a.getPath());
+  }
+}
@@ -0,0 +1,189 @@
+package org.jetbrains.idea.svn;
+
+import com.intellij.openapi.vcs.VcsTestUtil;
+import consulo.versionControlSystem.VcsConfiguration;
+import consulo.virtualFileSystem.VirtualFile;
+import junit.framework.Assert;
+import org.jetbrains.idea.svn.api.BaseSvnClient;
+import org.jetbrains.idea.svn.api.Depth;
+import org.jetbrains.idea.svn.lock.Lock;
+import org.jetbrains.idea.svn.status.CmdStatusClient;
+import org.jetbrains.idea.svn.status.Status;
+import org.jetbrains.idea.svn.status.StatusClient;
+import org.jetbrains.idea.svn.status.StatusConsumer;
+import org.jetbrains.idea.svn.status.WcDbStatusClient;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares statuses read from wc.db with statuses reported by "svn status".
+ */
+public abstract class WcDbStatusClientTest extends Svn17TestCase {
+
+  @Test
+  public void testModifiedFiles() throws Exception {
+    enableSilentOperation(VcsConfiguration.StandardConfirmation.ADD);
+    VirtualFile dir = createDirInCommand(myWorkingCopyDir, "dir");
+    VirtualFile a = createFileInCommand("a.txt", "content");
+    createFileInCommand(dir, "b.txt", "content");
+    checkin();
+
+    VcsTestUtil.editFileInCommand(myProject, a, "changed content");
+    runInAndVerifyIgnoreOutput("propset", "testprop", "value", dir.getPath());
+
+    assertSameStatuses(Depth.INFINITY, true, false);
+    assertSameStatuses(Depth.INFINITY, false, false);
+  }
+
+  @Test
+  public void testAddedCopiedDeletedAndReplaced() throws Exception {
+    enableSilentOperation(VcsConfiguration.StandardConfirmation.ADD);
+    VirtualFile dir = createDirInCommand(myWorkingCopyDir, "dir");
+    VirtualFile sub = createDirInCommand(dir, "sub");
+    createFileInCommand(dir, "a.txt", "content");
+    createFileInCommand(sub, "b.txt", "content");
+    VirtualFile other = createDirInCommand(myWorkingCopyDir, "other");
+    createFileInCommand(other, "c.txt", "content");
+    VirtualFile replaced = createFileInCommand("replaced.txt", "content");
+    createFileInCommand("source.txt", "source content");
+    checkin();
+
+    File root = new File(myWorkingCopyDir.getPath());
+    // copied directory - its rows are stored at higher op_depth, nested deletion adds one more layer
+    runInAndVerifyIgnoreOutput("copy", new File(root, "dir").getPath(), new File(root, "copied").getPath());
+    runInAndVerifyIgnoreOutput("delete", new File(root, "copied/sub/b.txt").getPath());
+    // deleted directory with children
+    runInAndVerifyIgnoreOutput("delete", other.getPath());
+    // replaced file
+    runInAndVerifyIgnoreOutput("delete", replaced.getPath());
+    runInAndVerifyIgnoreOutput("copy", new File(root, "source.txt").getPath(), replaced.getPath());
+    // plain addition
+    createFileInCommand(sub, "added.txt", "content");
+
+    assertSameStatuses(Depth.INFINITY, true, false);
+    assertSameStatuses(Depth.INFINITY, false, false);
+  }
+
+  @Test
+  public void testSwitchedDirectory() throws Exception {
+    enableSilentOperation(VcsConfiguration.StandardConfirmation.ADD);
+    VirtualFile dir = createDirInCommand(myWorkingCopyDir, "dir");
+    createFileInCommand(dir, "a.txt", "content");
+    checkin();
+
+    runInAndVerifyIgnoreOutput("copy", "-m", "branch", myRepoUrl + "/dir", myRepoUrl + "/branch");
+    runInAndVerifyIgnoreOutput("switch", myRepoUrl + "/branch", dir.getPath());
+
+    assertSameStatuses(Depth.INFINITY, true, false);
+    assertSameStatuses(Depth.INFINITY, false, false);
+  }
+
+  @Test
+  public void testLockedFile() throws Exception {
+    enableSilentOperation(VcsConfiguration.StandardConfirmation.ADD);
+    VirtualFile a = createFileInCommand("a.txt", "content");
+    createFileInCommand("b.txt", "content");
+    checkin();
+
+    runInAndVerifyIgnoreOutput("lock", "-m", "lock comment", a.getPath());
+
+    assertSameStatuses(Depth.INFINITY, true, false);
+    assertSameStatuses(Depth.INFINITY, false, false);
+  }
+
+  @Test
+  public void testIgnoredFiles() throws Exception {
+    enableSilentOperation(VcsConfiguration.StandardConfirmation.ADD);
+    VirtualFile dir = createDirInCommand(myWorkingCopyDir, "dir");
+    createFileInCommand(dir, "a.txt", "content");
+    checkin();
+
+    runInAndVerifyIgnoreOutput("propset", "svn:ignore", "*.log", dir.getPath());
+    checkin();
+    createFileInCommand(dir, "ignored.log", "content");
+
+    assertSameStatuses(Depth.INFINITY, true, true);
+    assertSameStatuses(Depth.INFINITY, true, false);
+    assertSameStatuses(Depth.INFINITY, false, true);
+    assertSameStatuses(Depth.INFINITY, false, false);
+  }
+
+  @Test
+  public void testDepths() throws Exception {
+    enableSilentOperation(VcsConfiguration.StandardConfirmation.ADD);
+    VirtualFile dir = createDirInCommand(myWorkingCopyDir, "dir");
+    VirtualFile sub = createDirInCommand(dir, "sub");
+    VirtualFile a = createFileInCommand(dir, "a.txt", "content");
+    VirtualFile b = createFileInCommand(sub, "b.txt", "content");
+    checkin();
+
+    VcsTestUtil.editFileInCommand(myProject, a, "changed content");
+    VcsTestUtil.editFileInCommand(myProject, b, "changed content");
+    runInAndVerifyIgnoreOutput("propset", "testprop", "value", sub.getPath());
+
+    File path = new File(dir.getPath());
+    for (Depth depth : new Depth[]{Depth.EMPTY, Depth.FILES, Depth.IMMEDIATES, Depth.INFINITY}) {
+      assertSameStatuses(path, depth, true, false);
+      assertSameStatuses(path, depth, false, false);
+    }
+  }
+
+  private void assertSameStatuses(Depth depth, boolean reportAll, boolean includeIgnored) throws Exception {
+    assertSameStatuses(new File(myWorkingCopyDir.getPath()), depth, reportAll, includeIgnored);
+  }
+
+  private void assertSameStatuses(File path, Depth depth, boolean reportAll, boolean includeIgnored) throws Exception {
+    Map<String, String> expected = collect(createClient(new CmdStatusClient()), path, depth, reportAll, includeIgnored);
+    Map<String, String> actual = collect(createClient(new WcDbStatusClient()), path, depth, reportAll, includeIgnored);
+
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals("depth " + depth + ", reportAll " + reportAll + ", includeIgnored " + includeIgnored, expected, actual);
+  }
+
+  private StatusClient createClient(BaseSvnClient client) {
+    SvnVcs vcs = SvnVcs.getInstance(myProject);
+
+    client.setVcs(vcs);
+    client.setFactory(vcs.getCommandLineFactory());
+    client.setIsActive(true);
+
+    return (StatusClient)client;
+  }
+
+  private static Map<String, String> collect(StatusClient client, File path, Depth depth, boolean reportAll, boolean includeIgnored)
+    throws Exception {
+    final Map<String, String> result = new TreeMap<>();
+
+    client.doStatus(path, null, depth, false, reportAll, includeIgnored, false, new StatusConsumer() {
+      @Override
+      public void consume(Status status) throws SVNException {
+        result.put(status.getFile().getPath(), describe(status));
+      }
+    }, null);
+
+    return result;
+  }
+
+  private static String describe(Status status) {
+    Lock lock = status.getLocalLock();
+
+    return "node: " + status.getNodeStatus() +
+           ", contents: " + status.getContentsStatus() +
+           ", properties: " + status.getPropertiesStatus() +
+           ", kind: " + status.getKind() +
+           ", url: " + status.getURL() +
+           ", root: " + status.getRepositoryRootURL() +
+           ", revision: " + status.getRevision() +
+           ", committed: " + status.getCommittedRevision() +
+           ", copied: " + status.isCopied() +
+           ", switched: " + status.isSwitched() +
+           ", locked: " + status.isLocked() +
+           ", lock: " + (lock == null ? null : lock.getOwner() + " " + lock.getComment()) +
+           ", changelist: " + status.getChangelistName() +
+           ", conflicted: " + status.isConflicted();
+  }
+}